@@ -18,34 +18,100 @@
 
 package de.minecrawler;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.jsoup.HttpStatusException;
-import org.jsoup.Jsoup;
-import org.jsoup.UnsupportedMimeTypeException;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import de.minecrawler.cache.PageMetadata;
+import de.minecrawler.cache.PageMetadataStore;
+import de.minecrawler.crawl.AbstractFetcher;
+import de.minecrawler.crawl.AbstractVisitedSet;
+import de.minecrawler.crawl.BloomFilterVisitedSet;
+import de.minecrawler.crawl.CheckpointHandler;
+import de.minecrawler.crawl.CrawlCheckpoint;
+import de.minecrawler.crawl.CrawlBudget;
+import de.minecrawler.crawl.CrawledWebsiteHandler;
+import de.minecrawler.crawl.DuplicateDetector;
+import de.minecrawler.crawl.ExtractedContent;
+import de.minecrawler.crawl.FetchResult;
+import de.minecrawler.crawl.Frontier;
+import de.minecrawler.crawl.HostScheduler;
+import de.minecrawler.crawl.HttpFetcher;
+import de.minecrawler.crawl.LinkGraph;
+import de.minecrawler.crawl.LongHashVisitedSet;
+import de.minecrawler.crawl.StreamingHtmlExtractor;
+import de.minecrawler.crawl.URLCanonicalizer;
 import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawlerOptions;
 
 /**
- * Website crawler based on Jsoup. Uses deep first search recursion strategy for
- * crawling.
+ * Website crawler based on Jsoup. The websites are retrieved by an
+ * {@link AbstractFetcher} and parsed by Jsoup. Uses a parallel breadth first search strategy
+ * for crawling: The websites of one level are fetched concurrently by a fixed
+ * number of workers from a shared {@link Frontier}, the next level is started
+ * when the current level is completely crawled. A {@link HostScheduler} limits
+ * the requests per host, workers skip urls of busy hosts. The crawl stops early
+ * when its {@link CrawlBudget} is exhausted. <br>
+ * Every website is only crawled once: All urls are brought into their canonical
+ * form and remembered in a visited set. <br>
+ * Long crawls can write {@link CrawlCheckpoint}s periodically and be resumed
+ * from them after a crash. <br>
+ * The links between the crawled websites can be recorded in a
+ * {@link LinkGraph}.
  */
 public class Crawler {
 
     private static final int MAX_TIMEOUT = 2000;
 
+    // Number of busy urls a worker skips before waiting for a host
+    private static final int MAX_DEFERRED = 32;
+    private static final long MAX_WAIT = 10;
+
     private int maxSearchDepth;
     private URL seed;
+    private CrawlerOptions options;
+
+    private AbstractVisitedSet visitedSet;
+    private AtomicInteger crawledWebsites = new AtomicInteger();
+    private AtomicInteger unchangedWebsites = new AtomicInteger();
+    private AtomicInteger duplicateWebsites = new AtomicInteger();
+    private DuplicateDetector duplicateDetector;
+
+    private PageMetadataStore metadataStore;
+    private LinkGraph linkGraph;
+    private AbstractFetcher fetcher;
+    private HostScheduler scheduler;
+    private CrawlBudget budget;
+
+    private CheckpointHandler checkpointHandler;
+    private long checkpointInterval;
+    private volatile long nextCheckpoint;
+    private AtomicBoolean checkpointing = new AtomicBoolean();
+    // Workers hold the read lock while crawling an url, a checkpoint the write lock
+    private ReadWriteLock pauseLock = new ReentrantReadWriteLock();
+    private CrawlCheckpoint resumeCheckpoint;
 
     /**
      * Creates a website crawler with an initial url to crawl and the
-     * limitation for crawling.
+     * limitation for crawling. Uses the default {@link CrawlerOptions}.
      * 
      * @param maxSearchDepth
      *            The maximum search depth the crawler goes before terminiating
@@ -53,8 +119,26 @@ public class Crawler {
      *            The initial url the crawler begins at
      */
     public Crawler(int maxSearchDepth, URL seed) {
+        this(maxSearchDepth, seed, new CrawlerOptions());
+    }
+
+    /**
+     * Creates a website crawler with an initial url to crawl and the
+     * limitation for crawling.
+     * 
+     * @param maxSearchDepth
+     *            The maximum search depth the crawler goes before terminiating
+     * @param seed
+     *            The initial url the crawler begins at
+     * @param options
+     *            Options for the crawler, for example the number of threads
+     */
+    public Crawler(int maxSearchDepth, URL seed, CrawlerOptions options) {
         this.maxSearchDepth = maxSearchDepth;
         this.seed = seed;
+        this.options = options;
+        this.fetcher = new HttpFetcher(MAX_TIMEOUT, options.getMaxResponseSize());
+        this.scheduler = new HostScheduler(options.getMaxHostRequests(), options.getHostDelay());
     }
 
     /**
@@ -64,58 +148,486 @@ public class Crawler {
      *         <code>Null</code> if, and only if, an error occured!
      */
     public List<CrawledWebsite> run() {
+        final List<CrawledWebsite> websites = Collections.synchronizedList(new ArrayList<CrawledWebsite>());
+        int crawled = run(new CrawledWebsiteHandler() {
+            @Override
+            public void handle(CrawledWebsite website) {
+                websites.add(website);
+            }
+        });
+        if (crawled == -1)
+            return null;
+        return new ArrayList<CrawledWebsite>(websites);
+    }
+
+    /**
+     * Starts the crawler and passes every crawled website to the handler as
+     * soon as it is crawled. The crawler does not keep the websites in memory.
+     * 
+     * @param handler
+     *            Thread safe handler for the crawled websites
+     * @return The number of crawled websites. <code>-1</code> if, and only if,
+     *         an error occured!
+     */
+    public int run(CrawledWebsiteHandler handler) {
+        ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
         try {
-            List<CrawledWebsite> websites = new ArrayList<CrawledWebsite>();
-            parseWebsite(websites, seed, 0);
-            return websites;
+            URL start = URLCanonicalizer.canonicalize(seed);
+            if (start == null)
+                start = seed;
+
+            this.unchangedWebsites = new AtomicInteger();
+            this.duplicateWebsites = new AtomicInteger();
+            if (options.getNearDuplicateDistance() >= 0)
+                this.duplicateDetector = new DuplicateDetector(options.getNearDuplicateDistance());
+            this.budget = new CrawlBudget(options.getMaxPages(), options.getMaxBytes(), options.getMaxTime(), options.getMaxPagesPerHost());
+            Frontier frontier;
+            if (resumeCheckpoint != null) {
+                this.visitedSet = resumeCheckpoint.getVisitedSet();
+                this.crawledWebsites = new AtomicInteger(resumeCheckpoint.getCrawledWebsites());
+                budget.resume(resumeCheckpoint.getPages(), resumeCheckpoint.getBytes());
+                // Websites crawled before the checkpoint are still detected
+                // as duplicates, unless the distance has changed
+                DuplicateDetector detector = resumeCheckpoint.getDuplicateDetector();
+                if (detector != null && duplicateDetector != null && detector.getMaxDistance() == duplicateDetector.getMaxDistance())
+                    this.duplicateDetector = detector;
+                frontier = resumeCheckpoint.getFrontier();
+                this.resumeCheckpoint = null;
+            } else {
+                this.visitedSet = createVisitedSet();
+                this.crawledWebsites = new AtomicInteger();
+                visitedSet.add(start);
+                frontier = new Frontier(start);
+            }
+            // The first checkpoint marks the crawl as unfinished
+            if (checkpointHandler != null)
+                checkpoint(frontier);
+
+            while (frontier.getDepth() < maxSearchDepth) {
+                crawlLevel(executor, frontier, handler);
+                if (budget.isExhausted() || !frontier.advance())
+                    break;
+            }
+            return crawledWebsites.get();
         } catch (Exception e) {
             e.printStackTrace();
-            return null;
+            return -1;
+        } finally {
+            executor.shutdownNow();
         }
     }
 
     /**
-     * The deep first search of the website. Terminates when the maxSearchDepth
-     * is reached.
+     * Creates the visited set depending on the options.
      * 
-     * @param websites
-     *            List of current crawled websites
-     * @param url
-     *            The current url to scan
-     * @param depth
-     *            The current depth of crawling
+     * @return An exact visited set or a Bloom filter for very large crawls
+     */
+    private AbstractVisitedSet createVisitedSet() {
+        if (options.getBloomFilterSize() > 0)
+            return new BloomFilterVisitedSet(options.getBloomFilterSize(), CrawlerOptions.BLOOM_FILTER_FALSE_POSITIVE_RATE);
+        else
+            return new LongHashVisitedSet();
+    }
+
+    /**
+     * Crawls the current level of the frontier. Starts a worker for every
+     * thread, the workers are polling the frontier until the level is
+     * completely handed out. Returns when all workers are finished.
+     * 
+     * @param executor
+     *            The executor running the workers
+     * @param frontier
+     *            The shared frontier
+     * @param handler
+     *            Thread safe handler for the crawled websites
      * @throws Exception
-     *             An error occurred
+     *             An error occurred in one of the workers
      */
-    private void parseWebsite(List<CrawledWebsite> websites, URL url, int depth) throws Exception {
-        if (depth == maxSearchDepth) {
+    private void crawlLevel(ExecutorService executor, final Frontier frontier, final CrawledWebsiteHandler handler) throws Exception {
+        // Links of the last level are never crawled
+        final boolean followLinks = frontier.getDepth() + 1 < maxSearchDepth;
+
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        for (int i = 0; i < options.getThreads(); ++i) {
+            workers.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    URL url;
+                    int deferred = 0;
+                    while (true) {
+                        if (isCheckpointDue())
+                            checkpoint(frontier);
+
+                        Lock lock = pauseLock.readLock();
+                        lock.lock();
+                        try {
+                            if ((url = frontier.poll()) == null)
+                                return null;
+                            if (!budget.tryStartPage(url.getHost())) {
+                                if (budget.isExhausted())
+                                    return null;
+                                // Host has reached its limit
+                                continue;
+                            }
+                            if (!scheduler.tryAcquire(url.getHost())) {
+                                // Host is busy - try the other urls first
+                                budget.cancelPage(url.getHost());
+                                frontier.defer(url);
+                                if (++deferred >= MAX_DEFERRED) {
+                                    scheduler.awaitRelease(MAX_WAIT);
+                                    deferred = 0;
+                                }
+                                continue;
+                            }
+                            deferred = 0;
+                            parseWebsite(handler, frontier, url, followLinks);
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                }
+            }));
+        }
+        // Wait for the level to finish and rethrow errors of the workers
+        for (Future<Void> worker : workers) {
+            worker.get();
+        }
+    }
+
+    /**
+     * @return <code>true</code> when a checkpoint handler is set and the
+     *         interval since the last checkpoint has passed
+     */
+    private boolean isCheckpointDue() {
+        return checkpointHandler != null && System.nanoTime() - nextCheckpoint >= 0;
+    }
+
+    /**
+     * Pauses all workers after their current url and passes the state of the
+     * crawler to the checkpoint handler. Only one worker writes the
+     * checkpoint, the others skip it. Errors of the handler are printed, the
+     * crawl continues.
+     * 
+     * @param frontier
+     *            The shared frontier
+     * @throws InterruptedException
+     *             The handler was interrupted
+     */
+    private void checkpoint(Frontier frontier) throws InterruptedException {
+        if (!checkpointing.compareAndSet(false, true))
             return;
+
+        Lock lock = pauseLock.writeLock();
+        lock.lock();
+        try {
+            CrawlCheckpoint checkpoint = new CrawlCheckpoint(frontier, visitedSet, crawledWebsites.get(), budget.getPages(), budget.getBytes());
+            checkpoint.setDuplicateDetector(duplicateDetector);
+            checkpointHandler.checkpoint(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Can't write checkpoint: " + e.getMessage());
+        } finally {
+            nextCheckpoint = System.nanoTime() + checkpointInterval;
+            lock.unlock();
+            checkpointing.set(false);
         }
-        Document document;
+    }
+
+    /**
+     * Fetches and parses a single website and adds its not visited links to the
+     * next level of the frontier. Websites which can't be retrieved are
+     * ignored. <br>
+     * When a metadata store is used, the website is requested conditionally
+     * and only passed to the handler when it is new or its content has changed.
+     * When duplicates are detected, duplicates of already crawled websites are
+     * not passed to the handler, but their links are followed. A known website
+     * changed into a duplicate is not marked as seen in the metadata store.
+     * 
+     * @param handler
+     *            Thread safe handler for the crawled websites
+     * @param frontier
+     *            The shared frontier
+     * @param url
+     *            The current url to scan
+     * @param followLinks
+     *            Add the links of the website to the frontier
+     * @throws InterruptedException
+     *             The handler was interrupted
+     */
+    private void parseWebsite(CrawledWebsiteHandler handler, Frontier frontier, URL url, boolean followLinks) throws InterruptedException {
+        PageMetadata previous = metadataStore == null ? null : metadataStore.get(url.toString());
+
+        FetchResult response;
+        long start = System.nanoTime();
+        int status = -1;
         try {
-            document = Jsoup.parse(url, MAX_TIMEOUT);
-        } catch (UnsupportedMimeTypeException e) {
+            if (previous != null)
+                response = fetcher.fetch(url, previous.getETag(), previous.getLastModified());
+            else
+                response = fetcher.fetch(url, null, null);
+            status = response.getStatusCode();
+        } catch (IOException e) {
+            System.err.println("Can't fetch " + url + ": " + e.getMessage());
+            // Keep the known version of the website, the error may be temporary
+            if (previous != null)
+                keepUnchanged(previous, frontier, followLinks);
             return;
-        } catch (HttpStatusException e) {
+        } finally {
+            scheduler.release(url.getHost(), status, System.nanoTime() - start);
+        }
+
+        if (status == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null) {
+            keepUnchanged(previous, frontier, followLinks);
+            return;
+        }
+        if (response.getBody() != null)
+            budget.addBytes(response.getBody().length);
+        if (status < 200 || status >= 300 || !response.isSupportedContentType())
+            return;
+
+        String title;
+        String body;
+        List<String> hrefs;
+        if (options.getStreamingExtractionLimit() > 0) {
+            ExtractedContent content = StreamingHtmlExtractor.extract(response.getBody(), response.getCharset(), response.getURL(), options.getStreamingExtractionLimit());
+            title = content.getTitle();
+            body = content.getText();
+            hrefs = content.getLinks();
+        } else {
+            Document document;
+            try {
+                document = response.parse();
+            } catch (IOException e) {
+                System.err.println("Can't parse " + url + ": " + e.getMessage());
+                return;
+            }
+            title = document.title();
+            body = document.text();
+            hrefs = extractHrefs(document);
+        }
+        List<URL> links = (followLinks || metadataStore != null || linkGraph != null) ? extractLinks(hrefs) : Collections.<URL> emptyList();
+
+        long contentHash = AbstractVisitedSet.hash(title + '\n' + body);
+        String[] linkStrings = toStrings(links);
+        boolean unchanged = previous != null && previous.getContentHash() == contentHash;
+        boolean duplicate = !unchanged && duplicateDetector != null && duplicateDetector.isDuplicate(contentHash, body);
+        // A known website changed into a duplicate is not marked as seen, so
+        // its outdated version is removed from the cache
+        if (metadataStore != null && !(duplicate && previous != null))
+            metadataStore.put(new PageMetadata(url.toString(), response.getETag(), response.getLastModified(), contentHash, linkStrings));
+        if (linkGraph != null)
+            linkGraph.addPage(url.toString(), linkStrings);
+
+        if (unchanged) {
+            unchangedWebsites.incrementAndGet();
+        } else if (duplicate) {
+            duplicateWebsites.incrementAndGet();
+        } else {
+            CrawledWebsite webSite = new CrawledWebsite(body, title, url);
+            handler.handle(webSite);
+            crawledWebsites.incrementAndGet();
+        }
+
+        if (followLinks) {
+            for (URL link : links) {
+                addToFrontier(frontier, link);
+            }
+        }
+    }
+
+    /**
+     * Keeps the known version of a website and follows its known links. The
+     * content of the known version is remembered for the exact duplicate
+     * detection.
+     * 
+     * @param previous
+     *            The metadata of the known version
+     * @param frontier
+     *            The shared frontier
+     * @param followLinks
+     *            Add the links of the website to the frontier
+     */
+    private void keepUnchanged(PageMetadata previous, Frontier frontier, boolean followLinks) {
+        metadataStore.markSeen(previous.getURL());
+        unchangedWebsites.incrementAndGet();
+        if (duplicateDetector != null)
+            duplicateDetector.isExactDuplicate(previous.getContentHash());
+        if (linkGraph != null)
+            linkGraph.addPage(previous.getURL(), previous.getLinks());
+        if (!followLinks)
             return;
+
+        for (String link : previous.getLinks()) {
+            try {
+                addToFrontier(frontier, new URL(link));
+            } catch (MalformedURLException e) {
+                continue;
+            }
         }
+    }
 
-        String title = document.title();
-        String body = document.text();
+    /**
+     * Adds the url to the next level of the frontier, if it was not visited
+     * before. Otherwise the link is counted for the priority of the url.
+     * 
+     * @param frontier
+     *            The shared frontier
+     * @param url
+     *            The canonical url
+     */
+    private void addToFrontier(Frontier frontier, URL url) {
+        if (visitedSet.add(url))
+            frontier.addNext(url);
+        else
+            frontier.addInLink(url);
+    }
 
-        CrawledWebsite webSite = new CrawledWebsite(body, title, url);
-        websites.add(webSite);
+    /**
+     * @param document
+     *            The parsed website
+     * @return The absolute urls of all href attributes
+     */
+    private List<String> extractHrefs(Document document) {
+        Elements elements = document.getElementsByAttribute("href");
+        List<String> hrefs = new ArrayList<String>(elements.size());
+        for (Element link : elements) {
+            hrefs.add(link.absUrl("href"));
+        }
+        return hrefs;
+    }
 
-        Elements links = document.getElementsByAttribute("href");
-        for (Element link : links) {
-            String subLink = link.absUrl("href");
+    /**
+     * Extracts all links the crawler can follow.
+     * 
+     * @param hrefs
+     *            The absolute urls of all href attributes
+     * @return The canonical urls of all http and https links
+     */
+    private List<URL> extractLinks(List<String> hrefs) {
+        List<URL> links = new ArrayList<URL>(hrefs.size());
+        for (String subLink : hrefs) {
             URL newUrl;
             try {
                 newUrl = new URL(subLink);
             } catch (MalformedURLException e) {
-                return;
+                continue;
             }
-            parseWebsite(websites, newUrl, depth + 1);
+            // Jsoup can only fetch http and https
+            String protocol = newUrl.getProtocol();
+            if (!protocol.equals("http") && !protocol.equals("https"))
+                continue;
+
+            newUrl = URLCanonicalizer.canonicalize(newUrl);
+            if (newUrl != null)
+                links.add(newUrl);
+        }
+        return links;
+    }
+
+    private static String[] toStrings(List<URL> urls) {
+        String[] strings = new String[urls.size()];
+        for (int i = 0; i < strings.length; ++i) {
+            strings[i] = urls.get(i).toString();
         }
+        return strings;
+    }
+
+    /**
+     * Uses a metadata store to refresh a crawl incrementally. Known websites
+     * are requested conditionally and unchanged websites are not passed to the
+     * handler. The metadata of all crawled websites is put into the store.
+     * 
+     * @param metadataStore
+     *            Store containing the metadata of a previous crawl, can be empty
+     */
+    public void setMetadataStore(PageMetadataStore metadataStore) {
+        this.metadataStore = metadataStore;
+    }
+
+    /**
+     * Records the links of all crawled websites, including the unchanged
+     * ones. Duplicates of already crawled websites are recorded as well.
+     * 
+     * @param linkGraph
+     *            Graph to record the links in, <code>null</code> to record no
+     *            links
+     */
+    public void setLinkGraph(LinkGraph linkGraph) {
+        this.linkGraph = linkGraph;
+    }
+
+    /**
+     * Replaces the default {@link HttpFetcher}.
+     * 
+     * @param fetcher
+     *            Thread safe fetcher retrieving the websites
+     */
+    public void setFetcher(AbstractFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Writes checkpoints periodically while crawling. The first checkpoint is
+     * written when the crawl starts.
+     * 
+     * @param checkpointHandler
+     *            Handler saving the checkpoints, <code>null</code> to disable
+     *            the checkpoints
+     * @param interval
+     *            The time between two checkpoints in seconds
+     */
+    public void setCheckpointHandler(CheckpointHandler checkpointHandler, long interval) {
+        this.checkpointHandler = checkpointHandler;
+        this.checkpointInterval = TimeUnit.SECONDS.toNanos(interval);
+        this.nextCheckpoint = System.nanoTime() + checkpointInterval;
+    }
+
+    /**
+     * Continues the crawl of the checkpoint on the next run instead of starting
+     * at the seed. The crawler must be created with the same seed and depth as
+     * the interrupted one.
+     * 
+     * @param checkpoint
+     *            The last checkpoint of the interrupted crawl
+     */
+    public void resume(CrawlCheckpoint checkpoint) {
+        this.resumeCheckpoint = checkpoint;
+    }
+
+    /**
+     * @return The fetcher retrieving the websites
+     */
+    public AbstractFetcher getFetcher() {
+        return fetcher;
+    }
+
+    /**
+     * @return The budget of the last run
+     */
+    public CrawlBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return The scheduler limiting the requests per host
+     */
+    public HostScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The number of websites of the last run which were not passed to
+     *         the handler, because they are exact or near duplicates
+     */
+    public int getDuplicateWebsites() {
+        return duplicateWebsites.get();
+    }
+
+    /**
+     * @return The number of websites of the last run which were not passed to
+     *         the handler, because they were not modified since the crawl
+     *         stored in the metadata store
+     */
+    public int getUnchangedWebsites() {
+        return unchangedWebsites.get();
     }
 }
@@ -18,16 +18,44 @@
 
 package de.minecrawler;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.queryparser.classic.ParseException;
 
 import de.minecrawler.cache.CacheManager;
+import de.minecrawler.cache.PageMetadataStore;
+import de.minecrawler.crawl.AbstractFetcher;
+import de.minecrawler.crawl.CheckpointHandler;
+import de.minecrawler.crawl.CrawlCheckpoint;
+import de.minecrawler.crawl.CrawlPipeline;
+import de.minecrawler.crawl.CrawledWebsiteBatchHandler;
+import de.minecrawler.crawl.CrawledWebsiteHandler;
+import de.minecrawler.crawl.HostScheduler.HostState;
+import de.minecrawler.crawl.HttpFetcher;
+import de.minecrawler.crawl.LinkGraph;
+import de.minecrawler.crawl.PageRank;
+import de.minecrawler.crawl.StandingQueryHandler;
+import de.minecrawler.crawl.StandingQueryListener;
 import de.minecrawler.data.CrawledWebsite;
 import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.data.SearchPage;
 import de.minecrawler.search.AbstractSearchEngine;
+import de.minecrawler.search.BatchSearcher;
 import de.minecrawler.search.CachedSearchEngine;
 import de.minecrawler.search.LiveSearchEngine;
+import de.minecrawler.search.SearchMetrics;
+import de.minecrawler.search.ShardedSearchEngine;
+import de.minecrawler.search.StandingQueryMatcher;
+import de.minecrawler.search.WritableSearchEngine;
 
 /**
  * An IR system using a cache manager, a website crawler and a search engine to
@@ -35,8 +63,13 @@ import de.minecrawler.search.LiveSearchEngine;
  */
 public class IRSystem {
 
+    // Number of hosts printed after crawling
+    private static final int MAX_PRINTED_HOSTS = 10;
+
     private CacheManager cacheManager;
     private AbstractSearchEngine searchEngine;
+    private CrawlerOptions crawlerOptions;
+    private StandingQueryMatcher standingQueryMatcher;
 
     /**
      * Creates an IRSystem using a seed and the depth of crawling. The IRSystem will
@@ -54,7 +87,51 @@ public class IRSystem {
      *             An error occurede
      */
     public IRSystem(URL seed, int depth, boolean forceCrawling) throws Exception {
+        this(seed, depth, forceCrawling, new CrawlerOptions());
+    }
+
+    /**
+     * Creates an IRSystem using a seed and the depth of crawling. The IRSystem will
+     * select a cache-based search(fast) or a non-cache-based search(slow)
+     * depending on cache existing for the search parameters(url and seed) and
+     * if crawling is enforced by the user. An expired cache is refreshed
+     * incrementally instead of crawled again, if this is enabled in the
+     * crawler options. An interrupted crawl is resumed from its last
+     * checkpoint.
+     * 
+     * @param seed
+     *            The initial url to start the crawling on
+     * @param depth
+     *            The maximum search depth the crawler goes
+     * @param forceCrawling
+     *            Delete possible cache and start crawler.
+     * @param crawlerOptions
+     *            Options for the crawler when no cache is used
+     * @throws Exception
+     *             An error occurede
+     */
+    public IRSystem(URL seed, int depth, boolean forceCrawling, CrawlerOptions crawlerOptions) throws Exception {
+        this.crawlerOptions = crawlerOptions;
+        // Every crawler thread may keep a connection to the same host
+        HttpFetcher.configureNetworking(crawlerOptions.getThreads());
         cacheManager = new CacheManager();
+        File unfinishedCache = cacheManager.findCache(seed, depth);
+        if (!forceCrawling && unfinishedCache != null && CrawlCheckpoint.exists(unfinishedCache)) {
+            System.out.println("Resume interrupted crawl - this will take a moment!");
+            resumeNotCachedIndex(seed, depth, unfinishedCache);
+            return;
+        }
+
+        if (crawlerOptions.isIncrementalRefresh() && !forceCrawling && cacheManager.isExpired(seed, depth)) {
+            File expiredCache = cacheManager.findCache(seed, depth);
+            // Caches created without metadata can't be refreshed
+            if (PageMetadataStore.exists(expiredCache)) {
+                System.out.println("Refresh expired cache incrementally - this will take a moment!");
+                refreshCachedIndex(seed, depth, expiredCache);
+                return;
+            }
+        }
+
         File cacheFile = cacheManager.getCache(seed, depth);
         if (cacheFile == null) {
             System.out.println("Use website crawler - this will take a moment!");
@@ -81,22 +158,433 @@ public class IRSystem {
      *             An error occured
      */
     private void useNotCachedIndex(URL seed, int depth) throws Exception {
+        File cacheFile = cacheManager.addURL(seed, depth);
+        crawlIntoCache(seed, depth, cacheFile, new PageMetadataStore(), null);
+    }
+
+    /**
+     * Continues an interrupted crawl from its last checkpoint. When the
+     * checkpoint can't be used, the websites are crawled again.
+     * 
+     * @param seed
+     *            The initial url the crawler starts
+     * @param depth
+     *            The maxmium search depth the crawler goes
+     * @param cacheFile
+     *            The file to the unfinished cache
+     * @throws Exception
+     *             An error occured
+     */
+    private void resumeNotCachedIndex(URL seed, int depth, File cacheFile) throws Exception {
+        CrawlCheckpoint checkpoint;
+        PageMetadataStore metadataStore;
+        try {
+            checkpoint = CrawlCheckpoint.load(cacheFile);
+            metadataStore = PageMetadataStore.exists(cacheFile) ? PageMetadataStore.load(cacheFile) : new PageMetadataStore();
+        } catch (IOException e) {
+            System.err.println("Can't load checkpoint: " + e.getMessage());
+            cacheManager.removeCache(seed, depth);
+            useNotCachedIndex(seed, depth);
+            return;
+        }
+        System.out.println("Continue at depth " + checkpoint.getFrontier().getDepth() + " with " + checkpoint.getIndexedDocuments() + " indexed sites");
+        crawlIntoCache(seed, depth, cacheFile, metadataStore, checkpoint);
+        cacheManager.renewCache(seed, depth);
+    }
+
+    /**
+     * Opens the index of the cache for writing. A new index is split into
+     * shards when enabled in the crawler options, an existing index keeps the
+     * way it was created with.
+     * 
+     * @param cacheFile
+     *            The file to the cache
+     * @return The opened index, which is also the search engine
+     * @throws Exception
+     *             Error while opening the index
+     */
+    private WritableSearchEngine openLiveSearchEngine(File cacheFile) throws Exception {
+        int shards = ShardedSearchEngine.getShardCount(cacheFile);
+        String[] files = cacheFile.list();
+        if (shards == 0 && (files == null || files.length == 0))
+            shards = crawlerOptions.getShards();
+
+        AbstractSearchEngine liveSearchEngine;
+        if (shards > 1)
+            liveSearchEngine = new ShardedSearchEngine(cacheFile, shards, 0L, crawlerOptions);
+        else
+            liveSearchEngine = new LiveSearchEngine(cacheFile, 0L, crawlerOptions);
+        liveSearchEngine.setSearchThreads(crawlerOptions.getSearchThreads());
+        liveSearchEngine.setPageRankWeight(crawlerOptions.getPageRankWeight());
+        liveSearchEngine.setEarlyTermination(crawlerOptions.getEarlyTermination());
+        this.searchEngine = liveSearchEngine;
+        return (WritableSearchEngine) liveSearchEngine;
+    }
+
+    /**
+     * Crawls the websites into the cache. The cache is marked as unfinished by
+     * a checkpoint until the crawl has finished.
+     * 
+     * @param seed
+     *            The initial url the crawler starts
+     * @param depth
+     *            The maxmium search depth the crawler goes
+     * @param cacheFile
+     *            The file to the cache
+     * @param metadataStore
+     *            The store for the metadata of the crawled websites
+     * @param checkpoint
+     *            The checkpoint to resume, <code>null</code> for a new crawl
+     * @throws Exception
+     *             An error occured
+     */
+    private void crawlIntoCache(URL seed, int depth, File cacheFile, PageMetadataStore metadataStore, CrawlCheckpoint checkpoint) throws Exception {
+        WritableSearchEngine liveSearchEngine = openLiveSearchEngine(cacheFile);
+        Crawler crawler = new Crawler(depth, seed, crawlerOptions);
+        crawler.setMetadataStore(metadataStore);
+        if (checkpoint != null) {
+            // Websites indexed after the checkpoint are not committed
+            if (liveSearchEngine.getDocumentCount() < checkpoint.getIndexedDocuments()) {
+                System.err.println("Index is older than the checkpoint - crawl again");
+                searchEngine.close();
+                cacheManager.removeCache(seed, depth);
+                useNotCachedIndex(seed, depth);
+                return;
+            }
+            crawler.resume(checkpoint);
+        }
+        LinkGraph linkGraph = null;
+        if (crawlerOptions.getPageRankWeight() > 0F) {
+            linkGraph = new LinkGraph();
+            crawler.setLinkGraph(linkGraph);
+        }
+
+        // Resumed websites may already be in the index
+        boolean update = checkpoint != null;
+        boolean success;
+        if (crawlerOptions.getQueueSize() > 0)
+            success = crawlAndIndex(crawler, update, cacheFile, metadataStore);
+        else
+            success = crawlThenIndex(crawler, update);
+
+        if (success) {
+            if (linkGraph != null)
+                updatePageRanks(liveSearchEngine, linkGraph);
+            // A sorted index is merged into a single segment
+            if (liveSearchEngine.isSorted()) {
+                sortIndex(liveSearchEngine);
+            } else if (crawlerOptions.getForceMerge() > 0) {
+                System.out.println("Merging the index...");
+                long time = System.nanoTime();
+                liveSearchEngine.forceMerge(crawlerOptions.getForceMerge());
+                System.out.println("Finished merging in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time) + "ms");
+                System.out.println();
+            }
+            metadataStore.save(cacheFile);
+            liveSearchEngine.commit();
+            CrawlCheckpoint.delete(cacheFile);
+        }
+    }
+
+    /**
+     * Refreshes an expired cache. Only new and changed websites are indexed
+     * again and removed websites are deleted from the index.
+     * 
+     * @param seed
+     *            The initial url the crawler starts
+     * @param depth
+     *            The maxmium search depth the crawler goes
+     * @param cacheFile
+     *            The file to the expired cache
+     * @throws Exception
+     *             An error occured
+     */
+    private void refreshCachedIndex(URL seed, int depth, File cacheFile) throws Exception {
+        WritableSearchEngine liveSearchEngine = openLiveSearchEngine(cacheFile);
+        PageMetadataStore metadataStore = PageMetadataStore.load(cacheFile);
+        Crawler crawler = new Crawler(depth, seed, crawlerOptions);
+        crawler.setMetadataStore(metadataStore);
+        LinkGraph linkGraph = null;
+        if (crawlerOptions.getPageRankWeight() > 0F) {
+            linkGraph = new LinkGraph();
+            crawler.setLinkGraph(linkGraph);
+        }
+
+        boolean success;
+        if (crawlerOptions.getQueueSize() > 0)
+            success = crawlAndIndex(crawler, true, null, null);
+        else
+            success = crawlThenIndex(crawler, true);
+        if (!success)
+            return;
+        if (metadataStore.getSeenCount() == 0) {
+            System.out.println("Seed is not reachable - keep the expired cache");
+            System.out.println();
+            return;
+        }
+
+        // Websites not reached because of the budget are kept
+        if (!crawler.getBudget().isExhausted()) {
+            List<String> removed = metadataStore.removeUnseen();
+            for (String url : removed) {
+                liveSearchEngine.removeWebsite(url);
+            }
+            System.out.println("Sites removed: " + removed.size());
+            System.out.println();
+        }
+        if (linkGraph != null)
+            updatePageRanks(liveSearchEngine, linkGraph);
+        if (liveSearchEngine.isSorted())
+            sortIndex(liveSearchEngine);
+
+        liveSearchEngine.commit();
+        metadataStore.save(cacheFile);
+        cacheManager.renewCache(seed, depth);
+    }
+
+    /**
+     * Computes the PageRank of the crawled websites and writes it to the
+     * index. After a resumed crawl the link graph contains only the websites
+     * crawled after the checkpoint.
+     * 
+     * @param liveSearchEngine
+     *            The index of the crawled websites
+     * @param linkGraph
+     *            The link graph recorded by the crawler
+     * @throws IOException
+     *             Error while writing the index
+     * @throws InterruptedException
+     *             Interrupted while computing the PageRank
+     */
+    private void updatePageRanks(WritableSearchEngine liveSearchEngine, LinkGraph linkGraph) throws IOException, InterruptedException {
+        System.out.println("Computing the PageRank...");
+        long time = System.nanoTime();
+        linkGraph.compact();
+        int threads = Runtime.getRuntime().availableProcessors();
+        PageRank pageRank = new PageRank(threads);
+        float[] pageRanks = pageRank.compute(linkGraph);
+        System.out.println("Urls: " + linkGraph.getNodeCount() + ", links: " + linkGraph.getLinkCount() + ", iterations: " + pageRank.getIterations() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time) + "ms with " + threads + " threads");
+        try {
+            int updated = liveSearchEngine.updatePageRanks(linkGraph, pageRanks);
+            System.out.println("Sites ranked: " + updated);
+        } catch (IllegalArgumentException e) {
+            // Caches created before the PageRank have no doc values to update
+            System.err.println("Can't store the PageRank in this cache, crawl again to use it");
+        }
+        System.out.println("Finished PageRank!");
+        System.out.println();
+    }
+
+    /**
+     * Sorts the index by the PageRank of the websites.
+     * 
+     * @param liveSearchEngine
+     *            The index of the crawled websites
+     * @throws IOException
+     *             Error while merging the index
+     */
+    private void sortIndex(WritableSearchEngine liveSearchEngine) throws IOException {
+        System.out.println("Sorting the index by PageRank...");
+        long time = System.nanoTime();
+        liveSearchEngine.sortIndex();
+        System.out.println("Finished sorting in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time) + "ms");
+        System.out.println();
+    }
+
+    /**
+     * Crawls all websites into memory and indexes them afterwards. The
+     * websites are indexed by multiple threads in batches.
+     * 
+     * @param crawler
+     *            The crawler to run
+     * @param update
+     *            Replace websites already in the index
+     * @return <code>false</code> if, and only if, the crawler failed
+     * @throws InterruptedException
+     *             Interrupted while waiting for the indexing
+     */
+    private boolean crawlThenIndex(Crawler crawler, boolean update) throws InterruptedException {
         System.out.println("Started crawling the websites...");
-        this.searchEngine = new LiveSearchEngine(cacheManager.addURL(seed, depth));
-        Crawler crawler = new Crawler(depth, seed);
-        List<CrawledWebsite> result = crawler.run();
-        if (result == null) {
+        final List<CrawledWebsite> result = Collections.synchronizedList(new ArrayList<CrawledWebsite>());
+        int crawled = crawler.run(withAlerts(new CrawledWebsiteHandler() {
+            @Override
+            public void handle(CrawledWebsite website) {
+                result.add(website);
+            }
+        }));
+        if (crawled == -1) {
             System.err.println("Something bad happend!");
-            return;
+            return false;
         }
-        System.out.println("Sites crawled: " + result.size());
+        System.out.println("Sites crawled: " + crawled);
+        System.out.println("Sites unchanged: " + crawler.getUnchangedWebsites());
+        System.out.println("Sites skipped as duplicates: " + crawler.getDuplicateWebsites());
+        printFetcherStatistics(crawler);
+        printAlertStatistics();
         System.out.println("Finished crawling!");
         System.out.println();
 
         System.out.println("Start indexing  and creating cache...");
-        ((LiveSearchEngine) searchEngine).addWebsites(result);
+        long time = System.nanoTime();
+        int threads = crawlerOptions.getIndexThreads();
+        CrawlPipeline pipeline = createIndexPipeline(threads * crawlerOptions.getIndexBatchSize() * 2, update);
+        for (CrawledWebsite website : result) {
+            pipeline.handle(website);
+        }
+        pipeline.finish();
+        time = System.nanoTime() - time;
+        System.out.println("Sites indexed: " + pipeline.getConsumed() + " in " + TimeUnit.NANOSECONDS.toMillis(time) + "ms with " + threads + " threads (" + String.format("%.1f", pipeline.getConsumed() * 1E9 / time) + " sites/s)");
         System.out.println("Finished indexing!");
         System.out.println();
+        return true;
+    }
+
+    /**
+     * Indexes the websites while crawling. The crawled websites are passed to
+     * the index using a {@link CrawlPipeline}. When a cache file is given and
+     * enabled in the crawler options, checkpoints are written to it.
+     * 
+     * @param crawler
+     *            The crawler to run
+     * @param update
+     *            Replace websites already in the index
+     * @param cacheFile
+     *            The file to the cache for checkpoints, can be
+     *            <code>null</code>
+     * @param metadataStore
+     *            The metadata store of the crawler, saved with every
+     *            checkpoint
+     * @return <code>false</code> if, and only if, the crawler failed
+     * @throws InterruptedException
+     *             Interrupted while waiting for the indexing
+     */
+    private boolean crawlAndIndex(Crawler crawler, final boolean update, final File cacheFile, final PageMetadataStore metadataStore) throws InterruptedException {
+        System.out.println("Started crawling and indexing the websites...");
+        final WritableSearchEngine liveSearchEngine = (WritableSearchEngine) searchEngine;
+        final CrawlPipeline pipeline = createIndexPipeline(crawlerOptions.getQueueSize(), update);
+        // An index in the memory is not on disk before the end of the crawl
+        if (cacheFile != null && crawlerOptions.getCheckpointInterval() > 0 && !liveSearchEngine.isInMemory()) {
+            crawler.setCheckpointHandler(new CheckpointHandler() {
+                @Override
+                public void checkpoint(CrawlCheckpoint checkpoint) throws IOException, InterruptedException {
+                    // Everything marked as visited must be in the committed index
+                    pipeline.drain();
+                    liveSearchEngine.commit();
+                    metadataStore.save(cacheFile);
+                    checkpoint.setIndexedDocuments(liveSearchEngine.getDocumentCount());
+                    checkpoint.save(cacheFile);
+                }
+            }, crawlerOptions.getCheckpointInterval());
+        }
+        int crawled = crawler.run(withAlerts(pipeline));
+        pipeline.finish();
+        if (crawled == -1) {
+            System.err.println("Something bad happend!");
+            return false;
+        }
+        System.out.println("Sites crawled: " + crawled);
+        System.out.println("Sites unchanged: " + crawler.getUnchangedWebsites());
+        System.out.println("Sites skipped as duplicates: " + crawler.getDuplicateWebsites());
+        printFetcherStatistics(crawler);
+        printAlertStatistics();
+        System.out.println("Sites indexed: " + pipeline.getConsumed());
+        long consumeTime = pipeline.getConsumeTime();
+        if (consumeTime > 0)
+            System.out.println("Indexing busy: " + TimeUnit.NANOSECONDS.toMillis(consumeTime) + "ms in " + crawlerOptions.getIndexThreads() + " threads (" + String.format("%.1f", pipeline.getConsumed() * 1E9 / consumeTime) + " sites/s per thread)");
+        System.out.println("Queue depth: max " + pipeline.getMaxQueueDepth() + ", average " + String.format("%.1f", pipeline.getAverageQueueDepth()));
+        System.out.println("Crawler stalled by indexing: " + pipeline.getStalls() + " times, " + TimeUnit.NANOSECONDS.toMillis(pipeline.getStallTime()) + "ms");
+        System.out.println("Finished crawling and indexing!");
+        System.out.println();
+        return true;
+    }
+
+    /**
+     * Creates a pipeline adding or updating the websites in batches to the
+     * index using the index threads of the crawler options.
+     * 
+     * @param queueSize
+     *            The maximum number of websites waiting for the indexing
+     * @param update
+     *            Replace websites already in the index
+     * @return The started pipeline
+     */
+    private CrawlPipeline createIndexPipeline(int queueSize, final boolean update) {
+        final WritableSearchEngine liveSearchEngine = (WritableSearchEngine) searchEngine;
+        return new CrawlPipeline(queueSize, crawlerOptions.getIndexThreads(), crawlerOptions.getIndexBatchSize(), new CrawledWebsiteBatchHandler() {
+            @Override
+            public void handle(List<CrawledWebsite> websites) {
+                if (update)
+                    liveSearchEngine.updateWebsites(websites);
+                else
+                    liveSearchEngine.addWebsites(websites);
+            }
+        });
+    }
+
+    /**
+     * Matches the crawled websites against the standing queries of the
+     * crawler options before passing them to the handler. Matches are printed
+     * immediately.
+     * 
+     * @param handler
+     *            Handles the crawled websites
+     * @return The handler itself when there are no standing queries
+     */
+    private CrawledWebsiteHandler withAlerts(CrawledWebsiteHandler handler) {
+        List<String> queries = crawlerOptions.getStandingQueries();
+        if (queries.isEmpty())
+            return handler;
+
+        standingQueryMatcher = new StandingQueryMatcher();
+        for (String query : queries) {
+            try {
+                standingQueryMatcher.addQuery(query);
+            } catch (ParseException e) {
+                System.out.println("Wrong standing query " + query + "! Check your query format!");
+            }
+        }
+        return new StandingQueryHandler(standingQueryMatcher, new StandingQueryListener() {
+            @Override
+            public void matched(String query, CrawledWebsite website) {
+                System.out.println("Alert: " + query + " matched " + website.getURL());
+            }
+        }, handler);
+    }
+
+    /**
+     * Prints the number of matches of the standing queries and the time
+     * needed for matching, if there are standing queries.
+     */
+    private void printAlertStatistics() {
+        if (standingQueryMatcher == null)
+            return;
+        System.out.println("Standing queries: " + standingQueryMatcher.getQueryCount());
+        System.out.println("Alerts: " + standingQueryMatcher.getMatches() + " in " + standingQueryMatcher.getMatchedWebsites() + " sites");
+        System.out.println("Matching: " + String.format("%.1f", standingQueryMatcher.getAverageMatchTime() / 1000.0) + "micro/site average, " + TimeUnit.NANOSECONDS.toMicros(standingQueryMatcher.getMaxMatchTime()) + "micro max, " + TimeUnit.NANOSECONDS.toMillis(standingQueryMatcher.getMatchTime()) + "ms total");
+    }
+
+    /**
+     * Prints the number of requests and the transferred bytes of the crawler,
+     * whether its budget was exhausted and the state of the most requested
+     * hosts.
+     * 
+     * @param crawler
+     *            The finished crawler
+     */
+    private void printFetcherStatistics(Crawler crawler) {
+        AbstractFetcher fetcher = crawler.getFetcher();
+        System.out.println("Requests: " + fetcher.getRequests());
+        System.out.println("Bytes transferred: " + fetcher.getBytesTransferred() + " (decompressed " + fetcher.getBytesDecoded() + ")");
+
+        String exhausted = crawler.getBudget().getExhaustedReason();
+        if (exhausted != null)
+            System.out.println("Crawl stopped early: " + exhausted);
+
+        List<HostState> hosts = crawler.getScheduler().getHostStates();
+        System.out.println("Hosts: " + hosts.size());
+        for (int i = 0; i < Math.min(MAX_PRINTED_HOSTS, hosts.size()); ++i) {
+            System.out.println("  " + hosts.get(i));
+        }
     }
 
     /**
@@ -109,11 +597,41 @@ public class IRSystem {
      */
     private void useCachedIndex(File cacheFile) throws Exception {
         System.out.println("Loading cache...");
-        this.searchEngine = new CachedSearchEngine(cacheFile);
+        if (ShardedSearchEngine.getShardCount(cacheFile) > 0)
+            this.searchEngine = new ShardedSearchEngine(cacheFile, crawlerOptions.getDirectoryType());
+        else
+            this.searchEngine = new CachedSearchEngine(cacheFile, crawlerOptions.getDirectoryType());
+        searchEngine.setSearchThreads(crawlerOptions.getSearchThreads());
+        searchEngine.setPageRankWeight(crawlerOptions.getPageRankWeight());
+        searchEngine.setEarlyTermination(crawlerOptions.getEarlyTermination());
         System.out.println("Finished loading!");
         System.out.println();
     }
 
+    /**
+     * Closes the index. No search is possible afterwards.
+     */
+    public void close() {
+        try {
+            searchEngine.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the body of a website found by a search. The results of a search
+     * contain only a snippet of the body.
+     * 
+     * @param url
+     *            The url of the website
+     * @return <code>Null</code> when no website with the url is indexed,
+     *         otherwise the body of the website
+     */
+    public String loadBody(String url) {
+        return searchEngine.loadBody(url);
+    }
+
     /**
      * Runs a query on the indexed data using a result limit of 10.
      * 
@@ -141,4 +659,53 @@ public class IRSystem {
     public List<CrawledWebsiteResult> search(String query, int resultLimit) {
         return searchEngine.search(query, resultLimit);
     }
+
+    /**
+     * Runs a query on the indexed data and returns a single page of results.
+     * 
+     * @param query
+     *            The query itself, see <a href=
+     *            "http://lucene.apache.org/core/4_1_0/queryparser/org/apache/lucene/queryparser/classic/package-summary.html"
+     *            >Query Format</a>
+     * @param pageSize
+     *            The maximum number of results of the page
+     * @param cursor
+     *            The cursor of the previous page, <code>null</code> for the
+     *            first page
+     * @return The page containing the results and the cursor to the next page
+     */
+    public SearchPage search(String query, int pageSize, String cursor) {
+        return searchEngine.search(query, pageSize, cursor);
+    }
+
+    /**
+     * @return The latencies of the query phases and the counters of the
+     *         queries run on the indexed data, <code>null</code> when the
+     *         queries are not recorded
+     */
+    public SearchMetrics getSearchMetrics() {
+        return searchEngine.getMetrics();
+    }
+
+    /**
+     * Runs many queries in parallel on the indexed data and writes the results
+     * as JSON lines.
+     * 
+     * @param queries
+     *            The queries, one per line
+     * @param out
+     *            The writer for the results
+     * @param resultLimit
+     *            The maximum number of results per query
+     * @param threads
+     *            Number of threads running queries in parallel
+     * @return The number of executed queries
+     * @throws IOException
+     *             Error while reading the queries or writing the results
+     * @throws InterruptedException
+     *             Interrupted while waiting for a result
+     */
+    public int searchBatch(BufferedReader queries, Writer out, int resultLimit, int threads) throws IOException, InterruptedException {
+        return new BatchSearcher(searchEngine, threads, resultLimit).search(queries, out);
+    }
 }
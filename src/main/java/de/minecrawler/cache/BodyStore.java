@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Thread safe store for the compressed bodies of the websites in a cache. The
+ * store is saved in the directory of the cache, so the index doesn't have to
+ * store the bodies. <br>
+ * The bodies are appended to a blob file and addressed by their offset in it.
+ * A table maps the url of a website to the offset of its latest body. A
+ * replaced body stays in the blob file. A record contains the url, the
+ * compressed and the uncompressed length and the deflated UTF-8 body. The
+ * table is saved by {@link #flush()}, records appended afterwards are found
+ * again when the store is opened. Appends are blocked while the table is
+ * saved.
+ */
+public class BodyStore {
+
+    private static final String BLOB_FILENAME = "bodies.blob";
+    private static final String TABLE_FILENAME = "bodies.table";
+    private static final int FORMAT_VERSION = 1;
+    // Compressed and uncompressed length
+    private static final int HEADER_LENGTH = 8;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File cacheFile;
+    private RandomAccessFile blob;
+    private FileChannel channel;
+    private Map<String, Long> table;
+    // End of the last record
+    private long end;
+
+    private BodyStore(File cacheFile, RandomAccessFile blob, Map<String, Long> table, long end) {
+        this.cacheFile = cacheFile;
+        this.blob = blob;
+        this.channel = blob.getChannel();
+        this.table = table;
+        this.end = end;
+    }
+
+    /**
+     * @param cacheFile
+     *            The directory of the cache
+     * @return <code>true</code> when the cache contains a body store
+     */
+    public static boolean exists(File cacheFile) {
+        return new File(cacheFile, BLOB_FILENAME).exists();
+    }
+
+    /**
+     * Opens the body store of the cache or creates an empty one. Records
+     * appended after the table was saved are added to the table, an
+     * incomplete record at the end is removed.
+     * 
+     * @param cacheFile
+     *            The directory of the cache
+     * @return The opened store
+     * @throws IOException
+     *             Error while reading the store
+     */
+    public static BodyStore open(File cacheFile) throws IOException {
+        cacheFile.mkdirs();
+        Map<String, Long> table = new ConcurrentHashMap<String, Long>();
+        long tableLength = loadTable(new File(cacheFile, TABLE_FILENAME), table);
+
+        RandomAccessFile blob = new RandomAccessFile(new File(cacheFile, BLOB_FILENAME), "rw");
+        long end;
+        try {
+            if (tableLength > blob.length()) {
+                // Table doesn't belong to the blob
+                table.clear();
+                tableLength = 0L;
+            }
+            end = recover(blob, tableLength, table);
+            blob.setLength(end);
+        } catch (IOException e) {
+            blob.close();
+            throw e;
+        }
+        return new BodyStore(cacheFile, blob, table, end);
+    }
+
+    /**
+     * @return The length of the blob file covered by the table
+     */
+    private static long loadTable(File tableFile, Map<String, Long> table) throws IOException {
+        if (!tableFile.exists())
+            return 0L;
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(tableFile)));
+        try {
+            if (in.readInt() != FORMAT_VERSION)
+                return 0L;
+            long blobLength = in.readLong();
+            int size = in.readInt();
+            for (int i = 0; i < size; ++i) {
+                String url = in.readUTF();
+                table.put(url, in.readLong());
+            }
+            return blobLength;
+        } catch (EOFException e) {
+            // Incomplete table, read the whole blob
+            table.clear();
+            return 0L;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Adds the records of the blob after the position to the table.
+     * 
+     * @return The end of the last complete record
+     */
+    private static long recover(RandomAccessFile blob, long position, Map<String, Long> table) throws IOException {
+        long length = blob.length();
+        blob.seek(position);
+        while (position < length) {
+            try {
+                String url = blob.readUTF();
+                long offset = blob.getFilePointer();
+                int compressedLength = blob.readInt();
+                blob.readInt();
+                if (offset + HEADER_LENGTH + compressedLength > length)
+                    break;
+                blob.seek(offset + HEADER_LENGTH + compressedLength);
+                table.put(url, offset);
+                position = blob.getFilePointer();
+            } catch (EOFException e) {
+                break;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Appends the compressed body of a website to the store.
+     * 
+     * @param url
+     *            The url of the website
+     * @param body
+     *            The body of the website
+     * @return The offset of the body in the store
+     * @throws IOException
+     *             Error while writing the body
+     */
+    public long append(String url, String body) throws IOException {
+        byte[] raw = body.getBytes(UTF8);
+        byte[] compressed = compress(raw);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(url.length() + HEADER_LENGTH + compressed.length + 2);
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeUTF(url);
+        int urlLength = out.size();
+        out.writeInt(compressed.length);
+        out.writeInt(raw.length);
+        out.write(compressed);
+
+        synchronized (this) {
+            long offset = end + urlLength;
+            blob.seek(end);
+            blob.write(record.toByteArray());
+            end += record.size();
+            table.put(url, offset);
+            return offset;
+        }
+    }
+
+    /**
+     * @param raw
+     *            The bytes to compress
+     * @return The deflated bytes
+     */
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, raw.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    byte[] larger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, larger, 0, length);
+                    buffer = larger;
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            byte[] compressed = new byte[length];
+            System.arraycopy(buffer, 0, compressed, 0, length);
+            return compressed;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads the body at the offset. Reads are not blocked by other reads or
+     * appends.
+     * 
+     * @param offset
+     *            The offset of the body returned by
+     *            {@link #append(String, String)}
+     * @return The body
+     * @throws IOException
+     *             Error while reading the body or no body is at the offset
+     */
+    public String read(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        readFully(header, offset);
+        int compressedLength = header.getInt(0);
+        int rawLength = header.getInt(4);
+        if (compressedLength < 0 || rawLength < 0)
+            throw new IOException("No body at " + offset);
+
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+        readFully(compressed, offset + HEADER_LENGTH);
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed.array());
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength) {
+                int read = inflater.inflate(raw, length, rawLength - length);
+                if (read == 0 && (inflater.finished() || inflater.needsInput()))
+                    throw new IOException("Corrupt body at " + offset);
+                length += read;
+            }
+            return new String(raw, UTF8);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt body at " + offset, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new EOFException("No body at " + position);
+        }
+    }
+
+    /**
+     * Reads the latest body of a website.
+     * 
+     * @param url
+     *            The url of the website
+     * @return <code>Null</code> when the store contains no body of the url,
+     *         otherwise the body
+     * @throws IOException
+     *             Error while reading the body
+     */
+    public String read(String url) throws IOException {
+        Long offset = table.get(url);
+        if (offset == null)
+            return null;
+        return read(offset.longValue());
+    }
+
+    /**
+     * Writes the appended bodies to the disk and saves the table. The table is
+     * written to a temporary file first and replaces the old table afterwards.
+     * 
+     * @throws IOException
+     *             Error while writing the store
+     */
+    public synchronized void flush() throws IOException {
+        channel.force(false);
+
+        File tableFile = new File(cacheFile, TABLE_FILENAME);
+        File tmpFile = new File(cacheFile, TABLE_FILENAME + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(end);
+            out.writeInt(table.size());
+            for (Map.Entry<String, Long> entry : table.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(tmpFile.toPath(), tableFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return The number of websites in the store
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * @return The size of the blob file in bytes
+     */
+    public synchronized long getBlobSize() {
+        return end;
+    }
+
+    /**
+     * Closes the store without saving the table.
+     * 
+     * @throws IOException
+     *             Error while closing the blob file
+     */
+    public void close() throws IOException {
+        blob.close();
+    }
+}
@@ -149,6 +149,56 @@ public class CacheManager {
             return index.getFile();
     }
 
+    /**
+     * Retrieves the file to the cache, even when the cache is expired. Same
+     * urls with different depth have different caches!
+     * 
+     * @param url
+     *            The seed of the crawling
+     * @param depth
+     *            The depth of the crawling
+     * @return <code>Null</code> when no cache was found. Otherwise the file to
+     *         cache
+     */
+    public File findCache(URL url, int depth) {
+        CacheIndex index = getCacheIndex(url, depth);
+        return index == null ? null : index.getFile();
+    }
+
+    /**
+     * @param url
+     *            The seed of the crawling
+     * @param depth
+     *            The depth of the crawling
+     * @return <code>true</code> when the cache exists and is expired,
+     *         otherwise <code>false</code>
+     */
+    public boolean isExpired(URL url, int depth) {
+        CacheIndex index = getCacheIndex(url, depth);
+        return index != null && isExpired(index);
+    }
+
+    /**
+     * Sets the creation date of the cache to now, for example after the cache
+     * was refreshed.
+     * 
+     * @param url
+     *            The seed of the crawling
+     * @param depth
+     *            The depth of the crawling
+     * @return <code>true</code> when the cache exists, otherwise
+     *         <code>false</code>
+     */
+    public boolean renewCache(URL url, int depth) {
+        CacheIndex index = getCacheIndex(url, depth);
+        if (index == null)
+            return false;
+
+        index.creationDate = new DateTime();
+        writeIndex();
+        return true;
+    }
+
     /**
      * Searches for the cache index.
      * 
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.cache;
+
+/**
+ * Container class for the metadata of a crawled website needed to refresh a
+ * cache incrementally: The validators for conditional requests, a hash of the
+ * content and the links of the website.
+ */
+public class PageMetadata {
+
+    private String url;
+    private String eTag;
+    private String lastModified;
+    private long contentHash;
+    private String[] links;
+
+    /**
+     * @param url
+     *            The canonical url of the website
+     * @param eTag
+     *            The ETag header of the response, can be <code>null</code>
+     * @param lastModified
+     *            The Last-Modified header of the response, can be
+     *            <code>null</code>
+     * @param contentHash
+     *            Hash of the title and the readable text of the website
+     * @param links
+     *            The canonical urls of the links on the website
+     */
+    public PageMetadata(String url, String eTag, String lastModified, long contentHash, String[] links) {
+        this.url = url;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+        this.links = links;
+    }
+
+    /**
+     * @return The canonical url of the website
+     */
+    public String getURL() {
+        return url;
+    }
+
+    /**
+     * @return The ETag header of the response, can be <code>null</code>
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @return The Last-Modified header of the response, can be
+     *         <code>null</code>
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return Hash of the title and the readable text of the website
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return The canonical urls of the links on the website
+     */
+    public String[] getLinks() {
+        return links;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe store for the {@link PageMetadata} of all websites in a cache.
+ * The store is saved in the directory of the cache. <br>
+ * While refreshing a cache, every website found again is marked as seen. The
+ * websites not seen anymore can be removed from the cache afterwards.
+ */
+public class PageMetadataStore {
+
+    private static final String FILENAME = "pages.meta";
+    private static final int FORMAT_VERSION = 1;
+
+    private Map<String, PageMetadata> pages;
+    private Set<String> seen;
+
+    /**
+     * Creates an empty store.
+     */
+    public PageMetadataStore() {
+        this.pages = new ConcurrentHashMap<String, PageMetadata>();
+        this.seen = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+
+    /**
+     * @param cacheFile
+     *            The directory of the cache
+     * @return <code>true</code> when the cache contains a saved store
+     */
+    public static boolean exists(File cacheFile) {
+        return new File(cacheFile, FILENAME).exists();
+    }
+
+    /**
+     * Loads the store saved in the cache. No website is marked as seen.
+     * 
+     * @param cacheFile
+     *            The directory of the cache
+     * @return The loaded store
+     * @throws IOException
+     *             Error while reading the store
+     */
+    public static PageMetadataStore load(File cacheFile) throws IOException {
+        PageMetadataStore store = new PageMetadataStore();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(cacheFile, FILENAME))));
+        try {
+            if (in.readInt() != FORMAT_VERSION)
+                throw new IOException("Unknown format of " + FILENAME);
+
+            int size = in.readInt();
+            for (int i = 0; i < size; ++i) {
+                String url = in.readUTF();
+                String eTag = readNullable(in);
+                String lastModified = readNullable(in);
+                long contentHash = in.readLong();
+                String[] links = new String[in.readInt()];
+                for (int j = 0; j < links.length; ++j) {
+                    links[j] = in.readUTF();
+                }
+                store.pages.put(url, new PageMetadata(url, eTag, lastModified, contentHash, links));
+            }
+        } finally {
+            in.close();
+        }
+        return store;
+    }
+
+    /**
+     * Saves the store in the cache. The store is written to a temporary file
+     * first, which replaces the saved store atomically. So a crash while saving
+     * keeps the previously saved store.
+     * 
+     * @param cacheFile
+     *            The directory of the cache
+     * @throws IOException
+     *             Error while writing the store
+     */
+    public void save(File cacheFile) throws IOException {
+        File tmpFile = new File(cacheFile, FILENAME + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            List<PageMetadata> list = new ArrayList<PageMetadata>(pages.values());
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(list.size());
+            for (PageMetadata page : list) {
+                out.writeUTF(page.getURL());
+                writeNullable(out, page.getETag());
+                writeNullable(out, page.getLastModified());
+                out.writeLong(page.getContentHash());
+                out.writeInt(page.getLinks().length);
+                for (String link : page.getLinks()) {
+                    out.writeUTF(link);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(tmpFile.toPath(), new File(cacheFile, FILENAME).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null)
+            out.writeUTF(s);
+    }
+
+    /**
+     * @param url
+     *            The canonical url of the website
+     * @return <code>Null</code> when the website is unknown, otherwise its
+     *         metadata
+     */
+    public PageMetadata get(String url) {
+        return pages.get(url);
+    }
+
+    /**
+     * Adds or replaces the metadata of a website and marks the website as seen.
+     * 
+     * @param page
+     *            The metadata of the website
+     */
+    public void put(PageMetadata page) {
+        pages.put(page.getURL(), page);
+        seen.add(page.getURL());
+    }
+
+    /**
+     * Marks a website as seen without changing its metadata.
+     * 
+     * @param url
+     *            The canonical url of the website
+     */
+    public void markSeen(String url) {
+        seen.add(url);
+    }
+
+    /**
+     * Removes all websites not marked as seen since the store was created or
+     * loaded.
+     * 
+     * @return The urls of the removed websites
+     */
+    public List<String> removeUnseen() {
+        List<String> removed = new ArrayList<String>();
+        for (String url : pages.keySet()) {
+            if (!seen.contains(url)) {
+                removed.add(url);
+            }
+        }
+        for (String url : removed) {
+            pages.remove(url);
+        }
+        return removed;
+    }
+
+    /**
+     * @return The number of websites marked as seen
+     */
+    public int getSeenCount() {
+        return seen.size();
+    }
+
+    /**
+     * @return The number of websites in the store
+     */
+    public int size() {
+        return pages.size();
+    }
+}
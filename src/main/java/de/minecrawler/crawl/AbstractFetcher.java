@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.minecrawler.Crawler;
+
+/**
+ * General class for fetching websites for the {@link Crawler}. The
+ * implementation defines how the websites are retrieved. Implementations must
+ * be thread safe. <br>
+ * The fetcher counts the requests and the transferred bytes.
+ */
+public abstract class AbstractFetcher {
+
+    private AtomicLong requests = new AtomicLong();
+    private AtomicLong bytesTransferred = new AtomicLong();
+    private AtomicLong bytesDecoded = new AtomicLong();
+
+    /**
+     * Fetches the website. When validators of a previous response are given,
+     * the website is requested conditionally and the status code 304 is
+     * returned when it was not modified.
+     * 
+     * @param url
+     *            The url of the website
+     * @param eTag
+     *            The ETag of a previous response, can be <code>null</code>
+     * @param lastModified
+     *            The Last-Modified header of a previous response, can be
+     *            <code>null</code>
+     * @return The response. The body is only retrieved for successful
+     *         responses having a supported content type
+     * @throws IOException
+     *             The website can't be retrieved
+     */
+    public abstract FetchResult fetch(URL url, String eTag, String lastModified) throws IOException;
+
+    /**
+     * Counts a request.
+     * 
+     * @param transferred
+     *            The number of bytes transferred over the network
+     * @param decoded
+     *            The number of bytes after decompressing
+     */
+    protected void count(long transferred, long decoded) {
+        requests.incrementAndGet();
+        bytesTransferred.addAndGet(transferred);
+        bytesDecoded.addAndGet(decoded);
+    }
+
+    /**
+     * @return The number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of body bytes transferred over the network
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred.get();
+    }
+
+    /**
+     * @return The number of body bytes after decompressing
+     */
+    public long getBytesDecoded() {
+        return bytesDecoded.get();
+    }
+}
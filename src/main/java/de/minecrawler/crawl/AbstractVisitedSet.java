@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * General class for a set of visited urls. The urls are not stored themselves,
+ * only a 64 bit hash of them. The implementation defines how the hashes are
+ * stored. Implementations must be thread safe.
+ */
+public abstract class AbstractVisitedSet {
+
+    /**
+     * Adds the url to the set. The url should be in its canonical form, see
+     * {@link URLCanonicalizer}.
+     * 
+     * @param url
+     *            The url to add
+     * @return <code>true</code> when the url was not visited before, otherwise
+     *         <code>false</code>
+     */
+    public boolean add(URL url) {
+        return addHash(hash(url.toString()));
+    }
+
+    /**
+     * Adds the hash of an url to the set.
+     * 
+     * @param hash
+     *            The hash of the url
+     * @return <code>true</code> when the hash was not contained before,
+     *         otherwise <code>false</code>
+     */
+    protected abstract boolean addHash(long hash);
+
+    /**
+     * @return The number of added urls
+     */
+    public abstract int size();
+
+    /**
+     * Writes the set to the stream, for example for a {@link CrawlCheckpoint}.
+     * Must only be called when no url is added concurrently.
+     * 
+     * @param out
+     *            The stream to write to
+     * @throws IOException
+     *             Error while writing the set
+     */
+    public abstract void save(DataOutputStream out) throws IOException;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Calculates a 64 bit hash of the string using FNV-1a with an additional
+     * avalanche step, so all bits of the hash are well distributed.
+     * 
+     * @param s
+     *            The string to hash
+     * @return The 64 bit hash
+     */
+    public static long hash(CharSequence s) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            hash ^= c & 0xFF;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * The finalization step of MurmurHash3.
+     * 
+     * @param hash
+     *            The hash to mix
+     * @return The mixed hash
+     */
+    protected static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Approximate visited set based on a Bloom filter with a fixed memory size. An
+ * url may be wrongly reported as visited with a small probability, so some
+ * websites are not crawled. Intended for very large crawls where the exact
+ * {@link LongHashVisitedSet} needs too much memory.
+ */
+public class BloomFilterVisitedSet extends AbstractVisitedSet {
+
+    private long[] bits;
+    private long numBits;
+    private int numHashes;
+    private int size;
+
+    /**
+     * Creates a Bloom filter sized for the expected number of urls and the
+     * probability of false positives.
+     * 
+     * @param expectedUrls
+     *            The expected number of urls to add
+     * @param falsePositiveRate
+     *            The probability that a not visited url is reported as visited
+     *            after adding the expected number of urls. Between 0 and 1
+     */
+    public BloomFilterVisitedSet(int expectedUrls, double falsePositiveRate) {
+        if (expectedUrls < 1)
+            throw new IllegalArgumentException("Expected urls must be positive!");
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0)
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1!");
+
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expectedUrls * Math.log(falsePositiveRate) / (ln2 * ln2));
+        // Round to whole longs
+        this.bits = new long[(int) ((m + 63) / 64)];
+        this.numBits = bits.length * 64L;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedUrls * ln2));
+        this.size = 0;
+    }
+
+    private BloomFilterVisitedSet(long[] bits, int numHashes, int size) {
+        this.bits = bits;
+        this.numBits = bits.length * 64L;
+        this.numHashes = numHashes;
+        this.size = size;
+    }
+
+    @Override
+    protected synchronized boolean addHash(long hash) {
+        // Double hashing: The i-th hash is h1 + i * h2
+        long h1 = hash;
+        long h2 = mix(hash) | 1L;
+
+        boolean changed = false;
+        for (int i = 0; i < numHashes; ++i) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                changed = true;
+            }
+        }
+        if (changed)
+            ++size;
+        return changed;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void save(DataOutputStream out) throws IOException {
+        out.writeInt(bits.length);
+        out.writeInt(numHashes);
+        out.writeInt(size);
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads a Bloom filter written by {@link #save(DataOutputStream)}.
+     * 
+     * @param in
+     *            The stream to read from
+     * @return The read Bloom filter
+     * @throws IOException
+     *             Error while reading the Bloom filter
+     */
+    static BloomFilterVisitedSet load(DataInputStream in) throws IOException {
+        long[] bits = new long[in.readInt()];
+        int numHashes = in.readInt();
+        int size = in.readInt();
+        for (int i = 0; i < bits.length; ++i) {
+            bits[i] = in.readLong();
+        }
+        return new BloomFilterVisitedSet(bits, numHashes, size);
+    }
+
+    /**
+     * @return The number of hash functions used
+     */
+    public int getNumHashes() {
+        return numHashes;
+    }
+}
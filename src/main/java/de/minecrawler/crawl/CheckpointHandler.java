@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.IOException;
+
+import de.minecrawler.Crawler;
+
+/**
+ * Handler called periodically by the {@link Crawler} to save a
+ * {@link CrawlCheckpoint}. While the handler runs, all crawler workers are
+ * paused, so no website is fetched or passed to the website handler.
+ */
+public interface CheckpointHandler {
+
+    /**
+     * Saves the checkpoint. Websites already passed to the website handler
+     * must be persisted before, because the checkpoint marks them as visited.
+     * The checkpoint is only valid while this method runs.
+     * 
+     * @param checkpoint
+     *            The current state of the crawler
+     * @throws IOException
+     *             Error while saving the checkpoint
+     * @throws InterruptedException
+     *             Interrupted while waiting for the persisting
+     */
+    public void checkpoint(CrawlCheckpoint checkpoint) throws IOException, InterruptedException;
+}
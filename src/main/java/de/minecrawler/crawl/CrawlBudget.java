@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the size of a crawl by the number of websites, the number of
+ * downloaded bytes, the duration and the number of websites per host. A limit
+ * of <code>0</code> means no limit. The budget is thread safe.
+ */
+public class CrawlBudget {
+
+    private long maxPages;
+    private long maxBytes;
+    private long deadline;
+    private boolean hasDeadline;
+    private int maxPagesPerHost;
+
+    private long pages;
+    private long bytes;
+    private Map<String, Integer> hostPages;
+
+    /**
+     * Creates a budget. The time limit starts now.
+     * 
+     * @param maxPages
+     *            Maximum number of fetched websites
+     * @param maxBytes
+     *            Maximum number of downloaded bytes
+     * @param maxTime
+     *            Maximum duration of the crawl in seconds
+     * @param maxPagesPerHost
+     *            Maximum number of fetched websites per host
+     */
+    public CrawlBudget(long maxPages, long maxBytes, long maxTime, int maxPagesPerHost) {
+        this.maxPages = maxPages;
+        this.maxBytes = maxBytes;
+        this.hasDeadline = maxTime > 0;
+        this.deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxTime);
+        this.maxPagesPerHost = maxPagesPerHost;
+        this.hostPages = new HashMap<String, Integer>();
+    }
+
+    /**
+     * Reserves the budget for fetching a website.
+     * 
+     * @param host
+     *            The host of the website
+     * @return <code>true</code> when the website may be fetched. Otherwise
+     *         the budget is exhausted or the host has reached its limit
+     */
+    public synchronized boolean tryStartPage(String host) {
+        if (isExhausted())
+            return false;
+
+        Integer count = hostPages.get(host);
+        if (count == null)
+            count = 0;
+        if (maxPagesPerHost > 0 && count >= maxPagesPerHost)
+            return false;
+
+        hostPages.put(host, count + 1);
+        ++pages;
+        return true;
+    }
+
+    /**
+     * Gives the budget reserved by {@link #tryStartPage(String)} back, when
+     * the website is not fetched yet.
+     * 
+     * @param host
+     *            The host of the website
+     */
+    public synchronized void cancelPage(String host) {
+        hostPages.put(host, hostPages.get(host) - 1);
+        --pages;
+    }
+
+    /**
+     * Continues the budget of an interrupted crawl, the websites and bytes
+     * already fetched are counted. The limits per host start again.
+     * 
+     * @param fetchedPages
+     *            The number of websites fetched before
+     * @param downloadedBytes
+     *            The number of bytes downloaded before
+     */
+    public synchronized void resume(long fetchedPages, long downloadedBytes) {
+        this.pages += fetchedPages;
+        this.bytes += downloadedBytes;
+    }
+
+    /**
+     * @param downloaded
+     *            The number of downloaded bytes of a website
+     */
+    public synchronized void addBytes(long downloaded) {
+        bytes += downloaded;
+    }
+
+    /**
+     * @return <code>true</code> when no more websites can be fetched
+     */
+    public synchronized boolean isExhausted() {
+        return getExhaustedReason() != null;
+    }
+
+    /**
+     * @return <code>Null</code> when the budget is not exhausted, otherwise
+     *         the reason
+     */
+    public synchronized String getExhaustedReason() {
+        if (maxPages > 0 && pages >= maxPages)
+            return "Maximum number of websites reached";
+        if (maxBytes > 0 && bytes >= maxBytes)
+            return "Maximum number of bytes reached";
+        if (hasDeadline && System.nanoTime() - deadline >= 0)
+            return "Maximum crawl time reached";
+        return null;
+    }
+
+    /**
+     * @return The number of fetched websites
+     */
+    public synchronized long getPages() {
+        return pages;
+    }
+
+    /**
+     * @return The number of downloaded bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+}
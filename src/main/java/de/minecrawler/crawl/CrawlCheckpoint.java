@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import de.minecrawler.Crawler;
+
+/**
+ * State of an unfinished crawl: The {@link Frontier}, the visited set, the
+ * {@link DuplicateDetector} and the counters of the {@link Crawler}, and the
+ * number of documents in the index when the checkpoint was written (the
+ * watermark). A crawl interrupted by a crash can be resumed from its last
+ * checkpoint instead of starting again. <br>
+ * The checkpoint is saved in the directory of the cache. As long as the file
+ * exists, the cache is not finished.
+ */
+public class CrawlCheckpoint {
+
+    private static final String FILENAME = "crawl.checkpoint";
+    private static final int FORMAT_VERSION = 2;
+
+    private Frontier frontier;
+    private AbstractVisitedSet visitedSet;
+    private int crawledWebsites;
+    private long pages;
+    private long bytes;
+    private int indexedDocuments;
+    private DuplicateDetector duplicateDetector;
+
+    /**
+     * @param frontier
+     *            The frontier of the crawler
+     * @param visitedSet
+     *            The visited urls
+     * @param crawledWebsites
+     *            The number of websites passed to the handler
+     * @param pages
+     *            The number of fetched websites
+     * @param bytes
+     *            The number of downloaded bytes
+     */
+    public CrawlCheckpoint(Frontier frontier, AbstractVisitedSet visitedSet, int crawledWebsites, long pages, long bytes) {
+        this.frontier = frontier;
+        this.visitedSet = visitedSet;
+        this.crawledWebsites = crawledWebsites;
+        this.pages = pages;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @param cacheFile
+     *            The directory of the cache
+     * @return <code>true</code> when the cache contains a checkpoint of an
+     *         unfinished crawl
+     */
+    public static boolean exists(File cacheFile) {
+        return new File(cacheFile, FILENAME).exists();
+    }
+
+    /**
+     * Loads the checkpoint saved in the cache.
+     * 
+     * @param cacheFile
+     *            The directory of the cache
+     * @return The loaded checkpoint
+     * @throws IOException
+     *             Error while reading the checkpoint
+     */
+    public static CrawlCheckpoint load(File cacheFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(cacheFile, FILENAME))));
+        try {
+            int version = in.readInt();
+            if (version < 1 || version > FORMAT_VERSION)
+                throw new IOException("Unknown format of " + FILENAME);
+
+            int crawledWebsites = in.readInt();
+            long pages = in.readLong();
+            long bytes = in.readLong();
+            int indexedDocuments = in.readInt();
+            Frontier frontier = Frontier.load(in);
+            AbstractVisitedSet visitedSet;
+            if (in.readBoolean())
+                visitedSet = BloomFilterVisitedSet.load(in);
+            else
+                visitedSet = LongHashVisitedSet.load(in);
+
+            CrawlCheckpoint checkpoint = new CrawlCheckpoint(frontier, visitedSet, crawledWebsites, pages, bytes);
+            checkpoint.setIndexedDocuments(indexedDocuments);
+            // The first format contains no duplicate detector
+            if (version > 1 && in.readBoolean())
+                checkpoint.setDuplicateDetector(DuplicateDetector.load(in));
+            return checkpoint;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Saves the checkpoint in the cache. The old checkpoint is replaced after
+     * the new one is completely written.
+     * 
+     * @param cacheFile
+     *            The directory of the cache
+     * @throws IOException
+     *             Error while writing the checkpoint
+     */
+    public void save(File cacheFile) throws IOException {
+        File tmpFile = new File(cacheFile, FILENAME + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(crawledWebsites);
+            out.writeLong(pages);
+            out.writeLong(bytes);
+            out.writeInt(indexedDocuments);
+            frontier.save(out);
+            out.writeBoolean(visitedSet instanceof BloomFilterVisitedSet);
+            visitedSet.save(out);
+            out.writeBoolean(duplicateDetector != null);
+            if (duplicateDetector != null)
+                duplicateDetector.save(out);
+        } finally {
+            out.close();
+        }
+        Files.move(tmpFile.toPath(), new File(cacheFile, FILENAME).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the checkpoint of the cache after the crawl is finished.
+     * 
+     * @param cacheFile
+     *            The directory of the cache
+     * @return <code>true</code> when the checkpoint was deleted
+     */
+    public static boolean delete(File cacheFile) {
+        return new File(cacheFile, FILENAME).delete();
+    }
+
+    /**
+     * @return The frontier of the crawler
+     */
+    public Frontier getFrontier() {
+        return frontier;
+    }
+
+    /**
+     * @return The visited urls
+     */
+    public AbstractVisitedSet getVisitedSet() {
+        return visitedSet;
+    }
+
+    /**
+     * @return The number of websites passed to the handler
+     */
+    public int getCrawledWebsites() {
+        return crawledWebsites;
+    }
+
+    /**
+     * @return The number of fetched websites
+     */
+    public long getPages() {
+        return pages;
+    }
+
+    /**
+     * @return The number of downloaded bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return The number of documents in the index when the checkpoint was
+     *         written
+     */
+    public int getIndexedDocuments() {
+        return indexedDocuments;
+    }
+
+    /**
+     * @param indexedDocuments
+     *            The number of documents in the index when the checkpoint is
+     *            written
+     */
+    public void setIndexedDocuments(int indexedDocuments) {
+        this.indexedDocuments = indexedDocuments;
+    }
+
+    /**
+     * @return The duplicate detector of the crawler, <code>null</code> when
+     *         duplicates are not detected
+     */
+    public DuplicateDetector getDuplicateDetector() {
+        return duplicateDetector;
+    }
+
+    /**
+     * @param duplicateDetector
+     *            The duplicate detector of the crawler, <code>null</code> when
+     *            duplicates are not detected
+     */
+    public void setDuplicateDetector(DuplicateDetector duplicateDetector) {
+        this.duplicateDetector = duplicateDetector;
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.minecrawler.data.CrawledWebsite;
+
+/**
+ * Pipeline between the crawler workers and a consumer, for example the index.
+ * Crawled websites are put into a bounded queue and taken by consumer threads.
+ * When the queue is full, the crawler workers are blocked until the consumers
+ * have caught up (backpressure), so the number of websites held in memory is
+ * limited by the queue size. The consumer threads take all waiting websites up
+ * to a batch size at once, so the consumer can handle them in a single call.
+ * <br>
+ * The pipeline measures the queue depth and the time the crawler workers were
+ * stalled by a full queue to help sizing the queue and the consumer threads.
+ */
+public class CrawlPipeline implements CrawledWebsiteHandler {
+
+    // Marks the end of the stream for a consumer thread
+    private static final CrawledWebsite END_OF_STREAM = new CrawledWebsite("", "", (URL) null);
+
+    private BlockingQueue<CrawledWebsite> queue;
+    private CrawledWebsiteBatchHandler consumer;
+    private int batchSize;
+    private List<Thread> consumerThreads;
+
+    private AtomicLong produced = new AtomicLong();
+    private AtomicLong consumed = new AtomicLong();
+    private AtomicLong stalls = new AtomicLong();
+    private AtomicLong stallTime = new AtomicLong();
+    private AtomicLong consumeTime = new AtomicLong();
+    private AtomicLong queueDepthSum = new AtomicLong();
+    private volatile int maxQueueDepth = 0;
+    // Notified whenever websites are consumed
+    private final Object drainLock = new Object();
+
+    /**
+     * Creates and starts the pipeline.
+     * 
+     * @param queueSize
+     *            The maximum number of websites waiting in the queue
+     * @param consumerThreads
+     *            The number of threads taking websites from the queue
+     * @param consumer
+     *            Handles the websites taken from the queue. Must be thread
+     *            safe when more than one consumer thread is used
+     */
+    public CrawlPipeline(int queueSize, int consumerThreads, final CrawledWebsiteHandler consumer) {
+        this(queueSize, consumerThreads, 1, new CrawledWebsiteBatchHandler() {
+            @Override
+            public void handle(List<CrawledWebsite> websites) {
+                for (CrawledWebsite website : websites) {
+                    try {
+                        consumer.handle(website);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates and starts the pipeline passing the websites in batches to the
+     * consumer.
+     * 
+     * @param queueSize
+     *            The maximum number of websites waiting in the queue
+     * @param consumerThreads
+     *            The number of threads taking websites from the queue
+     * @param batchSize
+     *            The maximum number of websites passed at once to the
+     *            consumer. A consumer thread doesn't wait for a full batch
+     * @param consumer
+     *            Handles the websites taken from the queue. Must be thread
+     *            safe when more than one consumer thread is used
+     */
+    public CrawlPipeline(int queueSize, int consumerThreads, int batchSize, CrawledWebsiteBatchHandler consumer) {
+        if (queueSize < 1)
+            throw new IllegalArgumentException("Queue size must be positive!");
+        if (consumerThreads < 1)
+            throw new IllegalArgumentException("Number of consumer threads must be positive!");
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive!");
+
+        this.queue = new ArrayBlockingQueue<CrawledWebsite>(queueSize);
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.consumerThreads = new ArrayList<Thread>(consumerThreads);
+        for (int i = 0; i < consumerThreads; ++i) {
+            Thread thread = new Thread(new Consumer(), "CrawlPipeline-Consumer-" + i);
+            thread.setDaemon(true);
+            this.consumerThreads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Puts the website into the queue. Blocks while the queue is full.
+     */
+    @Override
+    public void handle(CrawledWebsite website) throws InterruptedException {
+        if (!queue.offer(website)) {
+            // Queue is full - wait for the consumers
+            long time = System.nanoTime();
+            queue.put(website);
+            stallTime.addAndGet(System.nanoTime() - time);
+            stalls.incrementAndGet();
+        }
+        produced.incrementAndGet();
+
+        int depth = queue.size();
+        queueDepthSum.addAndGet(depth);
+        if (depth > maxQueueDepth)
+            maxQueueDepth = depth;
+    }
+
+    /**
+     * Waits until all websites put into the pipeline are consumed. The
+     * consumer threads keep running. No website must be added while waiting.
+     * Websites the consumer failed on count as consumed.
+     * 
+     * @throws InterruptedException
+     *             Interrupted while waiting for the consumers
+     */
+    public void drain() throws InterruptedException {
+        synchronized (drainLock) {
+            while (consumed.get() < produced.get()) {
+                drainLock.wait();
+            }
+        }
+    }
+
+    /**
+     * Waits until all websites in the queue are consumed and stops the
+     * consumer threads. No website must be added after calling this.
+     * 
+     * @throws InterruptedException
+     *             Interrupted while waiting for the consumers
+     */
+    public void finish() throws InterruptedException {
+        for (int i = 0; i < consumerThreads.size(); ++i) {
+            queue.put(END_OF_STREAM);
+        }
+        for (Thread thread : consumerThreads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * @return The number of websites put into the pipeline
+     */
+    public long getProduced() {
+        return produced.get();
+    }
+
+    /**
+     * @return The number of websites handled by the consumer
+     */
+    public long getConsumed() {
+        return consumed.get();
+    }
+
+    /**
+     * @return How often a crawler worker was blocked by a full queue
+     */
+    public long getStalls() {
+        return stalls.get();
+    }
+
+    /**
+     * @return The summed up time in nanoseconds the crawler workers were
+     *         blocked by a full queue
+     */
+    public long getStallTime() {
+        return stallTime.get();
+    }
+
+    /**
+     * @return The summed up time in nanoseconds the consumer threads spent in
+     *         the consumer
+     */
+    public long getConsumeTime() {
+        return consumeTime.get();
+    }
+
+    /**
+     * @return The maximum number of websites waiting in the queue
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return The average number of websites waiting in the queue after a
+     *         website was added
+     */
+    public double getAverageQueueDepth() {
+        long count = produced.get();
+        return count == 0 ? 0.0 : (double) queueDepthSum.get() / count;
+    }
+
+    /**
+     * Takes the websites from the queue and passes them in batches to the
+     * consumer until the end of the stream is reached.
+     */
+    private class Consumer implements Runnable {
+
+        @Override
+        public void run() {
+            List<CrawledWebsite> batch = new ArrayList<CrawledWebsite>(batchSize);
+            try {
+                boolean finished = false;
+                while (!finished) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+
+                    // The end of the stream of this thread and maybe of others
+                    int ends = 0;
+                    for (int i = batch.size() - 1; i >= 0; --i) {
+                        if (batch.get(i) == END_OF_STREAM) {
+                            batch.remove(i);
+                            ++ends;
+                        }
+                    }
+                    if (ends > 0) {
+                        finished = true;
+                        for (int i = 1; i < ends; ++i) {
+                            queue.put(END_OF_STREAM);
+                        }
+                    }
+
+                    if (!batch.isEmpty()) {
+                        long time = System.nanoTime();
+                        try {
+                            consumer.handle(batch);
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                        } finally {
+                            consumeTime.addAndGet(System.nanoTime() - time);
+                            consumed.addAndGet(batch.size());
+                            batch.clear();
+                            synchronized (drainLock) {
+                                drainLock.notifyAll();
+                            }
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.util.List;
+
+import de.minecrawler.data.CrawledWebsite;
+
+/**
+ * Receives multiple crawled websites at once, for example to add them to the
+ * index with a single call. The handler is called concurrently by the
+ * consumer threads of a {@link CrawlPipeline} and must be thread safe.
+ */
+public interface CrawledWebsiteBatchHandler {
+
+    /**
+     * Handles a batch of crawled websites.
+     * 
+     * @param websites
+     *            The crawled websites, never empty
+     */
+    public void handle(List<CrawledWebsite> websites);
+}
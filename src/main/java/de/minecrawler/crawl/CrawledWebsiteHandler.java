@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import de.minecrawler.Crawler;
+import de.minecrawler.data.CrawledWebsite;
+
+/**
+ * Receives the websites from the {@link Crawler} as soon as they are crawled.
+ * The handler is called concurrently by the crawler workers and must be thread
+ * safe.
+ */
+public interface CrawledWebsiteHandler {
+
+    /**
+     * Handles a single crawled website.
+     * 
+     * @param website
+     *            The crawled website
+     * @throws InterruptedException
+     *             The handler was interrupted while waiting
+     */
+    public void handle(CrawledWebsite website) throws InterruptedException;
+}
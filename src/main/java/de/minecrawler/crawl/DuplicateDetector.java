@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects exact and near duplicate websites during the crawl. Exact duplicates
+ * are found by the hash of the content, near duplicates by their
+ * {@link SimHash} fingerprints. <br>
+ * The fingerprints are split into four blocks of 16 bits, each block is indexed
+ * in its own table. Two fingerprints differing in at most three bits have at
+ * least one equal block, so only fingerprints sharing a block are compared. <br>
+ * Texts having no full shingle have no meaningful fingerprint, so only their
+ * exact duplicates are detected. The detector is thread safe.
+ */
+public class DuplicateDetector {
+
+    /**
+     * The maximum supported distance of near duplicates
+     */
+    public static final int MAX_DISTANCE = 3;
+
+    private static final int BLOCKS = 4;
+    private static final int BLOCK_BITS = 64 / BLOCKS;
+
+    private int maxDistance;
+    private LongHashVisitedSet contentHashes;
+    private List<Map<Integer, long[]>> tables;
+    private int fingerprints;
+
+    /**
+     * Creates an empty detector.
+     * 
+     * @param maxDistance
+     *            The maximum number of different bits of near duplicate
+     *            fingerprints. <code>0</code> to detect only exact duplicates
+     */
+    public DuplicateDetector(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE)
+            throw new IllegalArgumentException("Distance must be between 0 and " + MAX_DISTANCE + "!");
+        this.maxDistance = maxDistance;
+        this.contentHashes = new LongHashVisitedSet();
+        this.tables = new ArrayList<Map<Integer, long[]>>(BLOCKS);
+        for (int i = 0; i < BLOCKS; ++i) {
+            tables.add(new HashMap<Integer, long[]>());
+        }
+    }
+
+    /**
+     * Checks whether the website is a duplicate of an already checked website.
+     * The fingerprint of the text is only calculated and compared when the
+     * text has a full shingle. Websites not being a duplicate are remembered.
+     * 
+     * @param contentHash
+     *            Hash of the content of the website
+     * @param text
+     *            The text of the website
+     * @return <code>true</code> when the website is an exact or near duplicate
+     */
+    public boolean isDuplicate(long contentHash, CharSequence text) {
+        if (maxDistance == 0 || !SimHash.hasShingle(text))
+            return isExactDuplicate(contentHash);
+        return isDuplicate(contentHash, SimHash.fingerprint(text));
+    }
+
+    /**
+     * Checks whether the website is an exact duplicate of an already checked
+     * website. Websites not being a duplicate are remembered.
+     * 
+     * @param contentHash
+     *            Hash of the content of the website
+     * @return <code>true</code> when the website is an exact duplicate
+     */
+    public synchronized boolean isExactDuplicate(long contentHash) {
+        return !contentHashes.addHash(contentHash);
+    }
+
+    /**
+     * Checks whether the website is a duplicate of an already checked website.
+     * Websites not being a duplicate are remembered.
+     * 
+     * @param contentHash
+     *            Hash of the content of the website
+     * @param fingerprint
+     *            The SimHash fingerprint of the content
+     * @return <code>true</code> when the website is an exact or near duplicate
+     */
+    public synchronized boolean isDuplicate(long contentHash, long fingerprint) {
+        if (!contentHashes.addHash(contentHash))
+            return true;
+        if (maxDistance == 0)
+            return false;
+
+        for (int i = 0; i < BLOCKS; ++i) {
+            long[] bucket = tables.get(i).get(block(fingerprint, i));
+            if (bucket == null)
+                continue;
+            // The first element is the size of the bucket
+            for (int j = 1; j <= bucket[0]; ++j) {
+                if (SimHash.distance(bucket[j], fingerprint) <= maxDistance)
+                    return true;
+            }
+        }
+
+        addFingerprint(fingerprint);
+        return false;
+    }
+
+    /**
+     * Adds the fingerprint to the bucket of every block.
+     * 
+     * @param fingerprint
+     *            The SimHash fingerprint to remember
+     */
+    private void addFingerprint(long fingerprint) {
+        for (int i = 0; i < BLOCKS; ++i) {
+            Integer key = block(fingerprint, i);
+            long[] bucket = tables.get(i).get(key);
+            if (bucket == null) {
+                bucket = new long[2];
+            } else if (bucket[0] + 1 == bucket.length) {
+                bucket = Arrays.copyOf(bucket, bucket.length * 2);
+            }
+            bucket[(int) ++bucket[0]] = fingerprint;
+            tables.get(i).put(key, bucket);
+        }
+        ++fingerprints;
+    }
+
+    private static int block(long fingerprint, int i) {
+        return (int) (fingerprint >>> (i * BLOCK_BITS)) & ((1 << BLOCK_BITS) - 1);
+    }
+
+    /**
+     * @return The number of remembered near duplicate fingerprints
+     */
+    public synchronized int size() {
+        return fingerprints;
+    }
+
+    /**
+     * @return The maximum number of different bits of near duplicate
+     *         fingerprints
+     */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Writes the remembered content hashes and fingerprints to the stream, for
+     * example for a {@link CrawlCheckpoint}.
+     * 
+     * @param out
+     *            The stream to write to
+     * @throws IOException
+     *             Error while writing the detector
+     */
+    public synchronized void save(DataOutputStream out) throws IOException {
+        out.writeInt(maxDistance);
+        contentHashes.save(out);
+        out.writeInt(fingerprints);
+        // Every fingerprint is contained once in the buckets of a block
+        for (long[] bucket : tables.get(0).values()) {
+            for (int j = 1; j <= bucket[0]; ++j) {
+                out.writeLong(bucket[j]);
+            }
+        }
+    }
+
+    /**
+     * Reads a detector written by {@link #save(DataOutputStream)}.
+     * 
+     * @param in
+     *            The stream to read from
+     * @return The read detector
+     * @throws IOException
+     *             Error while reading the detector
+     */
+    static DuplicateDetector load(DataInputStream in) throws IOException {
+        DuplicateDetector detector = new DuplicateDetector(in.readInt());
+        detector.contentHashes = LongHashVisitedSet.load(in);
+        int fingerprints = in.readInt();
+        for (int i = 0; i < fingerprints; ++i) {
+            detector.addFingerprint(in.readLong());
+        }
+        return detector;
+    }
+}
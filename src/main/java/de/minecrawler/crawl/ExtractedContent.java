@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.util.List;
+
+/**
+ * Container class for the content extracted from a website by the
+ * {@link StreamingHtmlExtractor}.
+ */
+public class ExtractedContent {
+
+    private String title;
+    private String text;
+    private List<String> links;
+
+    /**
+     * @param title
+     *            The title of the website
+     * @param text
+     *            The readable text of the website
+     * @param links
+     *            The absolute urls of all href attributes
+     */
+    public ExtractedContent(String title, String text, List<String> links) {
+        this.title = title;
+        this.text = text;
+        this.links = links;
+    }
+
+    /**
+     * @return The title of the website
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return The readable text of the website
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return The absolute urls of all href attributes
+     */
+    public List<String> getLinks() {
+        return links;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * Container class for the response of an {@link AbstractFetcher}. Contains
+ * the decoded raw bytes of the website, which are parsed on demand.
+ */
+public class FetchResult {
+
+    private URL url;
+    private int statusCode;
+    private String contentType;
+    private String charset;
+    private String eTag;
+    private String lastModified;
+    private byte[] body;
+    private boolean truncated;
+
+    /**
+     * @param url
+     *            The url of the response, differs from the requested url when
+     *            the request was redirected
+     * @param statusCode
+     *            The HTTP status code
+     * @param contentType
+     *            The content type without parameters, can be <code>null</code>
+     * @param charset
+     *            The charset of the Content-Type header, can be
+     *            <code>null</code>
+     * @param eTag
+     *            The ETag header, can be <code>null</code>
+     * @param lastModified
+     *            The Last-Modified header, can be <code>null</code>
+     * @param body
+     *            The decoded body, <code>null</code> when the body was not
+     *            retrieved
+     * @param truncated
+     *            <code>true</code> when the body was cut at the maximum
+     *            response size
+     */
+    public FetchResult(URL url, int statusCode, String contentType, String charset, String eTag, String lastModified, byte[] body, boolean truncated) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.charset = charset;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.body = body;
+        this.truncated = truncated;
+    }
+
+    /**
+     * Parses the body using Jsoup. When the response has no charset, the
+     * charset is detected from the document or UTF-8 is used.
+     * 
+     * @return The parsed document
+     * @throws IOException
+     *             The body was not retrieved or can't be parsed
+     */
+    public Document parse() throws IOException {
+        if (body == null)
+            throw new IOException("Body of " + url + " was not retrieved");
+        return Jsoup.parse(new ByteArrayInputStream(body), charset, url.toString());
+    }
+
+    /**
+     * @return <code>true</code> when the content type is HTML or XML, which
+     *         can be parsed. Responses without content type are assumed to be
+     *         HTML
+     */
+    public boolean isSupportedContentType() {
+        return isSupportedContentType(contentType);
+    }
+
+    /**
+     * @param contentType
+     *            The content type without parameters, can be <code>null</code>
+     * @return <code>true</code> when the content type is HTML or XML
+     */
+    static boolean isSupportedContentType(String contentType) {
+        if (contentType == null)
+            return true;
+        return contentType.startsWith("text/") || contentType.equals("application/xml") || contentType.equals("application/xhtml+xml");
+    }
+
+    /**
+     * @return The url of the response, differs from the requested url when the
+     *         request was redirected
+     */
+    public URL getURL() {
+        return url;
+    }
+
+    /**
+     * @return The HTTP status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return The content type without parameters, can be <code>null</code>
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The charset of the Content-Type header, can be <code>null</code>
+     */
+    public String getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return The ETag header, can be <code>null</code>
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @return The Last-Modified header, can be <code>null</code>
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return The decoded body, <code>null</code> when the body was not
+     *         retrieved
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return <code>true</code> when the body was cut at the maximum response
+     *         size
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.minecrawler.Crawler;
+
+/**
+ * The shared frontier of the {@link Crawler}. Contains the urls of the current
+ * crawl level, which are fetched concurrently by the crawler workers, and
+ * collects the urls found for the next level. The frontier is thread safe. <br>
+ * Urls of lower depth are always crawled first. Within a level the urls are
+ * ordered by their score: The number of links pointing to the url, divided by
+ * the number of better urls on the same host. So urls linked often are crawled
+ * first and the hosts are interleaved.
+ */
+public class Frontier {
+
+    private Queue<URL> currentLevel;
+    private ConcurrentHashMap<String, Entry> nextLevel;
+
+    private int depth;
+
+    /**
+     * Creates a frontier containing only the seed at depth 0.
+     * 
+     * @param seed
+     *            The initial url of the crawling
+     */
+    public Frontier(URL seed) {
+        this.currentLevel = new ConcurrentLinkedQueue<URL>();
+        this.nextLevel = new ConcurrentHashMap<String, Entry>();
+        this.currentLevel.add(seed);
+        this.depth = 0;
+    }
+
+    private Frontier(int depth) {
+        this.currentLevel = new ConcurrentLinkedQueue<URL>();
+        this.nextLevel = new ConcurrentHashMap<String, Entry>();
+        this.depth = depth;
+    }
+
+    /**
+     * Retrieves and removes the next url of the current level.
+     * 
+     * @return <code>Null</code> if the current level is completely handed out.
+     *         Otherwise the next url to crawl
+     */
+    public URL poll() {
+        return currentLevel.poll();
+    }
+
+    /**
+     * Gives an url of the current level back, for example when its host is
+     * busy. The url is polled again after the other urls.
+     * 
+     * @param url
+     *            The url polled before
+     */
+    public void defer(URL url) {
+        currentLevel.add(url);
+    }
+
+    /**
+     * Adds a not visited url to the next level.
+     * 
+     * @param url
+     *            The url found on a website of the current level
+     */
+    public void addNext(URL url) {
+        // Strings as keys, because URL.equals resolves the host
+        Entry entry = new Entry(url);
+        Entry existing = nextLevel.putIfAbsent(url.toString(), entry);
+        if (existing != null)
+            existing.inLinks.incrementAndGet();
+    }
+
+    /**
+     * Counts a link to an already visited url. Only urls of the next level are
+     * counted.
+     * 
+     * @param url
+     *            The url found on a website of the current level
+     */
+    public void addInLink(URL url) {
+        Entry entry = nextLevel.get(url.toString());
+        if (entry != null)
+            entry.inLinks.incrementAndGet();
+    }
+
+    /**
+     * Moves the collected urls of the next level ordered by their score to the
+     * current level. Must only be called when no worker is polling the
+     * frontier!
+     * 
+     * @return <code>true</code> when the new level contains urls, otherwise
+     *         <code>false</code>
+     */
+    public boolean advance() {
+        List<Entry> entries = new ArrayList<Entry>(nextLevel.values());
+        nextLevel.clear();
+        ++depth;
+
+        // Rank the urls per host by their links
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return Integer.compare(o2.inLinks.get(), o1.inLinks.get());
+            }
+        });
+        Map<String, Integer> hostRanks = new HashMap<String, Integer>();
+        for (Entry entry : entries) {
+            Integer rank = hostRanks.get(entry.url.getHost());
+            rank = rank == null ? 1 : rank + 1;
+            hostRanks.put(entry.url.getHost(), rank);
+            entry.score = (double) entry.inLinks.get() / rank;
+        }
+        // Stable, so equal scores keep the order by links
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return Double.compare(o2.score, o1.score);
+            }
+        });
+
+        currentLevel.clear();
+        for (Entry entry : entries) {
+            currentLevel.add(entry.url);
+        }
+        return !currentLevel.isEmpty();
+    }
+
+    /**
+     * Writes the urls of both levels to the stream, for example for a
+     * {@link CrawlCheckpoint}. Must only be called when no worker uses the
+     * frontier!
+     * 
+     * @param out
+     *            The stream to write to
+     * @throws IOException
+     *             Error while writing the frontier
+     */
+    public void save(DataOutputStream out) throws IOException {
+        List<URL> current = new ArrayList<URL>(currentLevel);
+        List<Entry> next = new ArrayList<Entry>(nextLevel.values());
+        out.writeInt(depth);
+        out.writeInt(current.size());
+        for (URL url : current) {
+            out.writeUTF(url.toString());
+        }
+        out.writeInt(next.size());
+        for (Entry entry : next) {
+            out.writeUTF(entry.url.toString());
+            out.writeInt(entry.inLinks.get());
+        }
+    }
+
+    /**
+     * Reads a frontier written by {@link #save(DataOutputStream)}.
+     * 
+     * @param in
+     *            The stream to read from
+     * @return The read frontier
+     * @throws IOException
+     *             Error while reading the frontier
+     */
+    public static Frontier load(DataInputStream in) throws IOException {
+        Frontier frontier = new Frontier(in.readInt());
+        int size = in.readInt();
+        for (int i = 0; i < size; ++i) {
+            frontier.currentLevel.add(new URL(in.readUTF()));
+        }
+        size = in.readInt();
+        for (int i = 0; i < size; ++i) {
+            Entry entry = new Entry(new URL(in.readUTF()));
+            entry.inLinks.set(in.readInt());
+            frontier.nextLevel.put(entry.url.toString(), entry);
+        }
+        return frontier;
+    }
+
+    /**
+     * @return The depth of the current level, the seed has the depth 0
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * An url of the next level and the number of links to it.
+     */
+    private static class Entry {
+
+        URL url;
+        AtomicInteger inLinks;
+        double score;
+
+        public Entry(URL url) {
+            this.url = url;
+            this.inLinks = new AtomicInteger(1);
+        }
+    }
+}
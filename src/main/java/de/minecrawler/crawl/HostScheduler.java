@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Politeness scheduler limiting the requests per host. For every host the
+ * number of requests in flight and the delay between two requests are limited.
+ * The limits adapt to the host:
+ * <ul>
+ * <li>The status codes 429 and 503, errors and a rising latency halve the
+ * number of parallel requests and increase the delay. The latency is rising
+ * when its average is far above the best average. The best average follows a
+ * lasting higher average slowly, so a few fast responses do not throttle the
+ * host for the rest of the crawl</li>
+ * <li>While the host answers fast, the number of parallel requests is raised by
+ * one after every full window of successful requests and the delay is reduced</li>
+ * </ul>
+ * The scheduler is thread safe.
+ */
+public class HostScheduler {
+
+    // Status codes telling the crawler to slow down
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private static final int INITIAL_LIMIT = 2;
+    private static final long BACKOFF_DELAY = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long MAX_DELAY = TimeUnit.SECONDS.toNanos(10);
+    private static final long DECREASE_COOLDOWN = TimeUnit.SECONDS.toNanos(1);
+    // Latency is rising when the average is this factor above the best average
+    private static final double LATENCY_FACTOR = 2.0;
+    private static final double LATENCY_WEIGHT = 0.2;
+    // Weight of the average latency in the best average when it is higher
+    private static final double BEST_LATENCY_WEIGHT = 0.05;
+
+    private Map<String, HostState> hosts;
+    private int maxRequestsPerHost;
+    private long minDelay;
+
+    /**
+     * Creates a scheduler.
+     * 
+     * @param maxRequestsPerHost
+     *            The maximum number of parallel requests per host
+     * @param minDelay
+     *            The minimum delay between two requests to a host in
+     *            milliseconds
+     */
+    public HostScheduler(int maxRequestsPerHost, long minDelay) {
+        if (maxRequestsPerHost < 1)
+            throw new IllegalArgumentException("Maximum requests per host must be positive!");
+        this.hosts = new HashMap<String, HostState>();
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.minDelay = TimeUnit.MILLISECONDS.toNanos(minDelay);
+    }
+
+    /**
+     * Tries to start a request to the host. Does not block.
+     * 
+     * @param host
+     *            The host to request
+     * @return <code>true</code> when the request may start now. The request
+     *         must be finished by {@link #release(String, int, long)}.
+     *         <code>false</code> when the host is busy
+     */
+    public synchronized boolean tryAcquire(String host) {
+        HostState state = hosts.get(host);
+        if (state == null) {
+            state = new HostState(host, Math.min(INITIAL_LIMIT, maxRequestsPerHost), minDelay, nanoTime());
+            hosts.put(host, state);
+        }
+
+        long now = nanoTime();
+        if (state.inFlight >= (int) state.limit || now - state.nextRequest < 0)
+            return false;
+
+        ++state.inFlight;
+        ++state.requests;
+        state.nextRequest = now + state.delay;
+        return true;
+    }
+
+    /**
+     * Finishes a request started by {@link #tryAcquire(String)} and adapts the
+     * limits of the host.
+     * 
+     * @param host
+     *            The requested host
+     * @param status
+     *            The status code of the response, <code>-1</code> when the
+     *            request failed
+     * @param latency
+     *            The duration of the request in nanoseconds
+     */
+    public synchronized void release(String host, int status, long latency) {
+        HostState state = hosts.get(host);
+        --state.inFlight;
+
+        long now = nanoTime();
+        if (status == TOO_MANY_REQUESTS || status == SERVICE_UNAVAILABLE || status == -1) {
+            ++state.throttled;
+            decrease(state, now);
+            state.delay = Math.min(MAX_DELAY, Math.max(state.delay * 2, BACKOFF_DELAY));
+            state.nextRequest = now + state.delay;
+        } else {
+            if (state.averageLatency == 0.0)
+                state.averageLatency = latency;
+            else
+                state.averageLatency += LATENCY_WEIGHT * (latency - state.averageLatency);
+
+            if (state.bestLatency == 0.0 || state.averageLatency < state.bestLatency)
+                state.bestLatency = state.averageLatency;
+            else
+                state.bestLatency += BEST_LATENCY_WEIGHT * (state.averageLatency - state.bestLatency);
+
+            if (state.averageLatency > LATENCY_FACTOR * state.bestLatency) {
+                decrease(state, now);
+            } else if (++state.successes >= (int) state.limit) {
+                // A full window of fast responses
+                state.successes = 0;
+                state.limit = Math.min(maxRequestsPerHost, state.limit + 1);
+                state.delay = Math.max(minDelay, state.delay / 2);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * @return The current time in nanoseconds, like {@link System#nanoTime()}
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Halves the number of parallel requests, at most once per cooldown.
+     */
+    private void decrease(HostState state, long now) {
+        state.successes = 0;
+        if (now - state.lastDecrease < DECREASE_COOLDOWN)
+            return;
+        state.lastDecrease = now;
+        state.limit = Math.max(1.0, state.limit / 2);
+    }
+
+    /**
+     * Waits until a request is finished or the timeout elapsed. Used by
+     * workers when all their hosts are busy.
+     * 
+     * @param timeout
+     *            Maximum time to wait in milliseconds
+     * @throws InterruptedException
+     *             Interrupted while waiting
+     */
+    public synchronized void awaitRelease(long timeout) throws InterruptedException {
+        wait(timeout);
+    }
+
+    /**
+     * @return A snapshot of the state of all requested hosts, sorted by the
+     *         number of requests
+     */
+    public synchronized List<HostState> getHostStates() {
+        List<HostState> states = new ArrayList<HostState>(hosts.size());
+        for (HostState state : hosts.values()) {
+            states.add(new HostState(state));
+        }
+        Collections.sort(states, new Comparator<HostState>() {
+            @Override
+            public int compare(HostState o1, HostState o2) {
+                return Long.compare(o2.requests, o1.requests);
+            }
+        });
+        return states;
+    }
+
+    /**
+     * The scheduling state of a single host.
+     */
+    public static class HostState {
+
+        private String host;
+        private int inFlight;
+        private double limit;
+        private long delay;
+        private long nextRequest;
+        private long lastDecrease;
+        private double averageLatency;
+        private double bestLatency;
+        private int successes;
+        private long requests;
+        private long throttled;
+
+        private HostState(String host, int limit, long delay, long now) {
+            this.host = host;
+            this.limit = limit;
+            this.delay = delay;
+            this.nextRequest = now;
+            this.lastDecrease = nextRequest - DECREASE_COOLDOWN;
+        }
+
+        private HostState(HostState other) {
+            this.host = other.host;
+            this.inFlight = other.inFlight;
+            this.limit = other.limit;
+            this.delay = other.delay;
+            this.averageLatency = other.averageLatency;
+            this.requests = other.requests;
+            this.throttled = other.throttled;
+        }
+
+        /**
+         * @return The host name
+         */
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @return The number of requests in flight
+         */
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return The current maximum number of parallel requests
+         */
+        public int getLimit() {
+            return (int) limit;
+        }
+
+        /**
+         * @return The current delay between two requests in milliseconds
+         */
+        public long getDelay() {
+            return TimeUnit.NANOSECONDS.toMillis(delay);
+        }
+
+        /**
+         * @return The moving average of the latency in milliseconds
+         */
+        public double getAverageLatency() {
+            return averageLatency / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * @return The number of started requests
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return The number of requests which failed or were throttled by the
+         *         host
+         */
+        public long getThrottled() {
+            return throttled;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d requests, %d throttled, %d in flight, limit %d, delay %dms, latency %.1fms", host, requests, throttled, inFlight, getLimit(), getDelay(), getAverageLatency());
+        }
+    }
+}
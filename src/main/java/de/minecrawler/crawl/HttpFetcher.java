@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.Security;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Fetcher based on the HttpURLConnection of the JDK:
+ * <ul>
+ * <li>Connections are kept alive and reused per host</li>
+ * <li>Responses are requested compressed with gzip or deflate</li>
+ * <li>Bodies larger than the maximum response size are truncated</li>
+ * <li>Redirects are followed, also between http and https</li>
+ * </ul>
+ * The number of idle connections per host and the caching of resolved host
+ * names are global settings of the JDK, see
+ * {@link #configureNetworking(int)}.
+ */
+public class HttpFetcher extends AbstractFetcher {
+
+    /**
+     * Seconds a resolved host name is cached
+     */
+    public static final int DNS_CACHE_SECONDS = 300;
+
+    private static boolean networkingConfigured = false;
+
+    private static final int MAX_REDIRECTS = 5;
+    private static final int BUFFER_SIZE = 8192;
+    private static final String USER_AGENT = "Mozilla/5.0 (compatible; MineCrawler)";
+
+    private int timeout;
+    private int maxResponseSize;
+
+    /**
+     * Creates a fetcher.
+     * 
+     * @param timeout
+     *            Timeout in milliseconds for connecting and reading
+     * @param maxResponseSize
+     *            Maximum number of decoded bytes read of a body
+     */
+    public HttpFetcher(int timeout, int maxResponseSize) {
+        this.timeout = timeout;
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    /**
+     * Sets the JDK wide networking properties once: the system property
+     * <code>http.maxConnections</code> to the number of idle connections kept
+     * alive per host and the security property
+     * <code>networkaddress.cache.ttl</code> to {@link #DNS_CACHE_SECONDS}.
+     * Properties already defined, for example on the command line, are kept.
+     * Both properties are read only once by the JDK, so this must be called
+     * before the first connection. Later calls are ignored.
+     * 
+     * @param connectionsPerHost
+     *            Number of idle connections kept alive per host
+     */
+    public static synchronized void configureNetworking(int connectionsPerHost) {
+        if (networkingConfigured)
+            return;
+        networkingConfigured = true;
+        if (System.getProperty("http.maxConnections") == null)
+            System.setProperty("http.maxConnections", Integer.toString(connectionsPerHost));
+        if (Security.getProperty("networkaddress.cache.ttl") == null)
+            Security.setProperty("networkaddress.cache.ttl", Integer.toString(DNS_CACHE_SECONDS));
+    }
+
+    @Override
+    public FetchResult fetch(URL url, String eTag, String lastModified) throws IOException {
+        for (int redirects = 0;; ++redirects) {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+            connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+            if (eTag != null)
+                connection.setRequestProperty("If-None-Match", eTag);
+            if (lastModified != null)
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+
+            int status = connection.getResponseCode();
+            if (isRedirect(status)) {
+                String location = connection.getHeaderField("Location");
+                discard(connection);
+                if (location == null)
+                    throw new IOException("Redirect of " + url + " has no location");
+                if (redirects == MAX_REDIRECTS)
+                    throw new IOException("Too many redirects for " + url);
+
+                url = new URL(url, location);
+                if (!url.getProtocol().equals("http") && !url.getProtocol().equals("https"))
+                    throw new IOException("Redirect to unsupported protocol " + url);
+                continue;
+            }
+
+            String contentType = null;
+            String charset = null;
+            String contentTypeHeader = connection.getContentType();
+            if (contentTypeHeader != null) {
+                String[] split = contentTypeHeader.split(";");
+                contentType = split[0].trim().toLowerCase(Locale.ENGLISH);
+                for (int i = 1; i < split.length; ++i) {
+                    String param = split[i].trim();
+                    if (param.toLowerCase(Locale.ENGLISH).startsWith("charset="))
+                        charset = parseCharset(param.substring("charset=".length()));
+                }
+            }
+            String responseETag = connection.getHeaderField("ETag");
+            String responseLastModified = connection.getHeaderField("Last-Modified");
+
+            // Body is only needed for successful responses which can be parsed
+            if (status < 200 || status >= 300 || !FetchResult.isSupportedContentType(contentType)) {
+                discard(connection);
+                count(0, 0);
+                return new FetchResult(url, status, contentType, charset, responseETag, responseLastModified, null, false);
+            }
+
+            CountingInputStream counting = new CountingInputStream(connection.getInputStream());
+            InputStream in = counting;
+            try {
+                String encoding = connection.getContentEncoding();
+                if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding))
+                    in = new GZIPInputStream(counting);
+                else if ("deflate".equalsIgnoreCase(encoding))
+                    in = new InflaterInputStream(counting);
+
+                int length = connection.getContentLength();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(length > 0 ? Math.min(length, maxResponseSize) : BUFFER_SIZE);
+                boolean truncated = read(in, out);
+                count(counting.getCount(), out.size());
+
+                if (truncated) {
+                    // Don't download the rest, the connection can't be reused
+                    connection.disconnect();
+                }
+                return new FetchResult(url, status, contentType, charset, responseETag, responseLastModified, out.toByteArray(), truncated);
+            } finally {
+                // Returns the connection to the keep alive cache when completely read
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the stream until its end or the maximum response size.
+     * 
+     * @param in
+     *            The decoded stream
+     * @param out
+     *            The target
+     * @return <code>true</code> when the stream was truncated
+     * @throws IOException
+     *             Error while reading
+     */
+    private boolean read(InputStream in, ByteArrayOutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            int remaining = maxResponseSize - out.size();
+            if (read > remaining) {
+                out.write(buffer, 0, remaining);
+                return true;
+            }
+            out.write(buffer, 0, read);
+        }
+        return false;
+    }
+
+    /**
+     * Closes the response stream without reading it. Small remaining bodies are
+     * skipped by the JDK and the connection is reused.
+     * 
+     * @param connection
+     *            The connection to discard
+     */
+    private static void discard(HttpURLConnection connection) {
+        try {
+            InputStream in = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (in != null)
+                in.close();
+        } catch (IOException e) {
+            connection.disconnect();
+        }
+    }
+
+    private static boolean isRedirect(int status) {
+        return status == HttpURLConnection.HTTP_MOVED_PERM || status == HttpURLConnection.HTTP_MOVED_TEMP || status == HttpURLConnection.HTTP_SEE_OTHER || status == 307 || status == 308;
+    }
+
+    /**
+     * @param charset
+     *            The charset parameter of the content type, may be quoted
+     * @return <code>Null</code> when the charset is not supported, otherwise
+     *         its name
+     */
+    private static String parseCharset(String charset) {
+        charset = charset.trim().replace("\"", "").replace("'", "");
+        try {
+            return Charset.isSupported(charset) ? charset : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Counts the bytes read from the network.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count = 0L;
+
+        public CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1)
+                ++count;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count += read;
+            return read;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The link graph of a crawl. Every url gets a node id in the order it is seen
+ * for the first time, the links are recorded as pairs of node ids in primitive
+ * arrays. After the crawl the graph is compacted: The targets of all nodes are
+ * stored in a single array, sorted by the source node, and the links of a node
+ * are found by its offset in this array. Duplicate links and links of a
+ * website to itself are removed. <br>
+ * Recording links is thread safe, the compacted graph can't be changed.
+ */
+public class LinkGraph {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private Map<String, Integer> nodes = new HashMap<String, Integer>();
+    private List<String> urls = new ArrayList<String>();
+    // Nodes of crawled websites, the other nodes are only link targets
+    private BitSet pages = new BitSet();
+
+    // Links in the order they are recorded
+    private int[] linkSources = new int[INITIAL_CAPACITY];
+    private int[] linkTargets = new int[INITIAL_CAPACITY];
+    private int linkCount;
+
+    // The compacted graph, the links of node i are targets[offsets[i]] to
+    // targets[offsets[i + 1] - 1]
+    private int[] offsets;
+    private int[] targets;
+
+    /**
+     * Records the links of a crawled website.
+     * 
+     * @param url
+     *            The canonical url of the crawled website
+     * @param links
+     *            The canonical urls of its links
+     */
+    public synchronized void addPage(String url, String[] links) {
+        if (offsets != null)
+            throw new IllegalStateException("The graph is already compacted!");
+
+        int source = getOrAddNode(url);
+        pages.set(source);
+        if (linkCount + links.length > linkSources.length) {
+            int capacity = Math.max(linkSources.length * 2, linkCount + links.length);
+            linkSources = Arrays.copyOf(linkSources, capacity);
+            linkTargets = Arrays.copyOf(linkTargets, capacity);
+        }
+        for (String link : links) {
+            linkSources[linkCount] = source;
+            linkTargets[linkCount] = getOrAddNode(link);
+            ++linkCount;
+        }
+    }
+
+    private int getOrAddNode(String url) {
+        Integer node = nodes.get(url);
+        if (node == null) {
+            node = urls.size();
+            nodes.put(url, node);
+            urls.add(url);
+        }
+        return node;
+    }
+
+    /**
+     * Compacts the recorded links. Afterwards no links can be added. Does
+     * nothing when the graph is already compacted.
+     */
+    public synchronized void compact() {
+        if (offsets != null)
+            return;
+
+        int nodeCount = urls.size();
+        // Counting sort by the source node
+        int[] starts = new int[nodeCount + 1];
+        for (int i = 0; i < linkCount; ++i) {
+            ++starts[linkSources[i] + 1];
+        }
+        for (int i = 0; i < nodeCount; ++i) {
+            starts[i + 1] += starts[i];
+        }
+        int[] sorted = new int[linkCount];
+        int[] positions = Arrays.copyOf(starts, nodeCount);
+        for (int i = 0; i < linkCount; ++i) {
+            sorted[positions[linkSources[i]]++] = linkTargets[i];
+        }
+        this.linkSources = null;
+        this.linkTargets = null;
+
+        // Removes duplicate links and self links in place
+        int[] compactOffsets = new int[nodeCount + 1];
+        int size = 0;
+        for (int node = 0; node < nodeCount; ++node) {
+            compactOffsets[node] = size;
+            int from = starts[node];
+            int to = starts[node + 1];
+            Arrays.sort(sorted, from, to);
+            for (int i = from; i < to; ++i) {
+                int target = sorted[i];
+                if (target == node || (i > from && target == sorted[i - 1]))
+                    continue;
+                sorted[size++] = target;
+            }
+        }
+        compactOffsets[nodeCount] = size;
+
+        this.offsets = compactOffsets;
+        this.targets = Arrays.copyOf(sorted, size);
+        this.linkCount = size;
+    }
+
+    /**
+     * @return The number of nodes, that are all crawled websites and the
+     *         targets of their links
+     */
+    public synchronized int getNodeCount() {
+        return urls.size();
+    }
+
+    /**
+     * @return The number of recorded links. Duplicate links are only removed
+     *         by compacting the graph
+     */
+    public synchronized int getLinkCount() {
+        return linkCount;
+    }
+
+    /**
+     * @param node
+     *            The id of the node
+     * @return The url of the node
+     */
+    public synchronized String getURL(int node) {
+        return urls.get(node);
+    }
+
+    /**
+     * @param url
+     *            The canonical url
+     * @return The id of the node of the url, <code>-1</code> if the graph
+     *         does not contain the url
+     */
+    public synchronized int getNode(String url) {
+        Integer node = nodes.get(url);
+        return node == null ? -1 : node;
+    }
+
+    /**
+     * @param node
+     *            The id of the node
+     * @return <code>true</code> when the node is a crawled website, otherwise
+     *         it is only the target of a link
+     */
+    public synchronized boolean isPage(int node) {
+        return pages.get(node);
+    }
+
+    /**
+     * @return The offsets of the links of every node in the targets of the
+     *         compacted graph. Has one entry more than the graph has nodes
+     */
+    public int[] getOffsets() {
+        compact();
+        return offsets;
+    }
+
+    /**
+     * @return The target node ids of the compacted graph, sorted by their
+     *         source node
+     */
+    public int[] getTargets() {
+        compact();
+        return targets;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Exact visited set storing the url hashes in a primitive long array using
+ * open addressing with linear probing. Needs 16 bytes per url at most.
+ */
+public class LongHashVisitedSet extends AbstractVisitedSet {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // 0 marks an empty slot, the hash 0 is stored as this value instead
+    private static final long EMPTY = 0L;
+    private static final long ZERO_REPLACEMENT = 0x9e3779b97f4a7c15L;
+
+    private long[] table;
+    private int size;
+
+    /**
+     * Creates an empty visited set.
+     */
+    public LongHashVisitedSet() {
+        this.table = new long[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    @Override
+    protected synchronized boolean addHash(long hash) {
+        if (hash == EMPTY)
+            hash = ZERO_REPLACEMENT;
+
+        if (!insert(table, hash))
+            return false;
+
+        // Keep the load factor at most 0.5
+        if (++size > table.length / 2)
+            rehash();
+        return true;
+    }
+
+    /**
+     * Inserts the hash into the table.
+     * 
+     * @param table
+     *            The table to insert into
+     * @param hash
+     *            The hash, not {@link #EMPTY}
+     * @return <code>true</code> when the hash was inserted,
+     *         <code>false</code> when it was already contained
+     */
+    private static boolean insert(long[] table, long hash) {
+        int mask = table.length - 1;
+        int pos = (int) hash & mask;
+        while (table[pos] != EMPTY) {
+            if (table[pos] == hash)
+                return false;
+            pos = (pos + 1) & mask;
+        }
+        table[pos] = hash;
+        return true;
+    }
+
+    /**
+     * Doubles the size of the table.
+     */
+    private void rehash() {
+        long[] newTable = new long[table.length * 2];
+        for (long hash : table) {
+            if (hash != EMPTY)
+                insert(newTable, hash);
+        }
+        this.table = newTable;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void save(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (long hash : table) {
+            if (hash != EMPTY)
+                out.writeLong(hash);
+        }
+    }
+
+    /**
+     * Reads a set written by {@link #save(DataOutputStream)}.
+     * 
+     * @param in
+     *            The stream to read from
+     * @return The read set
+     * @throws IOException
+     *             Error while reading the set
+     */
+    static LongHashVisitedSet load(DataInputStream in) throws IOException {
+        LongHashVisitedSet set = new LongHashVisitedSet();
+        int size = in.readInt();
+        for (int i = 0; i < size; ++i) {
+            set.addHash(in.readLong());
+        }
+        return set;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the PageRank of the nodes of a {@link LinkGraph} by power
+ * iteration. Every iteration pulls the ranks of a node from the nodes linking
+ * to it, so the nodes are split into ranges of about the same number of links
+ * and the ranges are computed in parallel without any locking. The rank of
+ * nodes without links is distributed over all nodes. <br>
+ * The ranks are scaled to an average of <code>1</code>, so a website with a
+ * rank above <code>1</code> is more important than the average.
+ */
+public class PageRank {
+
+    /**
+     * Default probability to follow a link instead of jumping to a random node
+     */
+    public static final float DEFAULT_DAMPING = 0.85f;
+
+    /**
+     * Default maximum number of iterations
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 50;
+
+    /**
+     * Default sum of the rank changes of all nodes in an iteration, when the
+     * ranks are seen as converged. The ranks of all nodes sum up to
+     * <code>1</code> while computing
+     */
+    public static final double DEFAULT_TOLERANCE = 1E-6;
+
+    // Ranges per thread, smaller ranges balance the work better
+    private static final int RANGES_PER_THREAD = 4;
+
+    private float damping;
+    private int maxIterations;
+    private double tolerance;
+    private int threads;
+
+    private int iterations;
+    private double change;
+
+    /**
+     * Creates a PageRank computation using the default damping and
+     * convergence.
+     * 
+     * @param threads
+     *            The number of threads computing the ranks in parallel
+     */
+    public PageRank(int threads) {
+        this(DEFAULT_DAMPING, DEFAULT_MAX_ITERATIONS, DEFAULT_TOLERANCE, threads);
+    }
+
+    /**
+     * Creates a PageRank computation.
+     * 
+     * @param damping
+     *            The probability to follow a link instead of jumping to a
+     *            random node, between <code>0</code> and <code>1</code>
+     * @param maxIterations
+     *            The maximum number of iterations
+     * @param tolerance
+     *            The sum of the rank changes in an iteration, when the ranks
+     *            are seen as converged
+     * @param threads
+     *            The number of threads computing the ranks in parallel
+     */
+    public PageRank(float damping, int maxIterations, double tolerance, int threads) {
+        if (damping < 0F || damping >= 1F)
+            throw new IllegalArgumentException("Damping must be between 0 and 1!");
+        if (maxIterations < 1)
+            throw new IllegalArgumentException("Maximum number of iterations must be positive!");
+        if (tolerance < 0.0)
+            throw new IllegalArgumentException("Tolerance must not be negative!");
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads must be positive!");
+        this.damping = damping;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+        this.threads = threads;
+    }
+
+    /**
+     * Computes the ranks of all nodes of the graph. The graph is compacted
+     * first.
+     * 
+     * @param graph
+     *            The link graph
+     * @return The rank of every node, indexed by the node id
+     * @throws InterruptedException
+     *             Interrupted while waiting for the threads
+     */
+    public float[] compute(LinkGraph graph) throws InterruptedException {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        final int nodeCount = offsets.length - 1;
+        this.iterations = 0;
+        this.change = 0.0;
+        if (nodeCount == 0)
+            return new float[0];
+
+        // The nodes linking to a node, sorted by the target node
+        final int[] inOffsets = new int[nodeCount + 1];
+        for (int target : targets) {
+            ++inOffsets[target + 1];
+        }
+        for (int i = 0; i < nodeCount; ++i) {
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        final int[] inSources = new int[targets.length];
+        int[] positions = new int[nodeCount];
+        System.arraycopy(inOffsets, 0, positions, 0, nodeCount);
+        final int[] outDegrees = new int[nodeCount];
+        for (int source = 0; source < nodeCount; ++source) {
+            outDegrees[source] = offsets[source + 1] - offsets[source];
+            for (int i = offsets[source]; i < offsets[source + 1]; ++i) {
+                inSources[positions[targets[i]]++] = source;
+            }
+        }
+        int[] ranges = createRanges(inOffsets);
+
+        ExecutorService executor = threads > 1 ? createExecutor() : null;
+        try {
+            double[] ranks = new double[nodeCount];
+            Arrays.fill(ranks, 1.0 / nodeCount);
+            final double[] contributions = new double[nodeCount];
+            double[] next = new double[nodeCount];
+            while (iterations < maxIterations) {
+                // Every node passes its rank to its targets in equal parts
+                final double[] current = ranks;
+                List<Callable<Double>> tasks = new ArrayList<Callable<Double>>(ranges.length - 1);
+                for (int i = 0; i + 1 < ranges.length; ++i) {
+                    final int from = ranges[i];
+                    final int to = ranges[i + 1];
+                    tasks.add(new Callable<Double>() {
+                        @Override
+                        public Double call() {
+                            double danglingRank = 0.0;
+                            for (int node = from; node < to; ++node) {
+                                if (outDegrees[node] == 0) {
+                                    danglingRank += current[node];
+                                    contributions[node] = 0.0;
+                                } else {
+                                    contributions[node] = current[node] / outDegrees[node];
+                                }
+                            }
+                            return danglingRank;
+                        }
+                    });
+                }
+                double danglingRank = sum(executor, tasks);
+
+                // Every node collects the rank of the nodes linking to it
+                final double base = (1.0 - damping + damping * danglingRank) / nodeCount;
+                final double[] result = next;
+                tasks.clear();
+                for (int i = 0; i + 1 < ranges.length; ++i) {
+                    final int from = ranges[i];
+                    final int to = ranges[i + 1];
+                    tasks.add(new Callable<Double>() {
+                        @Override
+                        public Double call() {
+                            double rankChange = 0.0;
+                            for (int node = from; node < to; ++node) {
+                                double sum = 0.0;
+                                for (int j = inOffsets[node]; j < inOffsets[node + 1]; ++j) {
+                                    sum += contributions[inSources[j]];
+                                }
+                                double rank = base + damping * sum;
+                                rankChange += Math.abs(rank - current[node]);
+                                result[node] = rank;
+                            }
+                            return rankChange;
+                        }
+                    });
+                }
+                this.change = sum(executor, tasks);
+                next = ranks;
+                ranks = result;
+                ++iterations;
+                if (change < tolerance)
+                    break;
+            }
+
+            float[] scaled = new float[nodeCount];
+            for (int i = 0; i < nodeCount; ++i) {
+                scaled[i] = (float) (ranks[i] * nodeCount);
+            }
+            return scaled;
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the nodes into ranges of about the same work, that are the nodes
+     * and the links to them.
+     * 
+     * @param inOffsets
+     *            The offsets of the links to every node
+     * @return The first node of every range and the number of nodes at last
+     */
+    private int[] createRanges(int[] inOffsets) {
+        int nodeCount = inOffsets.length - 1;
+        int rangeCount = threads == 1 ? 1 : threads * RANGES_PER_THREAD;
+        long work = (long) nodeCount + inOffsets[nodeCount];
+        long rangeWork = Math.max(1L, (work + rangeCount - 1) / rangeCount);
+
+        List<Integer> starts = new ArrayList<Integer>();
+        starts.add(0);
+        long nextStart = rangeWork;
+        for (int node = 0; node < nodeCount; ++node) {
+            // The work of all nodes before this node
+            if ((long) node + inOffsets[node] >= nextStart) {
+                starts.add(node);
+                nextStart = (long) node + inOffsets[node] + rangeWork;
+            }
+        }
+        starts.add(nodeCount);
+
+        int[] ranges = new int[starts.size()];
+        for (int i = 0; i < ranges.length; ++i) {
+            ranges[i] = starts.get(i);
+        }
+        return ranges;
+    }
+
+    private ExecutorService createExecutor() {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "PageRank-" + threadCounter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Runs the tasks and sums up their results.
+     * 
+     * @param executor
+     *            The executor running the tasks, <code>null</code> to run
+     *            them in the calling thread
+     * @param tasks
+     *            The tasks
+     * @return The sum of the results
+     * @throws InterruptedException
+     *             Interrupted while waiting for the tasks
+     */
+    private static double sum(ExecutorService executor, List<Callable<Double>> tasks) throws InterruptedException {
+        double sum = 0.0;
+        try {
+            if (executor == null) {
+                for (Callable<Double> task : tasks) {
+                    sum += task.call();
+                }
+                return sum;
+            }
+            for (Future<Double> future : executor.invokeAll(tasks)) {
+                sum += future.get();
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return sum;
+    }
+
+    /**
+     * @return The number of iterations of the last computation
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return The sum of the rank changes in the last iteration of the last
+     *         computation
+     */
+    public double getChange() {
+        return change;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+/**
+ * Calculates SimHash fingerprints of texts. Similar texts have fingerprints
+ * differing only in a few bits, so near duplicates can be found by the hamming
+ * distance of their fingerprints. The features of a text are its shingles of
+ * {@link #SHINGLE_SIZE} consecutive words.
+ */
+public final class SimHash {
+
+    /**
+     * Number of consecutive words forming a feature
+     */
+    public static final int SHINGLE_SIZE = 3;
+
+    private SimHash() {
+
+    }
+
+    /**
+     * Calculates the fingerprint of the text. The text is split into lower case
+     * words consisting of letters and digits.
+     * 
+     * @param text
+     *            The text
+     * @return The 64 bit fingerprint
+     */
+    public static long fingerprint(CharSequence text) {
+        int[] counters = new int[64];
+        // Hashes of the last words as ring buffer
+        long[] words = new long[SHINGLE_SIZE];
+        int wordCount = 0;
+
+        long wordHash = 0L;
+        boolean inWord = false;
+        for (int i = 0; i <= text.length(); ++i) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (!inWord) {
+                    wordHash = 0xcbf29ce484222325L;
+                    inWord = true;
+                }
+                wordHash ^= Character.toLowerCase(c);
+                wordHash *= 0x100000001b3L;
+            } else if (inWord) {
+                inWord = false;
+                words[wordCount % SHINGLE_SIZE] = wordHash;
+                ++wordCount;
+                if (wordCount >= SHINGLE_SIZE)
+                    addFeature(counters, shingleHash(words, wordCount));
+            }
+        }
+        // Texts shorter than a shingle
+        if (wordCount > 0 && wordCount < SHINGLE_SIZE)
+            addFeature(counters, shingleHash(words, wordCount));
+
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; ++bit) {
+            if (counters[bit] > 0)
+                fingerprint |= 1L << bit;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Checks whether the text has at least one full shingle. The fingerprint
+     * of a shorter text has at most one feature, the empty text has the
+     * fingerprint <code>0</code>.
+     * 
+     * @param text
+     *            The text
+     * @return <code>true</code> when the text has at least
+     *         {@link #SHINGLE_SIZE} words
+     */
+    public static boolean hasShingle(CharSequence text) {
+        int wordCount = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); ++i) {
+            if (Character.isLetterOrDigit(text.charAt(i))) {
+                if (!inWord && ++wordCount >= SHINGLE_SIZE)
+                    return true;
+                inWord = true;
+            } else {
+                inWord = false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combines the hashes of the last words in their order.
+     */
+    private static long shingleHash(long[] words, int wordCount) {
+        long hash = 0L;
+        int size = Math.min(wordCount, SHINGLE_SIZE);
+        for (int i = wordCount - size; i < wordCount; ++i) {
+            hash = hash * 31 + words[i % SHINGLE_SIZE];
+        }
+        return AbstractVisitedSet.mix(hash);
+    }
+
+    private static void addFeature(int[] counters, long hash) {
+        for (int bit = 0; bit < 64; ++bit) {
+            if ((hash & (1L << bit)) != 0)
+                ++counters[bit];
+            else
+                --counters[bit];
+        }
+    }
+
+    /**
+     * @param a
+     *            First fingerprint
+     * @param b
+     *            Second fingerprint
+     * @return The number of different bits
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.search.StandingQueryMatcher;
+
+/**
+ * Matches every crawled website against the standing queries before passing
+ * it to another handler. The matches are reported to a listener immediately,
+ * so the finished index doesn't have to be searched for them. The matching
+ * runs in the crawler workers.
+ */
+public class StandingQueryHandler implements CrawledWebsiteHandler {
+
+    private StandingQueryMatcher matcher;
+    private StandingQueryListener listener;
+    private CrawledWebsiteHandler handler;
+
+    /**
+     * @param matcher
+     *            The matcher containing the standing queries
+     * @param listener
+     *            Is notified about the matches
+     * @param handler
+     *            Handles the websites after matching
+     */
+    public StandingQueryHandler(StandingQueryMatcher matcher, StandingQueryListener listener, CrawledWebsiteHandler handler) {
+        this.matcher = matcher;
+        this.listener = listener;
+        this.handler = handler;
+    }
+
+    @Override
+    public void handle(CrawledWebsite website) throws InterruptedException {
+        try {
+            for (String query : matcher.match(website)) {
+                listener.matched(query, website);
+            }
+        } catch (RuntimeException e) {
+            // The website is indexed anyway
+            e.printStackTrace();
+        }
+        handler.handle(website);
+    }
+}
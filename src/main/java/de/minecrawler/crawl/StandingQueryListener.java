@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import de.minecrawler.data.CrawledWebsite;
+
+/**
+ * Is notified when a crawled website matches a standing query. The listener is
+ * called concurrently by the crawler workers and must be thread safe.
+ */
+public interface StandingQueryListener {
+
+    /**
+     * A crawled website matches a standing query.
+     * 
+     * @param query
+     *            The query string of the standing query
+     * @param website
+     *            The matching website
+     */
+    public void matched(String query, CrawledWebsite website);
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the title, the readable text and the links of a website in a single
+ * pass over the HTML without building a DOM. The result is close to
+ * <code>Document.title()</code>, <code>Document.text()</code> and the
+ * <code>href</code> attributes of Jsoup, but needs only a fraction of the
+ * memory and time. Only the first bytes of a website up to a limit are
+ * processed.
+ */
+public final class StreamingHtmlExtractor {
+
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+    // Bytes searched for a meta charset
+    private static final int CHARSET_SNIFF_BYTES = 1024;
+    private static final Pattern META_CHARSET = Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([a-zA-Z0-9_.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    // Elements separating their text from the preceding text
+    private static final Set<String> BLOCK_ELEMENTS = new HashSet<String>(Arrays.asList("address", "article", "aside", "blockquote", "body", "br", "dd", "div", "dl", "dt", "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "head", "header", "hr", "html", "li", "main", "nav", "ol", "option", "p", "pre", "section", "table", "tbody", "td", "tfoot", "th", "thead", "title", "tr", "ul"));
+
+    private StreamingHtmlExtractor() {
+
+    }
+
+    /**
+     * Extracts the content of a website.
+     * 
+     * @param body
+     *            The raw bytes of the website
+     * @param charset
+     *            The charset of the response, can be <code>null</code>. Then
+     *            a meta charset or UTF-8 is used
+     * @param url
+     *            The url of the website to resolve relative links
+     * @param maxBytes
+     *            The maximum number of bytes processed
+     * @return The extracted content
+     */
+    public static ExtractedContent extract(byte[] body, String charset, URL url, int maxBytes) {
+        int length = Math.min(body.length, maxBytes);
+        String html = new String(body, 0, length, detectCharset(body, length, charset));
+        return new Tokenizer(html, url).run();
+    }
+
+    /**
+     * @return The charset of the response, a meta charset of the first bytes
+     *         or UTF-8
+     */
+    private static Charset detectCharset(byte[] body, int length, String charset) {
+        if (charset == null) {
+            String head = new String(body, 0, Math.min(length, CHARSET_SNIFF_BYTES), Charset.forName("ISO-8859-1"));
+            Matcher matcher = META_CHARSET.matcher(head);
+            if (matcher.find())
+                charset = matcher.group(1);
+        }
+        try {
+            if (charset != null && Charset.isSupported(charset))
+                return Charset.forName(charset);
+        } catch (IllegalArgumentException e) {
+            // Illegal charset name
+        }
+        return DEFAULT_CHARSET;
+    }
+
+    /**
+     * Single pass tokenizer over the HTML.
+     */
+    private static class Tokenizer {
+
+        private String html;
+        private int pos;
+        private URL base;
+        private boolean hasBase;
+
+        private StringBuilder text;
+        private boolean pendingSpace;
+        private String title;
+        private List<String> links;
+        private String href;
+
+        public Tokenizer(String html, URL url) {
+            this.html = html;
+            this.pos = 0;
+            this.base = url;
+            this.text = new StringBuilder(html.length() / 4);
+            this.links = new ArrayList<String>();
+        }
+
+        public ExtractedContent run() {
+            int length = html.length();
+            while (pos < length) {
+                char c = html.charAt(pos);
+                if (c == '<')
+                    readMarkup();
+                else if (c == '&')
+                    appendText(readEntity());
+                else {
+                    appendText(c);
+                    ++pos;
+                }
+            }
+            return new ExtractedContent(title == null ? "" : title, text.toString(), links);
+        }
+
+        /**
+         * Reads a comment, a declaration or a tag starting at the current
+         * position.
+         */
+        private void readMarkup() {
+            if (html.startsWith("<!--", pos)) {
+                skipPast("-->", pos + 4);
+                return;
+            }
+            char next = pos + 1 < html.length() ? html.charAt(pos + 1) : ' ';
+            if (next == '!' || next == '?') {
+                skipPast(">", pos);
+                return;
+            }
+
+            boolean endTag = next == '/';
+            int nameStart = pos + (endTag ? 2 : 1);
+            int nameEnd = nameStart;
+            while (nameEnd < html.length() && isNameChar(html.charAt(nameEnd))) {
+                ++nameEnd;
+            }
+            if (nameEnd == nameStart || !Character.isLetter(html.charAt(nameStart))) {
+                if (endTag) {
+                    // Bogus end tag like Jsoup
+                    skipPast(">", pos);
+                    return;
+                }
+                // No tag, just a less than sign
+                appendText('<');
+                ++pos;
+                return;
+            }
+
+            String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ENGLISH);
+            href = null;
+            pos = readAttributes(nameEnd);
+            if (endTag)
+                return;
+            if (BLOCK_ELEMENTS.contains(name))
+                pendingSpace = true;
+
+            if (href != null)
+                handleHref(name, href);
+
+            if (name.equals("script") || name.equals("style"))
+                readRawText(name, false);
+            else if (name.equals("title") || name.equals("textarea"))
+                readRawText(name, true);
+        }
+
+        /**
+         * Reads the attributes of a tag and remembers the href attribute.
+         * 
+         * @param p
+         *            The position after the tag name
+         * @return The position after the tag
+         */
+        private int readAttributes(int p) {
+            int length = html.length();
+            while (p < length) {
+                char c = html.charAt(p);
+                if (c == '>')
+                    return p + 1;
+                if (isWhitespace(c) || c == '/') {
+                    ++p;
+                    continue;
+                }
+
+                int nameStart = p;
+                while (p < length && !isWhitespace(html.charAt(p)) && html.charAt(p) != '=' && html.charAt(p) != '>' && html.charAt(p) != '/') {
+                    ++p;
+                }
+                if (p == nameStart) {
+                    // Stray equal sign
+                    ++p;
+                    continue;
+                }
+                String name = html.substring(nameStart, p);
+                while (p < length && isWhitespace(html.charAt(p))) {
+                    ++p;
+                }
+                if (p >= length || html.charAt(p) != '=')
+                    continue;
+                ++p;
+                while (p < length && isWhitespace(html.charAt(p))) {
+                    ++p;
+                }
+
+                int valueStart;
+                int valueEnd;
+                if (p < length && (html.charAt(p) == '"' || html.charAt(p) == '\'')) {
+                    char quote = html.charAt(p);
+                    valueStart = p + 1;
+                    valueEnd = html.indexOf(quote, valueStart);
+                    if (valueEnd == -1)
+                        valueEnd = length;
+                    p = Math.min(length, valueEnd + 1);
+                } else {
+                    valueStart = p;
+                    while (p < length && !isWhitespace(html.charAt(p)) && html.charAt(p) != '>') {
+                        ++p;
+                    }
+                    valueEnd = p;
+                }
+                if (href == null && name.equalsIgnoreCase("href"))
+                    href = decodeEntities(html.substring(valueStart, valueEnd)).trim();
+            }
+            return length;
+        }
+
+        /**
+         * Resolves the href against the base url and adds it to the links. The
+         * first base element changes the base url.
+         */
+        private void handleHref(String tagName, String value) {
+            URL resolved;
+            try {
+                // Same as Jsoup: Relative queries keep the path
+                if (value.startsWith("?"))
+                    value = base.getPath() + value;
+                resolved = new URL(base, value);
+            } catch (MalformedURLException e) {
+                resolved = null;
+            }
+
+            if (tagName.equals("base") && !hasBase) {
+                hasBase = true;
+                if (resolved != null)
+                    base = resolved;
+            }
+            links.add(resolved == null ? "" : resolved.toExternalForm());
+        }
+
+        /**
+         * Reads the content of an element until its end tag.
+         * 
+         * @param name
+         *            The name of the element
+         * @param isText
+         *            <code>true</code> when the content is text, otherwise it
+         *            is skipped
+         */
+        private void readRawText(String name, boolean isText) {
+            int end = pos;
+            while ((end = html.indexOf("</", end)) != -1) {
+                if (html.regionMatches(true, end + 2, name, 0, name.length()))
+                    break;
+                end += 2;
+            }
+            if (end == -1)
+                end = html.length();
+
+            if (isText) {
+                String content = decodeEntities(html.substring(pos, end));
+                if (name.equals("title") && title == null)
+                    title = normalize(content);
+                appendText(content);
+            }
+            pos = end;
+            if (end < html.length())
+                skipPast(">", end);
+        }
+
+        private void skipPast(String token, int from) {
+            int end = html.indexOf(token, from);
+            pos = end == -1 ? html.length() : end + token.length();
+        }
+
+        /**
+         * Appends a character to the text, whitespace is collapsed.
+         */
+        private void appendText(char c) {
+            if (isWhitespace(c)) {
+                pendingSpace = true;
+                return;
+            }
+            if (pendingSpace && text.length() > 0)
+                text.append(' ');
+            pendingSpace = false;
+            text.append(c);
+        }
+
+        private void appendText(String s) {
+            for (int i = 0; i < s.length(); ++i) {
+                appendText(s.charAt(i));
+            }
+        }
+
+        /**
+         * Reads the entity at the current position.
+         * 
+         * @return The decoded entity or the ampersand, when it is no entity
+         */
+        private String readEntity() {
+            int end = html.indexOf(';', pos);
+            if (end != -1 && end - pos <= 10) {
+                String decoded = decodeEntity(html.substring(pos + 1, end));
+                if (decoded != null) {
+                    pos = end + 1;
+                    return decoded;
+                }
+            }
+            ++pos;
+            return "&";
+        }
+    }
+
+    /**
+     * Decodes all entities in the string.
+     */
+    private static String decodeEntities(String s) {
+        int amp = s.indexOf('&');
+        if (amp == -1)
+            return s;
+
+        StringBuilder sBuilder = new StringBuilder(s.length());
+        int last = 0;
+        while (amp != -1) {
+            sBuilder.append(s, last, amp);
+            int end = s.indexOf(';', amp);
+            String decoded = (end != -1 && end - amp <= 10) ? decodeEntity(s.substring(amp + 1, end)) : null;
+            if (decoded != null) {
+                sBuilder.append(decoded);
+                last = end + 1;
+            } else {
+                sBuilder.append('&');
+                last = amp + 1;
+            }
+            amp = s.indexOf('&', last);
+        }
+        sBuilder.append(s, last, s.length());
+        return sBuilder.toString();
+    }
+
+    /**
+     * Decodes numeric entities and the most common named entities.
+     * 
+     * @param entity
+     *            The entity without ampersand and semicolon
+     * @return <code>Null</code> when the entity is unknown
+     */
+    private static String decodeEntity(String entity) {
+        if (entity.startsWith("#")) {
+            try {
+                int codePoint;
+                if (entity.startsWith("#x") || entity.startsWith("#X"))
+                    codePoint = Integer.parseInt(entity.substring(2), 16);
+                else
+                    codePoint = Integer.parseInt(entity.substring(1));
+                return new String(Character.toChars(codePoint));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        if (entity.equals("amp"))
+            return "&";
+        if (entity.equals("lt"))
+            return "<";
+        if (entity.equals("gt"))
+            return ">";
+        if (entity.equals("quot"))
+            return "\"";
+        if (entity.equals("apos"))
+            return "'";
+        if (entity.equals("nbsp"))
+            return "\u00a0";
+        if (entity.equals("auml"))
+            return "\u00e4";
+        if (entity.equals("ouml"))
+            return "\u00f6";
+        if (entity.equals("uuml"))
+            return "\u00fc";
+        if (entity.equals("Auml"))
+            return "\u00c4";
+        if (entity.equals("Ouml"))
+            return "\u00d6";
+        if (entity.equals("Uuml"))
+            return "\u00dc";
+        if (entity.equals("szlig"))
+            return "\u00df";
+        if (entity.equals("euro"))
+            return "\u20ac";
+        if (entity.equals("copy"))
+            return "\u00a9";
+        return null;
+    }
+
+    /**
+     * Collapses whitespace and trims the string.
+     */
+    private static String normalize(String s) {
+        StringBuilder sBuilder = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (isWhitespace(c)) {
+                space = true;
+            } else {
+                if (space && sBuilder.length() > 0)
+                    sBuilder.append(' ');
+                space = false;
+                sBuilder.append(c);
+            }
+        }
+        return sBuilder.toString();
+    }
+
+    // Same whitespace as Jsoup, the non breaking space is no whitespace
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == ':';
+    }
+}
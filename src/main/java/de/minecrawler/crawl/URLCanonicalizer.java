@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Helper class to bring urls in a canonical form. Urls pointing to the same
+ * website, but written differently, have the same canonical form. This is used
+ * to detect already visited websites.
+ */
+public final class URLCanonicalizer {
+
+    private URLCanonicalizer() {
+
+    }
+
+    /**
+     * Creates the canonical form of the url:
+     * <ul>
+     * <li>The fragment and the user info are removed</li>
+     * <li>Protocol and host are lower case</li>
+     * <li>The default port of the protocol is removed</li>
+     * <li>An empty path is replaced by "/" and dot segments are resolved</li>
+     * <li>Percent encodings are upper case</li>
+     * <li>The parameters of the query are sorted, an empty query is removed</li>
+     * </ul>
+     * 
+     * @param url
+     *            The url to canonicalize
+     * @return <code>Null</code> if the url can't be canonicalized. Otherwise
+     *         the url in its canonical form
+     */
+    public static URL canonicalize(URL url) {
+        String protocol = url.getProtocol().toLowerCase(Locale.ENGLISH);
+        String host = url.getHost().toLowerCase(Locale.ENGLISH);
+        if (host.endsWith("."))
+            host = host.substring(0, host.length() - 1);
+        if (host.isEmpty())
+            return null;
+
+        int port = url.getPort();
+        if (port == url.getDefaultPort())
+            port = -1;
+
+        String path = normalizePath(url.getPath());
+        String query = normalizeQuery(url.getQuery());
+
+        StringBuilder sBuilder = new StringBuilder();
+        sBuilder.append(protocol).append("://").append(host);
+        if (port != -1)
+            sBuilder.append(':').append(port);
+        sBuilder.append(path);
+        if (query != null)
+            sBuilder.append('?').append(query);
+
+        try {
+            return new URL(sBuilder.toString());
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves dot segments of the path and upper cases percent encodings.
+     * 
+     * @param path
+     *            The path of the url, can be empty
+     * @return The normalized path, at least "/"
+     */
+    private static String normalizePath(String path) {
+        if (path.isEmpty())
+            return "/";
+        path = upperCaseEncodings(path);
+        if (!path.contains("/."))
+            return path;
+
+        // Remove the dot segments, the path always starts with a slash
+        String[] segments = path.split("/", -1);
+        List<String> output = new ArrayList<String>(segments.length);
+        for (int i = 1; i < segments.length; ++i) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (segment.equals(".")) {
+                if (last)
+                    output.add("");
+            } else if (segment.equals("..")) {
+                if (!output.isEmpty())
+                    output.remove(output.size() - 1);
+                if (last)
+                    output.add("");
+            } else {
+                output.add(segment);
+            }
+        }
+
+        StringBuilder sBuilder = new StringBuilder(path.length());
+        for (String segment : output) {
+            sBuilder.append('/').append(segment);
+        }
+        return sBuilder.length() == 0 ? "/" : sBuilder.toString();
+    }
+
+    /**
+     * Sorts the parameters of the query and removes empty parameters.
+     * 
+     * @param query
+     *            The query of the url, can be <code>null</code>
+     * @return <code>Null</code> when the query is empty, otherwise the sorted
+     *         query
+     */
+    private static String normalizeQuery(String query) {
+        if (query == null || query.isEmpty())
+            return null;
+
+        String[] params = upperCaseEncodings(query).split("&");
+        Arrays.sort(params);
+
+        StringBuilder sBuilder = new StringBuilder(query.length());
+        for (String param : params) {
+            if (param.isEmpty())
+                continue;
+            if (sBuilder.length() > 0)
+                sBuilder.append('&');
+            sBuilder.append(param);
+        }
+        return sBuilder.length() == 0 ? null : sBuilder.toString();
+    }
+
+    /**
+     * Upper cases the hex digits of all percent encodings, e.g. %2f becomes
+     * %2F.
+     * 
+     * @param s
+     *            The string to convert
+     * @return The converted string
+     */
+    private static String upperCaseEncodings(String s) {
+        if (s.indexOf('%') == -1)
+            return s;
+
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length - 2; ++i) {
+            if (chars[i] == '%') {
+                chars[i + 1] = Character.toUpperCase(chars[i + 1]);
+                chars[i + 2] = Character.toUpperCase(chars[i + 2]);
+                i += 2;
+            }
+        }
+        return new String(chars);
+    }
+}
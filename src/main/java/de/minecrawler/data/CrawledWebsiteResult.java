@@ -19,14 +19,15 @@
 package de.minecrawler.data;
 
 /**
- * Wrapper class to contain the result information (score and rank) of the
- * search and its corresponding website
+ * Wrapper class to contain the result information (score, rank and snippet) of
+ * the search and its corresponding website
  */
 public class CrawledWebsiteResult {
 
     private CrawledWebsite website;
     private int rank;
     private float score;
+    private String snippet;
 
     /**
      * @param website
@@ -37,9 +38,24 @@ public class CrawledWebsiteResult {
      *            Score of the search (higher score is a better rank)
      */
     public CrawledWebsiteResult(CrawledWebsite website, int rank, float score) {
+        this(website, rank, score, null);
+    }
+
+    /**
+     * @param website
+     *            The crawled website having the rank and the score
+     * @param rank
+     *            Rank of the search (lower is better)
+     * @param score
+     *            Score of the search (higher score is a better rank)
+     * @param snippet
+     *            Passages of the text containing the query terms
+     */
+    public CrawledWebsiteResult(CrawledWebsite website, int rank, float score, String snippet) {
         this.website = website;
         this.rank = rank;
         this.score = score;
+        this.snippet = snippet;
     }
 
     /**
@@ -57,7 +73,16 @@ public class CrawledWebsiteResult {
     }
 
     /**
-     * @return The crawled website having the rank and the score
+     * @return Passages of the text containing the highlighted query terms.
+     *         <code>Null</code> when no passage was found
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * @return The crawled website having the rank and the score. The body of
+     *         the website is not loaded by the search
      */
     public CrawledWebsite getWebsite() {
         return website;
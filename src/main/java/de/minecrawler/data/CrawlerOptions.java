@@ -0,0 +1,676 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.minecrawler.Crawler;
+import de.minecrawler.crawl.DuplicateDetector;
+import de.minecrawler.search.DirectoryType;
+
+/**
+ * Container class for the options of the {@link Crawler}. All options have
+ * reasonable default values.
+ */
+public class CrawlerOptions {
+
+    /**
+     * Default number of threads fetching websites in parallel
+     */
+    public static final int DEFAULT_THREADS = 16;
+
+    /**
+     * Probability of wrongly skipped urls when using a Bloom filter
+     */
+    public static final double BLOOM_FILTER_FALSE_POSITIVE_RATE = 0.0001;
+
+    /**
+     * Default number of crawled websites waiting for the indexing
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 256;
+
+    /**
+     * Default maximum number of bytes read of a website
+     */
+    public static final int DEFAULT_MAX_RESPONSE_SIZE = 1024 * 1024;
+
+    /**
+     * Default maximum number of parallel requests per host
+     */
+    public static final int DEFAULT_MAX_HOST_REQUESTS = 8;
+
+    /**
+     * Default time between two checkpoints of a crawl in seconds
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 60L;
+
+    /**
+     * Default size of the buffer for added websites in megabytes before they
+     * are written to the index
+     */
+    public static final int DEFAULT_RAM_BUFFER_SIZE = 64;
+
+    /**
+     * Default maximum number of websites added at once to the index
+     */
+    public static final int DEFAULT_INDEX_BATCH_SIZE = 32;
+
+    private int threads = DEFAULT_THREADS;
+    private int maxHostRequests = DEFAULT_MAX_HOST_REQUESTS;
+    private long hostDelay = 0L;
+    private int maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
+    private int bloomFilterSize = 0;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private int indexThreads = 1;
+    private int searchThreads = 1;
+    private int maxSegmentSize = 0;
+    private int ramBufferSize = DEFAULT_RAM_BUFFER_SIZE;
+    private int mergeThreads = 0;
+    private int indexBatchSize = DEFAULT_INDEX_BATCH_SIZE;
+    private int forceMerge = 0;
+    private DirectoryType directoryType = DirectoryType.AUTO;
+    private List<String> standingQueries = Collections.emptyList();
+    private boolean externalBodies = false;
+    private float pageRankWeight = 0F;
+    private boolean sortedIndex = false;
+    private int earlyTermination = 0;
+    private int shards = 1;
+    private boolean incrementalRefresh = false;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private int nearDuplicateDistance = -1;
+    private int streamingExtractionLimit = 0;
+
+    private long maxPages = 0L;
+    private long maxBytes = 0L;
+    private long maxTime = 0L;
+    private int maxPagesPerHost = 0;
+
+    /**
+     * @return The number of threads fetching websites in parallel
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads
+     *            The number of threads fetching websites in parallel. Must be
+     *            positive
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads must be positive!");
+        this.threads = threads;
+    }
+
+    /**
+     * @return The maximum number of parallel requests per host
+     */
+    public int getMaxHostRequests() {
+        return maxHostRequests;
+    }
+
+    /**
+     * @param maxHostRequests
+     *            The maximum number of parallel requests per host. The crawler
+     *            starts with less and adapts to the speed of the host. Must be
+     *            positive
+     */
+    public void setMaxHostRequests(int maxHostRequests) {
+        if (maxHostRequests < 1)
+            throw new IllegalArgumentException("Maximum requests per host must be positive!");
+        this.maxHostRequests = maxHostRequests;
+    }
+
+    /**
+     * @return The minimum delay between two requests to a host in milliseconds
+     */
+    public long getHostDelay() {
+        return hostDelay;
+    }
+
+    /**
+     * @param hostDelay
+     *            The minimum delay between two requests to a host in
+     *            milliseconds. The delay is increased when the host is
+     *            overloaded
+     */
+    public void setHostDelay(long hostDelay) {
+        if (hostDelay < 0)
+            throw new IllegalArgumentException("Host delay must not be negative!");
+        this.hostDelay = hostDelay;
+    }
+
+    /**
+     * @return The maximum number of bytes read of a website
+     */
+    public int getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    /**
+     * @param maxResponseSize
+     *            The maximum number of bytes read of a website, larger
+     *            websites are truncated. Must be positive
+     */
+    public void setMaxResponseSize(int maxResponseSize) {
+        if (maxResponseSize < 1)
+            throw new IllegalArgumentException("Maximum response size must be positive!");
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    /**
+     * @return The number of expected urls the Bloom filter is sized for.
+     *         <code>0</code> when an exact visited set is used
+     */
+    public int getBloomFilterSize() {
+        return bloomFilterSize;
+    }
+
+    /**
+     * Use a Bloom filter instead of an exact set to remember visited urls. The
+     * Bloom filter has a fixed memory size and is useful for very large crawls,
+     * but may skip some websites.
+     * 
+     * @param bloomFilterSize
+     *            The number of expected urls. <code>0</code> to use an exact
+     *            visited set
+     */
+    public void setBloomFilterSize(int bloomFilterSize) {
+        if (bloomFilterSize < 0)
+            throw new IllegalArgumentException("Bloom filter size must not be negative!");
+        this.bloomFilterSize = bloomFilterSize;
+    }
+
+    /**
+     * @return The maximum number of crawled websites waiting for the indexing.
+     *         <code>0</code> when the websites are indexed after the crawl
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Crawled websites are indexed while crawling using a queue of this size.
+     * The crawler waits while the queue is full.
+     * 
+     * @param queueSize
+     *            The maximum number of crawled websites waiting for the
+     *            indexing. <code>0</code> to index all websites after the crawl
+     */
+    public void setQueueSize(int queueSize) {
+        if (queueSize < 0)
+            throw new IllegalArgumentException("Queue size must not be negative!");
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * @return The number of threads indexing the crawled websites while
+     *         crawling
+     */
+    public int getIndexThreads() {
+        return indexThreads;
+    }
+
+    /**
+     * @param indexThreads
+     *            The number of threads indexing the crawled websites while
+     *            crawling. Must be positive
+     */
+    public void setIndexThreads(int indexThreads) {
+        if (indexThreads < 1)
+            throw new IllegalArgumentException("Number of index threads must be positive!");
+        this.indexThreads = indexThreads;
+    }
+
+    /**
+     * @return <code>true</code> when expired caches are refreshed
+     *         incrementally instead of crawled again
+     */
+    public boolean isIncrementalRefresh() {
+        return incrementalRefresh;
+    }
+
+    /**
+     * Refresh expired caches incrementally: Websites are requested
+     * conditionally and only new and changed websites are indexed again.
+     * 
+     * @param incrementalRefresh
+     *            <code>true</code> to refresh expired caches incrementally
+     */
+    public void setIncrementalRefresh(boolean incrementalRefresh) {
+        this.incrementalRefresh = incrementalRefresh;
+    }
+
+    /**
+     * @return The time between two checkpoints of a crawl in seconds,
+     *         <code>0</code> when no checkpoints are written
+     */
+    public long getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Write checkpoints of a crawl periodically, so a crashed crawl is resumed
+     * on the next start. Checkpoints are only written, when the websites are
+     * indexed while crawling.
+     * 
+     * @param checkpointInterval
+     *            The time between two checkpoints in seconds, <code>0</code>
+     *            to write no checkpoints
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        if (checkpointInterval < 0)
+            throw new IllegalArgumentException("Checkpoint interval must not be negative!");
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * @return The maximum number of different fingerprint bits of near
+     *         duplicate websites. <code>-1</code> when duplicates are indexed
+     */
+    public int getNearDuplicateDistance() {
+        return nearDuplicateDistance;
+    }
+
+    /**
+     * Skip exact and near duplicate websites while crawling. Near duplicates
+     * are detected by the hamming distance of their SimHash fingerprints.
+     * 
+     * @param nearDuplicateDistance
+     *            The maximum number of different fingerprint bits, at most
+     *            {@link DuplicateDetector#MAX_DISTANCE}. <code>0</code> to skip
+     *            only exact duplicates, <code>-1</code> to index duplicates
+     */
+    public void setNearDuplicateDistance(int nearDuplicateDistance) {
+        if (nearDuplicateDistance < -1 || nearDuplicateDistance > DuplicateDetector.MAX_DISTANCE)
+            throw new IllegalArgumentException("Distance must be between -1 and " + DuplicateDetector.MAX_DISTANCE + "!");
+        this.nearDuplicateDistance = nearDuplicateDistance;
+    }
+
+    /**
+     * @return The maximum number of bytes of a website processed by the
+     *         streaming extractor. <code>0</code> when websites are parsed
+     *         into a DOM
+     */
+    public int getStreamingExtractionLimit() {
+        return streamingExtractionLimit;
+    }
+
+    /**
+     * Extract the title, text and links of a website in a single pass without
+     * building a DOM.
+     * 
+     * @param streamingExtractionLimit
+     *            The maximum number of bytes of a website processed by the
+     *            streaming extractor. <code>0</code> to parse websites into a
+     *            DOM
+     */
+    public void setStreamingExtractionLimit(int streamingExtractionLimit) {
+        if (streamingExtractionLimit < 0)
+            throw new IllegalArgumentException("Extraction limit must not be negative!");
+        this.streamingExtractionLimit = streamingExtractionLimit;
+    }
+
+    /**
+     * @return The maximum number of fetched websites, <code>0</code> for no
+     *         limit
+     */
+    public long getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * @param maxPages
+     *            The maximum number of fetched websites, <code>0</code> for no
+     *            limit
+     */
+    public void setMaxPages(long maxPages) {
+        if (maxPages < 0)
+            throw new IllegalArgumentException("Maximum number of websites must not be negative!");
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * @return The maximum number of downloaded bytes, <code>0</code> for no
+     *         limit
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @param maxBytes
+     *            The maximum number of downloaded bytes, <code>0</code> for no
+     *            limit
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("Maximum number of bytes must not be negative!");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The maximum duration of the crawl in seconds, <code>0</code> for
+     *         no limit
+     */
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * @param maxTime
+     *            The maximum duration of the crawl in seconds, <code>0</code>
+     *            for no limit
+     */
+    public void setMaxTime(long maxTime) {
+        if (maxTime < 0)
+            throw new IllegalArgumentException("Maximum crawl time must not be negative!");
+        this.maxTime = maxTime;
+    }
+
+    /**
+     * @return The maximum number of fetched websites per host, <code>0</code>
+     *         for no limit
+     */
+    public int getMaxPagesPerHost() {
+        return maxPagesPerHost;
+    }
+
+    /**
+     * @param maxPagesPerHost
+     *            The maximum number of fetched websites per host,
+     *            <code>0</code> for no limit
+     */
+    public void setMaxPagesPerHost(int maxPagesPerHost) {
+        if (maxPagesPerHost < 0)
+            throw new IllegalArgumentException("Maximum number of websites per host must not be negative!");
+        this.maxPagesPerHost = maxPagesPerHost;
+    }
+
+    /**
+     * @return The number of threads searching the segments of the index in
+     *         parallel for a single query
+     */
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+
+    /**
+     * @param searchThreads
+     *            The number of threads searching the segments of the index in
+     *            parallel for a single query. Must be positive, <code>1</code>
+     *            searches all segments in the calling thread
+     */
+    public void setSearchThreads(int searchThreads) {
+        if (searchThreads < 1)
+            throw new IllegalArgumentException("Number of search threads must be positive!");
+        this.searchThreads = searchThreads;
+    }
+
+    /**
+     * @return The maximum size of a merged segment of the index in megabytes,
+     *         <code>0</code> for the default of Lucene
+     */
+    public int getMaxSegmentSize() {
+        return maxSegmentSize;
+    }
+
+    /**
+     * Limits the size of merged segments. A large index consists of more
+     * segments, which are searched in parallel when there are multiple search
+     * threads.
+     * 
+     * @param maxSegmentSize
+     *            The maximum size of a merged segment of the index in
+     *            megabytes, <code>0</code> for the default of Lucene
+     */
+    public void setMaxSegmentSize(int maxSegmentSize) {
+        if (maxSegmentSize < 0)
+            throw new IllegalArgumentException("Maximum segment size must not be negative!");
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * @return The size of the buffer for added websites in megabytes before
+     *         they are written to the index
+     */
+    public int getRamBufferSize() {
+        return ramBufferSize;
+    }
+
+    /**
+     * @param ramBufferSize
+     *            The size of the buffer for added websites in megabytes before
+     *            they are written to the index. Larger buffers create fewer
+     *            segments to merge. Must be positive
+     */
+    public void setRamBufferSize(int ramBufferSize) {
+        if (ramBufferSize < 1)
+            throw new IllegalArgumentException("RAM buffer size must be positive!");
+        this.ramBufferSize = ramBufferSize;
+    }
+
+    /**
+     * @return The number of threads merging segments of the index in the
+     *         background, <code>0</code> for the default of Lucene
+     */
+    public int getMergeThreads() {
+        return mergeThreads;
+    }
+
+    /**
+     * @param mergeThreads
+     *            The number of threads merging segments of the index in the
+     *            background, <code>0</code> for the default of Lucene
+     */
+    public void setMergeThreads(int mergeThreads) {
+        if (mergeThreads < 0)
+            throw new IllegalArgumentException("Number of merge threads must not be negative!");
+        this.mergeThreads = mergeThreads;
+    }
+
+    /**
+     * @return The maximum number of websites added at once to the index
+     */
+    public int getIndexBatchSize() {
+        return indexBatchSize;
+    }
+
+    /**
+     * @param indexBatchSize
+     *            The maximum number of websites added at once to the index.
+     *            Must be positive
+     */
+    public void setIndexBatchSize(int indexBatchSize) {
+        if (indexBatchSize < 1)
+            throw new IllegalArgumentException("Index batch size must be positive!");
+        this.indexBatchSize = indexBatchSize;
+    }
+
+    /**
+     * @return The maximum number of segments the index is merged to after
+     *         crawling, <code>0</code> when the index is not merged
+     */
+    public int getForceMerge() {
+        return forceMerge;
+    }
+
+    /**
+     * Merges the index after crawling. A merged index is searched faster by a
+     * single thread, but merging a large index takes long.
+     * 
+     * @param forceMerge
+     *            The maximum number of segments the index is merged to,
+     *            <code>0</code> to not merge the index
+     */
+    public void setForceMerge(int forceMerge) {
+        if (forceMerge < 0)
+            throw new IllegalArgumentException("Number of segments must not be negative!");
+        this.forceMerge = forceMerge;
+    }
+
+    /**
+     * @return The implementation of the directory containing the index
+     */
+    public DirectoryType getDirectoryType() {
+        return directoryType;
+    }
+
+    /**
+     * @param directoryType
+     *            The implementation of the directory containing the index
+     */
+    public void setDirectoryType(DirectoryType directoryType) {
+        if (directoryType == null)
+            throw new IllegalArgumentException("Directory type must not be null!");
+        this.directoryType = directoryType;
+    }
+
+    /**
+     * @return The standing queries every crawled website is matched against,
+     *         empty when no alerts are reported
+     */
+    public List<String> getStandingQueries() {
+        return standingQueries;
+    }
+
+    /**
+     * Reports every crawled website matching a standing query immediately.
+     * 
+     * @param standingQueries
+     *            The standing queries every crawled website is matched
+     *            against, empty to report no alerts
+     */
+    public void setStandingQueries(List<String> standingQueries) {
+        if (standingQueries == null)
+            throw new IllegalArgumentException("Standing queries must not be null!");
+        this.standingQueries = new ArrayList<String>(standingQueries);
+    }
+
+    /**
+     * @return <code>true</code> when the bodies of the websites are stored
+     *         compressed beside the index instead of in the index
+     */
+    public boolean isExternalBodies() {
+        return externalBodies;
+    }
+
+    /**
+     * Stores the bodies of the websites compressed beside the index. The
+     * index becomes smaller and is merged faster, the bodies are only read for
+     * snippets of hits. A cache keeps the way it was created with.
+     * 
+     * @param externalBodies
+     *            <code>true</code> to store the bodies beside the index
+     */
+    public void setExternalBodies(boolean externalBodies) {
+        this.externalBodies = externalBodies;
+    }
+
+    /**
+     * @return The influence of the PageRank of a website on its score,
+     *         <code>0</code> when the PageRank is not used
+     */
+    public float getPageRankWeight() {
+        return pageRankWeight;
+    }
+
+    /**
+     * Computes the PageRank of the crawled websites after crawling and boosts
+     * the score of a hit by its PageRank. The score is multiplied with the
+     * PageRank to the power of the weight, the average PageRank is
+     * <code>1</code>.
+     * 
+     * @param pageRankWeight
+     *            The influence of the PageRank on the score, <code>0</code>
+     *            to neither compute nor use the PageRank
+     */
+    public void setPageRankWeight(float pageRankWeight) {
+        if (pageRankWeight < 0F || Float.isNaN(pageRankWeight) || Float.isInfinite(pageRankWeight))
+            throw new IllegalArgumentException("PageRank weight must not be negative!");
+        this.pageRankWeight = pageRankWeight;
+    }
+
+    /**
+     * @return <code>true</code> when the index is sorted by the PageRank of
+     *         the websites after crawling
+     */
+    public boolean isSortedIndex() {
+        return sortedIndex;
+    }
+
+    /**
+     * Sorts the index by the PageRank of the websites after crawling, the
+     * websites with the highest PageRank first. A sorted index can be
+     * searched with early termination.
+     * 
+     * @param sortedIndex
+     *            <code>true</code> to sort the index
+     */
+    public void setSortedIndex(boolean sortedIndex) {
+        this.sortedIndex = sortedIndex;
+    }
+
+    /**
+     * @return The number of hits collected per sorted index segment,
+     *         <code>0</code> when all hits are collected
+     */
+    public int getEarlyTermination() {
+        return earlyTermination;
+    }
+
+    /**
+     * Stops collecting the hits of a segment sorted by the PageRank after
+     * this number of hits. The search is faster, but hits with a low PageRank
+     * and a high score may be missed.
+     * 
+     * @param earlyTermination
+     *            The number of hits collected per sorted segment,
+     *            <code>0</code> to collect all hits
+     */
+    public void setEarlyTermination(int earlyTermination) {
+        if (earlyTermination < 0)
+            throw new IllegalArgumentException("Number of collected hits must not be negative!");
+        this.earlyTermination = earlyTermination;
+    }
+
+    /**
+     * @return The number of shards a new index is split into
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Splits a new index into shards by the host of the websites. The shards
+     * are written and searched in parallel. A cache keeps the way it was
+     * created with.
+     * 
+     * @param shards
+     *            The number of shards, <code>1</code> for a single index
+     */
+    public void setShards(int shards) {
+        if (shards < 1)
+            throw new IllegalArgumentException("Number of shards must be positive!");
+        this.shards = shards;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.data;
+
+import java.util.List;
+
+/**
+ * Container class for a page of search results and the cursor to the next
+ * page.
+ */
+public class SearchPage {
+
+    private List<CrawledWebsiteResult> results;
+    private int totalHits;
+    private String nextCursor;
+
+    /**
+     * @param results
+     *            The results of the page
+     * @param totalHits
+     *            The number of all hits of the query
+     * @param nextCursor
+     *            The cursor to the next page, <code>null</code> when this is
+     *            the last page
+     */
+    public SearchPage(List<CrawledWebsiteResult> results, int totalHits, String nextCursor) {
+        this.results = results;
+        this.totalHits = totalHits;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return The results of the page
+     */
+    public List<CrawledWebsiteResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return The number of all hits of the query
+     */
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * @return The cursor to the next page, <code>null</code> when this is the
+     *         last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
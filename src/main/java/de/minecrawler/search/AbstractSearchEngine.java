@@ -20,28 +20,73 @@ package de.minecrawler.search;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.sorter.EarlyTerminatingSortingCollector;
+import org.apache.lucene.index.sorter.NumericDocValuesSorter;
+import org.apache.lucene.index.sorter.Sorter;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleFragmenter;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.search.postingshighlight.PassageFormatter;
+import org.apache.lucene.search.postingshighlight.PostingsHighlighter;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.Version;
 
+import de.minecrawler.cache.BodyStore;
 import de.minecrawler.data.CrawledWebsite;
 import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.SearchPage;
 
 /**
  * General class for search engine providig a Lucene based search on a
- * directory. The implementation defines the directory for the index.
+ * directory. The implementation defines the directory for the index. <br>
+ * All queries share one searcher, which is reopened only when the index has
+ * changed. The results of repeated queries are answered by a
+ * {@link QueryResultCache} until the index changes. The search is thread safe. <br>
+ * The results contain a snippet with the highlighted query terms instead of
+ * the body, the body is loaded on request by {@link #loadBody(String)}. <br>
+ * With multiple search threads the segments of the index are searched in
+ * parallel and the best hits of the segments are merged. <br>
+ * The bodies are either stored in the index or in a {@link BodyStore} beside
+ * the index. Then the index contains only the offset of the body in the store. <br>
+ * The score of the hits can be boosted by their PageRank stored in the doc
+ * values of the index, see {@link #setPageRankWeight(float)}. The segments of
+ * an index sorted by the PageRank can be searched with early termination, see
+ * {@link #setEarlyTermination(int)}. <br>
+ * The latencies of the phases of every query and the number of queries, cache
+ * hits and errors are recorded in the {@link SearchMetrics}.
  */
 public abstract class AbstractSearchEngine {
 
@@ -53,13 +98,69 @@ public abstract class AbstractSearchEngine {
     protected static final String FIELD_TITLE = "title";
     protected static final String FIELD_BODY = "body";
     protected static final String FIELD_URL = "url";
+    // Offset of the body in the body store
+    protected static final String FIELD_BODY_REF = "bodyRef";
+    // PageRank of the website as float doc values
+    protected static final String FIELD_PAGE_RANK = "pageRank";
+
+    // Sorts the segments by the PageRank, the highest PageRank first
+    protected static final Sorter PAGE_RANK_SORTER = new NumericDocValuesSorter(FIELD_PAGE_RANK, false);
 
     private static final String[] FIELDS = {FIELD_BODY, FIELD_TITLE};
 
+    // Stored fields loaded for a result
+    private static final Set<String> RESULT_FIELDS = new HashSet<String>(Arrays.asList(FIELD_TITLE, FIELD_URL));
+    private static final Set<String> BODY_FIELDS = new HashSet<String>(Arrays.asList(FIELD_BODY, FIELD_BODY_REF));
+    private static final Set<String> URL_FIELDS = Collections.singleton(FIELD_URL);
+
+    // Number of passages in a snippet
+    private static final int MAX_PASSAGES = 2;
+    private static final String PASSAGE_SEPARATOR = "... ";
+    private static final int MAX_PASSAGE_LENGTH = 160;
+    private static final SnippetFormatter SNIPPET_FORMATTER = new SnippetFormatter(MAX_PASSAGE_LENGTH);
+
     protected final static Version LUCENE_VERSION = Version.LUCENE_46;
     protected final static Analyzer ANALYZER = new StandardAnalyzer(LUCENE_VERSION);
 
     protected Directory dir;
+    // Null when the bodies are stored in the index
+    protected BodyStore bodyStore;
+
+    // Uses the offsets of the postings, see LiveSearchEngine
+    private final PostingsHighlighter highlighter = new PostingsHighlighter() {
+        @Override
+        protected PassageFormatter getFormatter(String field) {
+            return SNIPPET_FORMATTER;
+        }
+
+        @Override
+        protected String[][] loadFieldValues(IndexSearcher searcher, String[] fields, int[] docids, int maxLength) throws IOException {
+            if (bodyStore == null)
+                return super.loadFieldValues(searcher, fields, docids, maxLength);
+
+            // Only the body is highlighted
+            String[][] contents = new String[fields.length][docids.length];
+            for (int i = 0; i < docids.length; ++i) {
+                String body = loadBody(searcher, docids[i]);
+                if (body == null)
+                    body = "";
+                else if (body.length() > maxLength)
+                    body = body.substring(0, maxLength);
+                for (int j = 0; j < fields.length; ++j) {
+                    contents[j][i] = body;
+                }
+            }
+            return contents;
+        }
+    };
+
+    private SearcherManager searcherManager;
+    private int searchThreads = 1;
+    private volatile float pageRankWeight = 0F;
+    private volatile int earlyTermination = 0;
+    private ExecutorService searchExecutor;
+    private volatile QueryResultCache resultCache = new QueryResultCache();
+    private volatile SearchMetrics metrics = new SearchMetrics();
 
     /**
      * Creates a directory for the index.
@@ -70,6 +171,94 @@ public abstract class AbstractSearchEngine {
      */
     protected abstract Directory createDirectory(Object... args);
 
+    /**
+     * Creates the manager for the shared searcher. The index must exist.
+     * 
+     * @return A manager for the searcher on the index
+     * @throws IOException
+     *             Error while opening the index
+     */
+    protected SearcherManager createSearcherManager() throws IOException {
+        return new SearcherManager(dir, createSearcherFactory());
+    }
+
+    /**
+     * Creates the factory for the shared searcher. The searcher uses the
+     * search threads to search the segments in parallel.
+     * 
+     * @return <code>Null</code> when the segments are searched in the calling
+     *         thread, otherwise the factory creating the searcher
+     */
+    protected SearcherFactory createSearcherFactory() {
+        if (searchThreads < 2)
+            return null;
+
+        final AtomicInteger threadCounter = new AtomicInteger();
+        searchExecutor = Executors.newFixedThreadPool(searchThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SearchEngine-Search-" + threadCounter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final ExecutorService executor = searchExecutor;
+        return new SearcherFactory() {
+            @Override
+            public IndexSearcher newSearcher(IndexReader reader) throws IOException {
+                return new IndexSearcher(reader, executor);
+            }
+        };
+    }
+
+    /**
+     * @return The number of threads searching the segments of the index in
+     *         parallel for a single query
+     */
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+
+    /**
+     * Sets the number of threads searching the segments of the index in
+     * parallel. Must be called before the first search.
+     * 
+     * @param searchThreads
+     *            The number of threads, <code>1</code> to search all segments
+     *            in the calling thread
+     */
+    public synchronized void setSearchThreads(int searchThreads) {
+        if (searchThreads < 1)
+            throw new IllegalArgumentException("Number of search threads must be positive!");
+        if (searcherManager != null)
+            throw new IllegalStateException("The searcher is already created!");
+        this.searchThreads = searchThreads;
+    }
+
+    /**
+     * Called before every search. Reopens the searcher when the index has
+     * changed.
+     * 
+     * @param manager
+     *            The manager for the shared searcher
+     * @throws IOException
+     *             Error while reopening the searcher
+     */
+    protected void refreshBeforeSearch(SearcherManager manager) throws IOException {
+        manager.maybeRefresh();
+    }
+
+    /**
+     * @return The manager for the shared searcher, created on the first call
+     * @throws IOException
+     *             Error while opening the index
+     */
+    protected synchronized SearcherManager getSearcherManager() throws IOException {
+        if (searcherManager == null)
+            searcherManager = createSearcherManager();
+        return searcherManager;
+    }
+
     /**
      * Starts a search on the parsed documents using a search query. The default
      * maximum number of results is 10.
@@ -98,37 +287,618 @@ public abstract class AbstractSearchEngine {
      */
     public List<CrawledWebsiteResult> search(String queryString, int limit) {
         try {
-            DirectoryReader ireader = DirectoryReader.open(this.dir);
-            IndexSearcher isearcher = new IndexSearcher(ireader);
-
-            QueryParser parser = new MultiFieldQueryParser(LUCENE_VERSION, FIELDS, ANALYZER);
-            Query query = parser.parse(queryString);
-            ScoreDoc[] hits = isearcher.search(query, null, limit).scoreDocs;
-
-            List<CrawledWebsiteResult> result = new ArrayList<CrawledWebsiteResult>();
-            for (int i = 0; i < hits.length; ++i) {
-                Document hitDoc = isearcher.doc(hits[i].doc);
-                CrawledWebsite website = extractWebsite(hitDoc);
-                result.add(new CrawledWebsiteResult(website, i + 1, hits[i].score));
+            return searchResults(queryString, limit);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Collections.<CrawledWebsiteResult> emptyList();
+        } catch (ParseException e) {
+            System.out.println("Wrong query! Check your query format!");
+            System.out.println(e.getMessage());
+            return Collections.<CrawledWebsiteResult> emptyList();
+        }
+    }
+
+    /**
+     * Searches the best results without handling the errors. The results are
+     * cached until the index changes. The query is recorded in the metrics.
+     * 
+     * @param queryString
+     *            The query string
+     * @param limit
+     *            The maximum numer of results
+     * @return List of results
+     * @throws IOException
+     *             Error while reading the index
+     * @throws ParseException
+     *             The query string has a wrong format
+     */
+    final List<CrawledWebsiteResult> searchResults(String queryString, int limit) throws IOException, ParseException {
+        SearchMetrics metrics = this.metrics;
+        if (metrics == null)
+            return findResults(queryString, limit);
+
+        metrics.countQuery();
+        long start = System.nanoTime();
+        try {
+            List<CrawledWebsiteResult> results = findResults(queryString, limit);
+            metrics.record(SearchMetrics.Phase.TOTAL, System.nanoTime() - start);
+            return results;
+        } catch (ParseException e) {
+            metrics.countInvalidQuery();
+            throw e;
+        } catch (IOException e) {
+            metrics.countError();
+            throw e;
+        }
+    }
+
+    /**
+     * Searches the best results or takes them from the cache. The phases of
+     * the query are recorded by {@link #recordPhase(SearchMetrics.Phase, long)}.
+     * 
+     * @param queryString
+     *            The query string
+     * @param limit
+     *            The maximum numer of results
+     * @return List of results
+     * @throws IOException
+     *             Error while reading the index
+     * @throws ParseException
+     *             The query string has a wrong format
+     */
+    List<CrawledWebsiteResult> findResults(String queryString, int limit) throws IOException, ParseException {
+        IndexSearcher isearcher = acquireSearcher();
+        try {
+            long version = ((DirectoryReader) isearcher.getIndexReader()).getVersion();
+            QueryResultCache cache = resultCache;
+            if (cache != null) {
+                List<CrawledWebsiteResult> cached = cache.get(queryString, limit, version);
+                if (cached != null) {
+                    countCacheHit();
+                    return cached;
+                }
             }
 
-            ireader.close();
+            long time = System.nanoTime();
+            Query query = parseQuery(queryString);
+            time = recordPhase(SearchMetrics.Phase.PARSE, time);
+            TopDocs topDocs = searchTopDocs(isearcher, boostByPageRank(query), limit);
+            recordPhase(SearchMetrics.Phase.SEARCH, time);
+            List<CrawledWebsiteResult> result = createResults(isearcher, query, topDocs, 0);
+            if (cache != null)
+                cache.put(queryString, limit, version, result);
             return result;
+        } finally {
+            releaseSearcher(isearcher);
+        }
+    }
+
+    /**
+     * Records the time of a phase of a query in the metrics.
+     * 
+     * @param phase
+     *            The phase of the query
+     * @param start
+     *            The start of the phase by {@link System#nanoTime()}
+     * @return The end of the phase and the start of the next phase
+     */
+    long recordPhase(SearchMetrics.Phase phase, long start) {
+        long end = System.nanoTime();
+        SearchMetrics metrics = this.metrics;
+        if (metrics != null)
+            metrics.record(phase, end - start);
+        return end;
+    }
+
+    /**
+     * Counts a query answered by the result cache in the metrics.
+     */
+    void countCacheHit() {
+        SearchMetrics metrics = this.metrics;
+        if (metrics != null)
+            metrics.countCacheHit();
+    }
+
+    /**
+     * Acquires the shared searcher, which is refreshed before when the index
+     * has changed. The searcher must be released after the search.
+     * 
+     * @return The shared searcher
+     * @throws IOException
+     *             Error while opening or refreshing the searcher
+     */
+    IndexSearcher acquireSearcher() throws IOException {
+        SearcherManager manager = getSearcherManager();
+        refreshBeforeSearch(manager);
+        return manager.acquire();
+    }
+
+    /**
+     * @param isearcher
+     *            The searcher acquired by {@link #acquireSearcher()}
+     * @throws IOException
+     *             Error while closing an outdated searcher
+     */
+    void releaseSearcher(IndexSearcher isearcher) throws IOException {
+        getSearcherManager().release(isearcher);
+    }
+
+    /**
+     * Searches the best hits of a query. With early termination only the
+     * first hits of the segments sorted by the PageRank are collected, the
+     * other segments are searched completely.
+     * 
+     * @param isearcher
+     *            The searcher of the index
+     * @param query
+     *            The parsed query
+     * @param limit
+     *            The maximum number of hits
+     * @return The best hits. With early termination the total number of hits
+     *         is only the number of collected hits
+     * @throws IOException
+     *             Error while reading the index
+     */
+    TopDocs searchTopDocs(IndexSearcher isearcher, Query query, int limit) throws IOException {
+        int hitsPerSegment = earlyTermination;
+        if (hitsPerSegment == 0)
+            return isearcher.search(query, null, limit);
+
+        int numHits = Math.max(1, Math.min(limit, isearcher.getIndexReader().maxDoc()));
+        TopScoreDocCollector collector = TopScoreDocCollector.create(numHits, false);
+        isearcher.search(query, new EarlyTerminatingSortingCollector(collector, PAGE_RANK_SORTER, Math.max(numHits, hitsPerSegment)));
+        return collector.topDocs();
+    }
+
+    /**
+     * Starts a search on the parsed documents and returns a single page of the
+     * results. The next page is requested by the cursor of the page. A page
+     * costs the same time and memory, regardless how deep it is. Only the
+     * first page is searched with early termination, the following pages are
+     * searched completely. Hits missed on the first page having a higher score
+     * than its last hit are not shown on the following pages either. <br>
+     * A cursor is only valid for its query and as long as the index has not
+     * changed. Afterwards the first page must be searched again.
+     * 
+     * @param queryString
+     *            The query string <a href=
+     *            "http://lucene.apache.org/core/4_1_0/queryparser/org/apache/lucene/queryparser/classic/package-summary.html"
+     *            >Query Format</a>
+     * @param pageSize
+     *            The maximum number of results of the page
+     * @param cursor
+     *            The cursor of the previous page, <code>null</code> for the
+     *            first page
+     * @return The page of results. The page is empty when the query or the
+     *         cursor is invalid or the cursor is outdated
+     */
+    public SearchPage search(String queryString, int pageSize, String cursor) {
+        try {
+            return searchPage(queryString, pageSize, cursor == null ? null : SearchCursor.decode(cursor));
         } catch (IOException e) {
             e.printStackTrace();
-            return Collections.<CrawledWebsiteResult> emptyList();
         } catch (ParseException e) {
             System.out.println("Wrong query! Check your query format!");
             System.out.println(e.getMessage());
-            return Collections.<CrawledWebsiteResult> emptyList();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Wrong cursor! Use the cursor of the previous page!");
+            System.out.println(e.getMessage());
+        }
+        return new SearchPage(Collections.<CrawledWebsiteResult> emptyList(), 0, null);
+    }
+
+    /**
+     * Searches a single page of results without handling the errors. The query
+     * is recorded in the metrics.
+     * 
+     * @param queryString
+     *            The query string
+     * @param pageSize
+     *            The maximum number of results of the page
+     * @param after
+     *            The cursor of the previous page, <code>null</code> for the
+     *            first page
+     * @return The page of results
+     * @throws IOException
+     *             Error while reading the index
+     * @throws ParseException
+     *             The query string has a wrong format
+     */
+    final SearchPage searchPage(String queryString, int pageSize, SearchCursor after) throws IOException, ParseException {
+        SearchMetrics metrics = this.metrics;
+        if (metrics == null)
+            return findPage(queryString, pageSize, after);
+
+        metrics.countQuery();
+        long start = System.nanoTime();
+        try {
+            SearchPage page = findPage(queryString, pageSize, after);
+            metrics.record(SearchMetrics.Phase.TOTAL, System.nanoTime() - start);
+            return page;
+        } catch (ParseException e) {
+            metrics.countInvalidQuery();
+            throw e;
+        } catch (IOException e) {
+            metrics.countError();
+            throw e;
+        }
+    }
+
+    /**
+     * Searches a single page of results. The first page is cached like the
+     * results of {@link #findResults(String, int)}. The phases of the query
+     * are recorded by {@link #recordPhase(SearchMetrics.Phase, long)}.
+     * 
+     * @param queryString
+     *            The query string
+     * @param pageSize
+     *            The maximum number of results of the page
+     * @param after
+     *            The cursor of the previous page, <code>null</code> for the
+     *            first page
+     * @return The page of results
+     * @throws IOException
+     *             Error while reading the index
+     * @throws ParseException
+     *             The query string has a wrong format
+     * @throws IllegalArgumentException
+     *             The cursor belongs to another query or the index has changed
+     */
+    SearchPage findPage(String queryString, int pageSize, SearchCursor after) throws IOException, ParseException {
+        IndexSearcher isearcher = acquireSearcher();
+        try {
+            long version = ((DirectoryReader) isearcher.getIndexReader()).getVersion();
+            if (after != null)
+                after.check(queryString, version);
+            QueryResultCache cache = after == null ? resultCache : null;
+            if (cache != null) {
+                SearchPage cached = cache.getPage(queryString, pageSize, version);
+                if (cached != null) {
+                    countCacheHit();
+                    return cached;
+                }
+            }
+
+            long time = System.nanoTime();
+            Query query = parseQuery(queryString);
+            time = recordPhase(SearchMetrics.Phase.PARSE, time);
+            TopDocs topDocs;
+            int rankOffset = 0;
+            if (after == null) {
+                topDocs = searchTopDocs(isearcher, boostByPageRank(query), pageSize);
+            } else {
+                topDocs = isearcher.searchAfter(new ScoreDoc(after.getDoc(), after.getScore()), boostByPageRank(query), pageSize);
+                rankOffset = after.getRank();
+            }
+            recordPhase(SearchMetrics.Phase.SEARCH, time);
+
+            List<CrawledWebsiteResult> results = createResults(isearcher, query, topDocs, rankOffset);
+            ScoreDoc[] hits = topDocs.scoreDocs;
+            String nextCursor = null;
+            if (hits.length == pageSize && hasNextPage(topDocs, rankOffset, after)) {
+                ScoreDoc last = hits[hits.length - 1];
+                nextCursor = new SearchCursor(rankOffset + hits.length, 0, last.doc, last.score, version, queryString).encode();
+            }
+            SearchPage page = new SearchPage(results, topDocs.totalHits, nextCursor);
+            if (cache != null)
+                cache.putPage(queryString, pageSize, version, page);
+            return page;
+        } finally {
+            releaseSearcher(isearcher);
+        }
+    }
+
+    /**
+     * @param topDocs
+     *            The hits of a full page
+     * @param rankOffset
+     *            The rank of the hit before the first hit
+     * @param after
+     *            The cursor of the previous page, <code>null</code> for the
+     *            first page
+     * @return Whether there may be more hits after the page. With early
+     *         termination the total number of hits of the first page is only
+     *         the number of collected hits, so there may always be more hits
+     */
+    boolean hasNextPage(TopDocs topDocs, int rankOffset, SearchCursor after) {
+        if (after == null && earlyTermination > 0)
+            return true;
+        return rankOffset + topDocs.scoreDocs.length < topDocs.totalHits;
+    }
+
+    /**
+     * @param queryString
+     *            The query string
+     * @return The parsed query for the body and the title
+     * @throws ParseException
+     *             The query string has a wrong format
+     */
+    Query parseQuery(String queryString) throws ParseException {
+        QueryParser parser = new MultiFieldQueryParser(LUCENE_VERSION, FIELDS, ANALYZER);
+        return parser.parse(queryString);
+    }
+
+    /**
+     * @param query
+     *            The parsed query
+     * @return The query boosting its hits by their PageRank, the query
+     *         itself when the PageRank is not used
+     */
+    Query boostByPageRank(Query query) {
+        float weight = pageRankWeight;
+        if (weight == 0F)
+            return query;
+        return new PageRankQuery(query, FIELD_PAGE_RANK, weight);
+    }
+
+    /**
+     * Loads the title and the url of the hits and creates their snippets. The
+     * loading is recorded as the {@link SearchMetrics.Phase#FETCH}, the
+     * snippets and the results as the {@link SearchMetrics.Phase#ASSEMBLY}.
+     * 
+     * @param isearcher
+     *            The searcher having found the hits
+     * @param query
+     *            The parsed query
+     * @param topDocs
+     *            The hits
+     * @param rankOffset
+     *            The rank of the hit before the first hit
+     * @return The results of the hits
+     * @throws IOException
+     *             Error while reading the index
+     */
+    List<CrawledWebsiteResult> createResults(IndexSearcher isearcher, Query query, TopDocs topDocs, int rankOffset) throws IOException {
+        ScoreDoc[] hits = topDocs.scoreDocs;
+        long time = System.nanoTime();
+        Document[] hitDocs = new Document[hits.length];
+        for (int i = 0; i < hits.length; ++i) {
+            hitDocs[i] = isearcher.doc(hits[i].doc, RESULT_FIELDS);
+        }
+        time = recordPhase(SearchMetrics.Phase.FETCH, time);
+
+        String[] snippets = createSnippets(isearcher, query, topDocs);
+        List<CrawledWebsiteResult> results = new ArrayList<CrawledWebsiteResult>(hits.length);
+        for (int i = 0; i < hits.length; ++i) {
+            CrawledWebsite website = extractWebsite(hitDocs[i]);
+            results.add(new CrawledWebsiteResult(website, rankOffset + i + 1, hits[i].score, snippets[i]));
+        }
+        recordPhase(SearchMetrics.Phase.ASSEMBLY, time);
+        return results;
+    }
+
+    /**
+     * Creates the snippets of the hits using the offsets stored in the
+     * postings. Indices created without offsets are highlighted by analyzing
+     * the stored body again, which is much slower.
+     * 
+     * @param isearcher
+     *            The searcher having found the hits
+     * @param query
+     *            The parsed query
+     * @param topDocs
+     *            The hits
+     * @return The snippet for every hit, <code>null</code> when the body of
+     *         the hit contains no query term
+     * @throws IOException
+     *             Error while reading the index
+     */
+    private String[] createSnippets(IndexSearcher isearcher, Query query, TopDocs topDocs) throws IOException {
+        try {
+            return highlighter.highlight(FIELD_BODY, query, isearcher, topDocs, MAX_PASSAGES);
+        } catch (IllegalArgumentException e) {
+            // Index created without offsets
+        }
+
+        ScoreDoc[] hits = topDocs.scoreDocs;
+        String[] snippets = new String[hits.length];
+        Highlighter highlighter = new Highlighter(new SimpleHTMLFormatter("<b>", "</b>"), new QueryScorer(query, FIELD_BODY));
+        highlighter.setTextFragmenter(new SimpleFragmenter(MAX_PASSAGE_LENGTH));
+        for (int i = 0; i < hits.length; ++i) {
+            String body = loadBody(isearcher, hits[i].doc);
+            if (body == null)
+                continue;
+            TokenStream tokenStream = ANALYZER.tokenStream(FIELD_BODY, body);
+            try {
+                String snippet = highlighter.getBestFragments(tokenStream, body, MAX_PASSAGES, PASSAGE_SEPARATOR);
+                snippets[i] = snippet.isEmpty() ? null : snippet;
+            } catch (InvalidTokenOffsetsException e) {
+                e.printStackTrace();
+            } finally {
+                tokenStream.close();
+            }
+        }
+        return snippets;
+    }
+
+    /**
+     * Loads the body of a website found by a search. The searcher is refreshed
+     * like before a search, so every website found by a search is found.
+     * 
+     * @param url
+     *            The url of the website
+     * @return <code>Null</code> when the index contains no website with the
+     *         url, otherwise the body of the website
+     */
+    public String loadBody(String url) {
+        try {
+            IndexSearcher isearcher = acquireSearcher();
+            try {
+                int doc = findDocument(isearcher, url);
+                if (doc == -1)
+                    return null;
+                return loadBody(isearcher, doc);
+            } finally {
+                releaseSearcher(isearcher);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Finds the document of an url. Older caches store the url without
+     * indexing it, then the stored urls of all documents are compared.
+     * 
+     * @param isearcher
+     *            The searcher of the index
+     * @param url
+     *            The url of the website
+     * @return The document id, <code>-1</code> when the index contains no
+     *         website with the url
+     * @throws IOException
+     *             Error while reading the index
+     */
+    private static int findDocument(IndexSearcher isearcher, String url) throws IOException {
+        IndexReader reader = isearcher.getIndexReader();
+        if (MultiFields.getTerms(reader, FIELD_URL) != null) {
+            TopDocs topDocs = isearcher.search(new TermQuery(new Term(FIELD_URL, url)), 1);
+            return topDocs.scoreDocs.length == 0 ? -1 : topDocs.scoreDocs[0].doc;
+        }
+
+        Bits liveDocs = MultiFields.getLiveDocs(reader);
+        for (int doc = 0; doc < reader.maxDoc(); ++doc) {
+            if (liveDocs != null && !liveDocs.get(doc))
+                continue;
+            if (url.equals(reader.document(doc, URL_FIELDS).get(FIELD_URL)))
+                return doc;
+        }
+        return -1;
+    }
+
+    /**
+     * Loads the body of a document either from the index or from the body
+     * store.
+     * 
+     * @param isearcher
+     *            The searcher the document id belongs to
+     * @param doc
+     *            The document id
+     * @return <code>Null</code> when the document has no body, otherwise the
+     *         body
+     * @throws IOException
+     *             Error while reading the index or the body store
+     */
+    private String loadBody(IndexSearcher isearcher, int doc) throws IOException {
+        Document document = isearcher.doc(doc, BODY_FIELDS);
+        IndexableField bodyRef = document.getField(FIELD_BODY_REF);
+        if (bodyRef != null && bodyStore != null)
+            return bodyStore.read(bodyRef.numericValue().longValue());
+        return document.get(FIELD_BODY);
+    }
+
+    /**
+     * @return The influence of the PageRank on the score of a hit,
+     *         <code>0</code> when the PageRank is not used
+     */
+    public float getPageRankWeight() {
+        return pageRankWeight;
+    }
+
+    /**
+     * Boosts the score of the hits by their PageRank. The score is multiplied
+     * with the PageRank to the power of the weight. Websites without a
+     * PageRank have the average PageRank <code>1</code>. Should be called
+     * before the first search, cached results are not scored again.
+     * 
+     * @param pageRankWeight
+     *            The influence of the PageRank on the score, <code>0</code>
+     *            to score only the text
+     */
+    public void setPageRankWeight(float pageRankWeight) {
+        if (pageRankWeight < 0F)
+            throw new IllegalArgumentException("PageRank weight must not be negative!");
+        this.pageRankWeight = pageRankWeight;
+    }
+
+    /**
+     * @return The number of hits collected per segment sorted by the
+     *         PageRank, <code>0</code> when all hits are collected
+     */
+    public int getEarlyTermination() {
+        return earlyTermination;
+    }
+
+    /**
+     * Stops collecting the hits of a segment sorted by the PageRank after
+     * this number of hits, but not before the limit of the search. The search
+     * of short queries on large indices is much faster, but hits with a low
+     * PageRank and a high score may be missed. Segments which are not sorted
+     * are searched completely. Should be called before the first search.
+     * 
+     * @param earlyTermination
+     *            The number of hits collected per sorted segment,
+     *            <code>0</code> to collect all hits
+     */
+    public void setEarlyTermination(int earlyTermination) {
+        if (earlyTermination < 0)
+            throw new IllegalArgumentException("Number of collected hits must not be negative!");
+        this.earlyTermination = earlyTermination;
+    }
+
+    /**
+     * @return The cache for the query results, <code>null</code> when the
+     *         results are not cached
+     */
+    public QueryResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * @param resultCache
+     *            The cache for the query results, <code>null</code> to
+     *            disable the caching
+     */
+    public void setResultCache(QueryResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * @return The metrics of the queries, <code>null</code> when the queries
+     *         are not recorded
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param metrics
+     *            The metrics recording the queries, <code>null</code> to
+     *            disable the recording
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Closes the shared searcher and the directory of the index. No search is
+     * possible afterwards.
+     * 
+     * @throws IOException
+     *             Error while closing the index
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            if (searcherManager != null)
+                searcherManager.close();
+            searcherManager = null;
+            if (searchExecutor != null)
+                searchExecutor.shutdown();
+            searchExecutor = null;
         }
+        if (bodyStore != null)
+            bodyStore.close();
+        if (dir != null)
+            dir.close();
     }
 
     /**
      * Creates a wrapper from the document.
      * 
      * @param doc
-     *            The document containing the information
+     *            The document containing the information. The body is
+     *            <code>null</code>, if it was not loaded
      * @return Container class
      */
     protected CrawledWebsite extractWebsite(Document doc) {
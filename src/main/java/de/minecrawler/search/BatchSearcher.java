@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.lucene.queryparser.classic.ParseException;
+
+import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.SearchPage;
+
+/**
+ * Runs many queries in parallel on the shared searcher of a search engine. The
+ * queries are read line by line and every result is written as a single JSON
+ * line in the order of the queries. Only a few queries per thread are executed
+ * ahead, so neither the queries nor the results must fit in the memory.
+ */
+public class BatchSearcher {
+
+    // Queries executed ahead of the written result per thread
+    private static final int QUERIES_AHEAD = 4;
+
+    private AbstractSearchEngine searchEngine;
+    private int threads;
+    private int limit;
+
+    /**
+     * @param searchEngine
+     *            The search engine to run the queries on
+     * @param threads
+     *            Number of threads running queries in parallel
+     * @param limit
+     *            The maximum number of results per query
+     */
+    public BatchSearcher(AbstractSearchEngine searchEngine, int threads, int limit) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive!");
+        if (limit < 1)
+            throw new IllegalArgumentException("limit must be positive!");
+        this.searchEngine = searchEngine;
+        this.threads = threads;
+        this.limit = limit;
+    }
+
+    /**
+     * Runs every query of the reader and writes the results to the writer.
+     * Each non empty line is a query. A result line contains the line number
+     * of the query, the query, the number of hits and the results or an error
+     * message.
+     * 
+     * @param queries
+     *            The queries, one per line
+     * @param out
+     *            The writer for the JSON lines
+     * @return The number of executed queries
+     * @throws IOException
+     *             Error while reading the queries or writing the results
+     * @throws InterruptedException
+     *             Interrupted while waiting for a result
+     */
+    public int search(BufferedReader queries, Writer out) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+        int count = 0;
+        try {
+            int lineNumber = 0;
+            String line;
+            while ((line = queries.readLine()) != null) {
+                ++lineNumber;
+                final String query = line.trim();
+                if (query.isEmpty())
+                    continue;
+
+                final int id = lineNumber;
+                pending.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return searchToJson(id, query);
+                    }
+                }));
+                ++count;
+                if (pending.size() >= threads * QUERIES_AHEAD)
+                    write(pending.poll(), out);
+            }
+            while (!pending.isEmpty())
+                write(pending.poll(), out);
+            out.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+        return count;
+    }
+
+    /**
+     * Waits for a result and writes it.
+     * 
+     * @param result
+     *            The pending result
+     * @param out
+     *            The writer for the JSON lines
+     * @throws IOException
+     *             Error while writing the result
+     * @throws InterruptedException
+     *             Interrupted while waiting for the result
+     */
+    private void write(Future<String> result, Writer out) throws IOException, InterruptedException {
+        try {
+            out.write(result.get());
+            out.write('\n');
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Runs a query and formats its result as a JSON line.
+     * 
+     * @param id
+     *            The line number of the query
+     * @param query
+     *            The query string
+     * @return The JSON line without a line separator
+     */
+    private String searchToJson(int id, String query) {
+        StringBuilder sBuilder = new StringBuilder();
+        sBuilder.append("{\"id\":").append(id);
+        sBuilder.append(",\"query\":");
+        appendString(sBuilder, query);
+        try {
+            SearchPage page = searchEngine.searchPage(query, limit, null);
+            sBuilder.append(",\"totalHits\":").append(page.getTotalHits());
+            sBuilder.append(",\"results\":[");
+            boolean first = true;
+            for (CrawledWebsiteResult result : page.getResults()) {
+                if (!first)
+                    sBuilder.append(',');
+                first = false;
+                sBuilder.append("{\"rank\":").append(result.getRank());
+                sBuilder.append(",\"score\":").append(result.getScore());
+                sBuilder.append(",\"url\":");
+                appendString(sBuilder, result.getWebsite().getURL().toString());
+                sBuilder.append(",\"title\":");
+                appendString(sBuilder, result.getWebsite().getTitle());
+                sBuilder.append(",\"snippet\":");
+                appendString(sBuilder, result.getSnippet());
+                sBuilder.append('}');
+            }
+            sBuilder.append(']');
+        } catch (ParseException e) {
+            sBuilder.append(",\"error\":");
+            appendString(sBuilder, "Wrong query! " + e.getMessage());
+        } catch (IOException e) {
+            sBuilder.append(",\"error\":");
+            appendString(sBuilder, e.toString());
+        }
+        sBuilder.append('}');
+        return sBuilder.toString();
+    }
+
+    /**
+     * Appends a string as a quoted and escaped JSON string.
+     * 
+     * @param sBuilder
+     *            The builder to append to
+     * @param s
+     *            The string, <code>null</code> is appended as JSON null
+     */
+    static void appendString(StringBuilder sBuilder, String s) {
+        if (s == null) {
+            sBuilder.append("null");
+            return;
+        }
+        sBuilder.append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' :
+                    sBuilder.append("\\\"");
+                    break;
+                case '\\' :
+                    sBuilder.append("\\\\");
+                    break;
+                case '\n' :
+                    sBuilder.append("\\n");
+                    break;
+                case '\r' :
+                    sBuilder.append("\\r");
+                    break;
+                case '\t' :
+                    sBuilder.append("\\t");
+                    break;
+                default :
+                    if (c < 0x20)
+                        sBuilder.append(String.format("\\u%04x", (int) c));
+                    else
+                        sBuilder.append(c);
+            }
+        }
+        sBuilder.append('"');
+    }
+}
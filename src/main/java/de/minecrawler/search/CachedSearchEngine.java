@@ -22,7 +22,8 @@ import java.io.File;
 import java.io.IOException;
 
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.NIOFSDirectory;
+
+import de.minecrawler.cache.BodyStore;
 
 /**
  * Read only search engine, based on an indexed directory. Can't modify
@@ -39,13 +40,29 @@ public class CachedSearchEngine extends AbstractSearchEngine {
      *             Error while loading the directory
      */
     public CachedSearchEngine(File cacheFile) throws Exception {
-        super(cacheFile);
+        this(cacheFile, DirectoryType.AUTO);
+    }
+
+    /**
+     * Creates a cached base search engine.
+     * 
+     * @param cacheFile
+     *            The file to the cache
+     * @param directoryType
+     *            The implementation of the directory to read the cache with
+     * @throws Exception
+     *             Error while loading the directory
+     */
+    public CachedSearchEngine(File cacheFile, DirectoryType directoryType) throws Exception {
+        super(cacheFile, directoryType);
+        if (BodyStore.exists(cacheFile))
+            this.bodyStore = BodyStore.open(cacheFile);
     }
 
     @Override
     protected Directory createDirectory(Object... args) {
         try {
-            return new NIOFSDirectory((File) args[0]);
+            return ((DirectoryType) args[1]).open((File) args[0], true);
         } catch (IOException e) {
             e.printStackTrace();
             return null;
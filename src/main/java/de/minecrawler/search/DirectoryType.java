@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.store.SimpleFSDirectory;
+import org.apache.lucene.util.Constants;
+
+/**
+ * The implementation of the directory containing an index.
+ */
+public enum DirectoryType {
+
+    /**
+     * Chooses the directory by the platform and the size of the index, see
+     * {@link DirectoryType#resolve(File, boolean)}
+     */
+    AUTO,
+    /**
+     * Maps the index files into the memory. The operating system caches the
+     * index, so searching a large index on disk is fast. Needs a 64 bit JVM
+     */
+    MMAP,
+    /**
+     * Holds the whole index in the heap. Only for small indices, an existing
+     * index is loaded completely
+     */
+    RAM,
+    /**
+     * Reads the index files using positional reads. Fallback for platforms
+     * not supporting memory mapped files. Windows uses simple reads because of
+     * a bug of the JVM
+     */
+    NIO;
+
+    /**
+     * Largest index loaded into the heap by {@link #AUTO}
+     */
+    public static final long MAX_AUTO_RAM_SIZE = 32L * 1024L * 1024L;
+
+    /**
+     * Chooses the directory implementation for {@link #AUTO}. Memory mapped
+     * files are used on 64 bit JVMs. A writable index must also be unmapped
+     * when merged segments are deleted. Otherwise small read only indices are
+     * loaded into the heap and all others use {@link #NIO}.
+     * 
+     * @param index
+     *            The directory of the index
+     * @param readOnly
+     *            <code>true</code> when the index is only searched
+     * @return This type if it is not {@link #AUTO}, otherwise the chosen type
+     */
+    public DirectoryType resolve(File index, boolean readOnly) {
+        if (this != AUTO)
+            return this;
+        if (Constants.JRE_IS_64BIT && (readOnly || MMapDirectory.UNMAP_SUPPORTED))
+            return MMAP;
+        if (readOnly && size(index) <= MAX_AUTO_RAM_SIZE)
+            return RAM;
+        return NIO;
+    }
+
+    /**
+     * Opens the directory of the index. A {@link #RAM} directory contains a
+     * copy of the files of the latest commit of the index on disk. Other files
+     * of the cache, like the stored bodies, stay on disk.
+     * 
+     * @param index
+     *            The directory of the index
+     * @param readOnly
+     *            <code>true</code> when the index is only searched
+     * @return The opened directory
+     * @throws IOException
+     *             Error while opening or loading the index
+     */
+    public Directory open(File index, boolean readOnly) throws IOException {
+        switch (resolve(index, readOnly)) {
+            case MMAP :
+                return new MMapDirectory(index);
+            case RAM :
+                if (!index.exists())
+                    return new RAMDirectory();
+                Directory disk = NIO.open(index, readOnly);
+                try {
+                    RAMDirectory ram = new RAMDirectory();
+                    for (String file : indexFiles(disk)) {
+                        disk.copy(ram, file, file, IOContext.READONCE);
+                    }
+                    return ram;
+                } finally {
+                    disk.close();
+                }
+            default :
+                if (Constants.WINDOWS)
+                    return new SimpleFSDirectory(index);
+                return new NIOFSDirectory(index);
+        }
+    }
+
+    /**
+     * @param index
+     *            The directory of the index
+     * @return The summed up size of the files of the latest commit in bytes.
+     *         {@link Long#MAX_VALUE} when the index can't be read
+     */
+    private static long size(File index) {
+        if (!index.exists())
+            return 0L;
+        try {
+            Directory disk = NIO.open(index, true);
+            try {
+                long size = 0L;
+                for (String file : indexFiles(disk)) {
+                    size += disk.fileLength(file);
+                }
+                return size;
+            } finally {
+                disk.close();
+            }
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @param disk
+     *            The directory of the index
+     * @return The names of the files of the latest commit, empty when the
+     *         directory contains no index
+     * @throws IOException
+     *             Error while reading the commit
+     */
+    private static Collection<String> indexFiles(Directory disk) throws IOException {
+        if (!DirectoryReader.indexExists(disk))
+            return Collections.emptyList();
+        SegmentInfos infos = new SegmentInfos();
+        infos.read(disk);
+        return infos.files(disk, true);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe histogram of latencies in nanoseconds. The latencies are
+ * counted in buckets growing exponentially, every power of two is divided
+ * into {@value #SUB_BUCKETS} buckets. So a percentile is at most 1/
+ * {@value #SUB_BUCKETS} of its value too high, regardless of the magnitude. <br>
+ * Recording a latency needs no lock and no memory, so the histogram can be
+ * used by every query.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of buckets per power of two
+     */
+    public static final int SUB_BUCKETS = 16;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    // Every latency below the sub buckets has a bucket of its own
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * 
+     * @param nanos
+     *            The latency in nanoseconds, negative latencies are recorded
+     *            as <code>0</code>
+     */
+    public void record(long nanos) {
+        if (nanos < 0L)
+            nanos = 0L;
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        long current;
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            // Another thread has recorded a latency
+        }
+    }
+
+    /**
+     * @param nanos
+     *            A not negative latency
+     * @return The bucket of the latency
+     */
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @param bucket
+     *            The bucket
+     * @return The smallest latency of the bucket
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @param bucket
+     *            The bucket
+     * @return The greatest latency of the bucket
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return lowerBound(bucket) + (1L << (exponent - SUB_BUCKET_BITS)) - 1L;
+    }
+
+    /**
+     * @param percentile
+     *            The percentile between <code>0</code> and <code>100</code>
+     * @return The latency in nanoseconds not exceeded by this percentile of the
+     *         recorded latencies, <code>0</code> when nothing is recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0)
+            throw new IllegalArgumentException("Percentile must be between 0 and 100!");
+
+        // The buckets may change while reading them
+        long[] counts = getBucketCounts();
+        long recorded = 0L;
+        for (long bucketCount : counts) {
+            recorded += bucketCount;
+        }
+        if (recorded == 0L)
+            return 0L;
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * recorded));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * @return A copy of the number of latencies in every bucket
+     */
+    long[] getBucketCounts() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * @return The number of recorded latencies
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The sum of the recorded latencies in nanoseconds
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * @return The average latency in nanoseconds, <code>0</code> when nothing
+     *         is recorded
+     */
+    public long getMean() {
+        long n = count.get();
+        return n == 0L ? 0L : total.get() / n;
+    }
+
+    /**
+     * @return The greatest recorded latency in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Removes all recorded latencies. Latencies recorded at the same time may
+     * be counted partially.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            buckets.set(i, 0L);
+        }
+        count.set(0L);
+        total.set(0L);
+        max.set(0L);
+    }
+}
@@ -20,39 +20,84 @@ package de.minecrawler.search;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.FloatDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.FieldInfo.IndexOptions;
+import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.sorter.SortingMergePolicy;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.RAMDirectory;
 
+import de.minecrawler.cache.BodyStore;
+import de.minecrawler.crawl.LinkGraph;
 import de.minecrawler.data.CrawledWebsite;
-import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.CrawlerOptions;
 
 /**
- * Search engine provides methodes to add documents to the index.
+ * Search engine provides methodes to add documents to the index. The index
+ * can be searched while websites are added (near real time search): The
+ * searcher reads the not committed websites directly from the index writer.
+ * Added websites become visible when the searcher is refreshed, either before
+ * every search, periodically or on demand by {@link #refresh()}. <br>
+ * An index in a {@link DirectoryType#RAM} directory is written to the disk on
+ * every commit. <br>
+ * When the bodies are stored in a {@link BodyStore}, the index contains only
+ * the offsets of the bodies. A cache having a body store always uses it. <br>
+ * Every website has a PageRank in the doc values of the index, which is
+ * updated after crawling by {@link #updatePageRanks(LinkGraph, float[])}. <br>
+ * The segments of a sorted index are sorted by the PageRank when they are
+ * merged, {@link #sortIndex()} sorts the whole index.
  */
-public class LiveSearchEngine extends AbstractSearchEngine {
-
-    // Only stored but not index type (reference on the uri)
-    private static FieldType TYPE_ONLY_STORED = new FieldType();
+public class LiveSearchEngine extends AbstractSearchEngine implements WritableSearchEngine {
 
+    // Offsets in the postings for highlighting snippets
+    private static final FieldType TYPE_BODY = new FieldType(TextField.TYPE_STORED);
+    static {
+        TYPE_BODY.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TYPE_BODY.freeze();
+    }
+    // The body in the body store, only indexed
+    private static final FieldType TYPE_BODY_INDEXED = new FieldType(TextField.TYPE_NOT_STORED);
     static {
-        TYPE_ONLY_STORED.setStored(true);
-        TYPE_ONLY_STORED.setIndexed(false);
-        TYPE_ONLY_STORED.setTokenized(false);
-        TYPE_ONLY_STORED.freeze();
+        TYPE_BODY_INDEXED.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TYPE_BODY_INDEXED.freeze();
     }
 
     private IndexWriter indexWriter;
+    private ScheduledExecutorService refreshExecutor;
+    // The directory on disk for an index in the memory
+    private File diskIndex;
+    // Null when the index is not sorted
+    private ResortingMergePolicy resortingMergePolicy;
 
     /**
-     * Creates a search engine with a file to write the index in.
+     * Creates a search engine with a file to write the index in. When the file
+     * already contains an index, the websites are added to it.
      * 
      * @param toCacheFile
      *            Empty file, will contain after the indexing the index itself.
@@ -60,14 +105,153 @@ public class LiveSearchEngine extends AbstractSearchEngine {
      * @throws Exception
      */
     public LiveSearchEngine(File toCacheFile) throws Exception {
-        super(toCacheFile);
-        this.indexWriter = new IndexWriter(this.dir, new IndexWriterConfig(LUCENE_VERSION, ANALYZER));
+        this(toCacheFile, 0L);
+    }
+
+    /**
+     * Creates a search engine with a file to write the index in. When the file
+     * already contains an index, the websites are added to it.
+     * 
+     * @param toCacheFile
+     *            Empty file, will contain after the indexing the index itself.
+     *            Used later by {@link CachedSearchEngine}
+     * @param refreshInterval
+     *            The maximum time in milliseconds until added websites are
+     *            visible to the search. <code>0</code> to refresh the searcher
+     *            before every search instead
+     * @throws Exception
+     */
+    public LiveSearchEngine(File toCacheFile, long refreshInterval) throws Exception {
+        this(toCacheFile, refreshInterval, new CrawlerOptions());
+    }
+
+    /**
+     * Creates a search engine with a file to write the index in. When the file
+     * already contains an index, the websites are added to it.
+     * 
+     * @param toCacheFile
+     *            Empty file, will contain after the indexing the index itself.
+     *            Used later by {@link CachedSearchEngine}
+     * @param refreshInterval
+     *            The maximum time in milliseconds until added websites are
+     *            visible to the search. <code>0</code> to refresh the searcher
+     *            before every search instead
+     * @param options
+     *            The options for writing the index, that are the RAM buffer,
+     *            the merging and the maximum segment size. Smaller segments
+     *            are searched in parallel by more search threads. A sorted
+     *            index sorts the segments by the PageRank while merging
+     * @throws Exception
+     */
+    public LiveSearchEngine(File toCacheFile, long refreshInterval, CrawlerOptions options) throws Exception {
+        super(toCacheFile, options.getDirectoryType());
+        if (dir instanceof RAMDirectory) {
+            // Other cache files are stored beside the index
+            toCacheFile.mkdirs();
+            this.diskIndex = toCacheFile;
+        }
+        if (refreshInterval < 0)
+            throw new IllegalArgumentException("Refresh interval must not be negative!");
+        if (options.isExternalBodies() || BodyStore.exists(toCacheFile))
+            this.bodyStore = BodyStore.open(toCacheFile);
+        this.indexWriter = new IndexWriter(this.dir, createConfig(options));
+        if (refreshInterval > 0)
+            startRefresh(refreshInterval);
+    }
+
+    /**
+     * Creates the configuration of the index writer. Every indexing thread
+     * writes its own segment in parallel, so there is a thread state per
+     * indexing thread.
+     * 
+     * @param options
+     *            The options for writing the index
+     * @return The configuration of the index writer
+     */
+    private IndexWriterConfig createConfig(CrawlerOptions options) {
+        IndexWriterConfig config = new IndexWriterConfig(LUCENE_VERSION, ANALYZER);
+        config.setRAMBufferSizeMB(options.getRamBufferSize());
+        config.setMaxThreadStates(Math.max(IndexWriterConfig.DEFAULT_MAX_THREAD_STATES, options.getIndexThreads()));
+
+        TieredMergePolicy mergePolicy;
+        if (options.isSortedIndex()) {
+            this.resortingMergePolicy = new ResortingMergePolicy();
+            mergePolicy = resortingMergePolicy;
+        } else {
+            mergePolicy = new TieredMergePolicy();
+        }
+        if (options.getMaxSegmentSize() > 0)
+            mergePolicy.setMaxMergedSegmentMB(options.getMaxSegmentSize());
+        if (options.isSortedIndex())
+            config.setMergePolicy(new SortingMergePolicy(mergePolicy, PAGE_RANK_SORTER));
+        else
+            config.setMergePolicy(mergePolicy);
+
+        ConcurrentMergeScheduler mergeScheduler = new ConcurrentMergeScheduler();
+        if (options.getMergeThreads() > 0)
+            mergeScheduler.setMaxMergesAndThreads(options.getMergeThreads() + 2, options.getMergeThreads());
+        config.setMergeScheduler(mergeScheduler);
+        return config;
+    }
+
+    /**
+     * Starts a daemon thread refreshing the searcher periodically.
+     * 
+     * @param refreshInterval
+     *            The time between two refreshes in milliseconds
+     */
+    private void startRefresh(long refreshInterval) {
+        this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LiveSearchEngine-Refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        refreshExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    getSearcherManager().maybeRefresh();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Searches the index of the open writer, including the not committed
+     * websites.
+     */
+    @Override
+    protected SearcherManager createSearcherManager() throws IOException {
+        return new SearcherManager(indexWriter, true, createSearcherFactory());
+    }
+
+    @Override
+    protected void refreshBeforeSearch(SearcherManager manager) throws IOException {
+        // Refreshed periodically
+        if (refreshExecutor == null)
+            manager.maybeRefresh();
+    }
+
+    /**
+     * Makes all added websites visible to the search. Blocks until the
+     * searcher is refreshed.
+     * 
+     * @throws IOException
+     *             Error while refreshing the searcher
+     */
+    public void refresh() throws IOException {
+        getSearcherManager().maybeRefreshBlocking();
     }
 
     @Override
     protected Directory createDirectory(Object... args) {
         try {
-            return new NIOFSDirectory((File) args[0]);
+            return ((DirectoryType) args[1]).open((File) args[0], false);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -75,8 +259,8 @@ public class LiveSearchEngine extends AbstractSearchEngine {
     }
 
     /**
-     * Adds a single crawled website to the index. All attributes are index (not
-     * the url).
+     * Adds a single crawled website to the index. All attributes are index (the
+     * url is not tokenized).
      * 
      * @param website
      *            The crawled website
@@ -93,51 +277,254 @@ public class LiveSearchEngine extends AbstractSearchEngine {
     }
 
     /**
-     * Adds a collection of websites to the index. See
+     * Replaces the website having the same url in the index or adds it, if the
+     * index does not contain the url.
+     * 
+     * @param website
+     *            The crawled website
+     */
+    public void updateWebsite(CrawledWebsite website) {
+        Document document = new Document();
+
+        try {
+            addFields(document, website);
+            indexWriter.updateDocument(new Term(FIELD_URL, website.getURL().toString()), document);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes the website having the url from the index.
+     * 
+     * @param url
+     *            The url of the website
+     */
+    @Override
+    public void removeWebsite(String url) {
+        try {
+            indexWriter.deleteDocuments(new Term(FIELD_URL, url));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Adds a collection of websites to the index with a single call. See
      * {@link #addWebsite(CrawledWebsite)}.
      * 
      * @param websites
      *            The crawled websites
      */
+    @Override
     public void addWebsites(List<CrawledWebsite> websites) {
-        for (CrawledWebsite website : websites) {
-            addWebsite(website);
+        try {
+            List<Document> documents = new ArrayList<Document>(websites.size());
+            for (CrawledWebsite website : websites) {
+                Document document = new Document();
+                addFields(document, website);
+                documents.add(document);
+            }
+            indexWriter.addDocuments(documents);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
+    /**
+     * Replaces a collection of websites in the index. See
+     * {@link #updateWebsite(CrawledWebsite)}.
+     * 
+     * @param websites
+     *            The crawled websites
+     */
     @Override
-    /*
-     * (non-Javadoc)
+    public void updateWebsites(List<CrawledWebsite> websites) {
+        for (CrawledWebsite website : websites) {
+            updateWebsite(website);
+        }
+    }
+
+    /**
+     * Updates the PageRank of all crawled websites of the link graph in the
+     * index. The other websites keep their PageRank.
      * 
-     * @see de.minecrawler.search.AbstractSearchEngine#search(java.lang.String)
+     * @param linkGraph
+     *            The link graph of the crawl
+     * @param pageRanks
+     *            The PageRank of every node of the link graph
+     * @return The number of updated websites
+     * @throws IOException
+     *             Error while writing the index
      */
-    public List<CrawledWebsiteResult> search(String queryString) {
-        // Close index writer before the search starts
-        try {
-            indexWriter.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
+    @Override
+    public int updatePageRanks(LinkGraph linkGraph, float[] pageRanks) throws IOException {
+        int updated = 0;
+        for (int node = 0; node < pageRanks.length; ++node) {
+            if (!linkGraph.isPage(node))
+                continue;
+            updatePageRank(linkGraph.getURL(node), pageRanks[node]);
+            ++updated;
         }
-        return super.search(queryString);
+        return updated;
+    }
+
+    /**
+     * Updates the PageRank of the website having the url.
+     * 
+     * @param url
+     *            The url of the website
+     * @param pageRank
+     *            The PageRank of the website
+     * @throws IOException
+     *             Error while writing the index
+     */
+    void updatePageRank(String url, float pageRank) throws IOException {
+        indexWriter.updateNumericDocValue(new Term(FIELD_URL, url), FIELD_PAGE_RANK, (long) Float.floatToIntBits(pageRank));
+    }
+
+    /**
+     * Merges the segments of the index. Blocks until the merge is finished.
+     * 
+     * @param maxSegments
+     *            The maximum number of segments after the merge
+     * @throws IOException
+     *             Error while merging the index
+     */
+    @Override
+    public void forceMerge(int maxSegments) throws IOException {
+        indexWriter.forceMerge(maxSegments);
+    }
+
+    /**
+     * Sorts the index by the PageRank of the websites, the highest PageRank
+     * first. All segments are merged into a single sorted segment, even when
+     * the index has only one segment, because an updated PageRank does not
+     * change the order of a segment. Blocks until the merge is finished.
+     * 
+     * @throws IOException
+     *             Error while merging the index
+     */
+    @Override
+    public void sortIndex() throws IOException {
+        if (resortingMergePolicy == null)
+            throw new IllegalStateException("The index is not sorted!");
+        resortingMergePolicy.mergeAll.set(true);
+        indexWriter.forceMerge(1);
+    }
+
+    /**
+     * @return <code>true</code> when the segments are sorted by the PageRank
+     *         while merging
+     */
+    @Override
+    public boolean isSorted() {
+        return resortingMergePolicy != null;
+    }
+
+    /**
+     * Makes all added, updated and removed websites durable. After a crash
+     * the index contains all websites of the last commit.
+     * 
+     * @throws IOException
+     *             Error while writing the index
+     */
+    @Override
+    public void commit() throws IOException {
+        // Committed websites must not refer to lost bodies
+        if (bodyStore != null)
+            bodyStore.flush();
+        indexWriter.commit();
+        if (diskIndex != null)
+            writeToDisk();
     }
 
+    /**
+     * @return <code>true</code> when the index is in the memory and written to
+     *         the disk only on commits
+     */
     @Override
-    /*
-     * (non-Javadoc)
+    public boolean isInMemory() {
+        return diskIndex != null;
+    }
+
+    /**
+     * Copies the committed index from the memory to the disk. Segment files
+     * are never changed, so only new ones are copied. The segments files are
+     * copied at last, so the index on disk is consistent at every time.
      * 
-     * @see de.minecrawler.search.AbstractSearchEngine#search(java.lang.String,
-     * int)
+     * @throws IOException
+     *             Error while writing the index
      */
-    public List<CrawledWebsiteResult> search(String queryString, int limit) {
-        // Close index writer before the search starts
+    private void writeToDisk() throws IOException {
+        Directory disk = DirectoryType.NIO.open(diskIndex, false);
         try {
-            indexWriter.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
+            Set<String> files = new HashSet<String>();
+            Set<String> diskFiles = new HashSet<String>();
+            if (diskIndex.isDirectory()) {
+                for (String file : disk.listAll()) {
+                    diskFiles.add(file);
+                }
+            }
+            List<String> segmentsFiles = new ArrayList<String>();
+            for (String file : dir.listAll()) {
+                if (file.equals(IndexWriter.WRITE_LOCK_NAME))
+                    continue;
+                files.add(file);
+                if (file.startsWith(IndexFileNames.SEGMENTS))
+                    segmentsFiles.add(file);
+                else if (!diskFiles.contains(file))
+                    dir.copy(disk, file, file, IOContext.DEFAULT);
+            }
+            disk.sync(files);
+
+            // segments.gen points to the newest segments_N
+            segmentsFiles.remove(IndexFileNames.SEGMENTS_GEN);
+            for (String file : segmentsFiles) {
+                dir.copy(disk, file, file, IOContext.DEFAULT);
+            }
+            disk.sync(segmentsFiles);
+            if (files.contains(IndexFileNames.SEGMENTS_GEN)) {
+                if (diskFiles.contains(IndexFileNames.SEGMENTS_GEN))
+                    disk.deleteFile(IndexFileNames.SEGMENTS_GEN);
+                dir.copy(disk, IndexFileNames.SEGMENTS_GEN, IndexFileNames.SEGMENTS_GEN, IOContext.DEFAULT);
+            }
+
+            // Files of merged segments, other cache files are kept
+            for (String file : diskFiles) {
+                if (files.contains(file))
+                    continue;
+                if (file.startsWith(IndexFileNames.SEGMENTS) || IndexFileNames.CODEC_FILE_PATTERN.matcher(file).matches())
+                    disk.deleteFile(file);
+            }
+        } finally {
+            disk.close();
         }
-        return super.search(queryString, limit);
+    }
+
+    /**
+     * @return The number of websites in the index, including not committed
+     *         ones
+     */
+    @Override
+    public int getDocumentCount() {
+        return indexWriter.numDocs();
+    }
+
+    /**
+     * Commits and closes the index. No website can be added and no search is
+     * possible afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (refreshExecutor != null)
+            refreshExecutor.shutdownNow();
+        if (bodyStore != null)
+            bodyStore.flush();
+        indexWriter.close();
+        if (diskIndex != null)
+            writeToDisk();
+        super.close();
     }
 
     /**
@@ -147,10 +534,48 @@ public class LiveSearchEngine extends AbstractSearchEngine {
      *            The document for the index
      * @param website
      *            The crawled website attributes are used from
+     * @throws IOException
+     *             Error while writing the body to the body store
      */
-    private void addFields(Document doc, CrawledWebsite website) {
-        doc.add(new Field(FIELD_BODY, website.getBody(), TextField.TYPE_STORED));
+    private void addFields(Document doc, CrawledWebsite website) throws IOException {
+        if (bodyStore == null) {
+            doc.add(new Field(FIELD_BODY, website.getBody(), TYPE_BODY));
+        } else {
+            doc.add(new Field(FIELD_BODY, website.getBody(), TYPE_BODY_INDEXED));
+            doc.add(new StoredField(FIELD_BODY_REF, bodyStore.append(website.getURL().toString(), website.getBody())));
+        }
         doc.add(new Field(FIELD_TITLE, website.getTitle(), TextField.TYPE_STORED));
-        doc.add(new Field(FIELD_URL, website.getURL().toString(), TYPE_ONLY_STORED));
+        // Not tokenized to identify the website when updating the index
+        doc.add(new StringField(FIELD_URL, website.getURL().toString(), Field.Store.YES));
+        // The average PageRank until the PageRank is computed
+        doc.add(new FloatDocValuesField(FIELD_PAGE_RANK, 1F));
+    }
+
+    /**
+     * Merges all segments on the next forced merge, even a single segment
+     * without deletions. The merged segment is sorted again by the
+     * {@link SortingMergePolicy} wrapping this policy.
+     */
+    private static class ResortingMergePolicy extends TieredMergePolicy {
+
+        // Only the first forced merge, the merged segment is not merged again
+        private final AtomicBoolean mergeAll = new AtomicBoolean();
+
+        @Override
+        public MergeSpecification findForcedMerges(SegmentInfos infos, int maxSegmentCount, Map<SegmentCommitInfo, Boolean> segmentsToMerge) throws IOException {
+            if (!mergeAll.getAndSet(false))
+                return super.findForcedMerges(infos, maxSegmentCount, segmentsToMerge);
+
+            List<SegmentCommitInfo> segments = new ArrayList<SegmentCommitInfo>();
+            for (SegmentCommitInfo info : infos) {
+                if (segmentsToMerge.containsKey(info) && !writer.get().getMergingSegments().contains(info))
+                    segments.add(info);
+            }
+            if (segments.isEmpty())
+                return null;
+            MergeSpecification specification = new MergeSpecification();
+            specification.add(new OneMerge(segments));
+            return specification;
+        }
     }
 }
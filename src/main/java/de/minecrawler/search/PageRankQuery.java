@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.queries.CustomScoreProvider;
+import org.apache.lucene.queries.CustomScoreQuery;
+import org.apache.lucene.queries.function.FunctionQuery;
+import org.apache.lucene.queries.function.FunctionValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.docvalues.FloatDocValues;
+import org.apache.lucene.search.Query;
+
+/**
+ * Boosts the score of a query by the PageRank of the hits. The PageRank is
+ * read from the float doc values of a field, a document without a PageRank
+ * has the average PageRank <code>1</code>. The score of a hit is multiplied
+ * with its PageRank to the power of the weight.
+ */
+class PageRankQuery extends CustomScoreQuery {
+
+    private final float weight;
+
+    /**
+     * @param subQuery
+     *            The query scoring the text of the hits
+     * @param field
+     *            The field of the doc values containing the PageRank
+     * @param weight
+     *            The influence of the PageRank on the score
+     */
+    PageRankQuery(Query subQuery, String field, float weight) {
+        super(subQuery, new FunctionQuery(new PageRankValueSource(field)));
+        this.weight = weight;
+        // The PageRank must not be normalized by the query norm
+        setStrict(true);
+    }
+
+    @Override
+    protected CustomScoreProvider getCustomScoreProvider(AtomicReaderContext context) throws IOException {
+        return new CustomScoreProvider(context) {
+            @Override
+            public float customScore(int doc, float subQueryScore, float pageRank) throws IOException {
+                return subQueryScore * (float) Math.pow(pageRank, weight);
+            }
+        };
+    }
+
+    @Override
+    public String name() {
+        return "pageRank";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && weight == ((PageRankQuery) o).weight;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Float.floatToIntBits(weight);
+    }
+
+    /**
+     * Reads the PageRank of the documents from the doc values of the field.
+     */
+    private static class PageRankValueSource extends ValueSource {
+
+        private final String field;
+
+        public PageRankValueSource(String field) {
+            this.field = field;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public FunctionValues getValues(Map context, AtomicReaderContext readerContext) throws IOException {
+            final NumericDocValues values = readerContext.reader().getNumericDocValues(field);
+            return new FloatDocValues(this) {
+                @Override
+                public float floatVal(int doc) {
+                    if (values == null)
+                        return 1F;
+                    // Documents without a value have no PageRank
+                    float pageRank = Float.intBitsToFloat((int) values.get(doc));
+                    return pageRank > 0F ? pageRank : 1F;
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PageRankValueSource && field.equals(((PageRankValueSource) o).field);
+        }
+
+        @Override
+        public int hashCode() {
+            return field.hashCode();
+        }
+
+        @Override
+        public String description() {
+            return "pageRank(" + field + ")";
+        }
+    }
+}
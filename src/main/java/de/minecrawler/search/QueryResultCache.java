@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.SearchPage;
+
+/**
+ * Thread safe cache for the results of queries. The results are identified by
+ * the normalized query and the result limit. The cache is bounded by the
+ * number of entries and by the weight of the results, the number of cached
+ * characters. When a bound is exceeded, the least recently used entries are
+ * evicted. <br>
+ * Every entry belongs to a version of the index. When the version changes,
+ * the cache is cleared. <br>
+ * Besides the result lists the first result pages of the queries are cached,
+ * see {@link #getPage(String, int, long)}.
+ */
+public class QueryResultCache {
+
+    /**
+     * Default maximum number of cached queries
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /**
+     * Default maximum number of cached characters
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 16L * 1024L * 1024L;
+
+    // Estimated characters of the objects of a result
+    private static final int RESULT_OVERHEAD = 64;
+
+    private LinkedHashMap<String, Entry> entries;
+    private int maxEntries;
+    private long maxWeight;
+    private long weight;
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Creates a cache using the {@link #DEFAULT_MAX_ENTRIES} and the
+     * {@link #DEFAULT_MAX_WEIGHT}.
+     */
+    public QueryResultCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxEntries
+     *            The maximum number of cached queries
+     * @param maxWeight
+     *            The maximum number of cached characters
+     */
+    public QueryResultCache(int maxEntries, long maxWeight) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Maximum number of entries must be positive!");
+        if (maxWeight < 1)
+            throw new IllegalArgumentException("Maximum weight must be positive!");
+
+        // Access order for LRU
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.version = -1L;
+    }
+
+    /**
+     * Searches for cached results.
+     * 
+     * @param query
+     *            The query string
+     * @param limit
+     *            The maximum number of results
+     * @param version
+     *            The current version of the index
+     * @return <code>Null</code> when the query is not cached, otherwise a copy
+     *         of the cached results
+     */
+    public synchronized List<CrawledWebsiteResult> get(String query, int limit, long version) {
+        Entry entry = getEntry(key(query, limit), version);
+        if (entry == null)
+            return null;
+        return new ArrayList<CrawledWebsiteResult>(entry.results);
+    }
+
+    /**
+     * Searches for a cached first result page. The cursor of the page belongs
+     * to the version of the index, so it stays valid while the page is cached.
+     * 
+     * @param query
+     *            The query string
+     * @param pageSize
+     *            The maximum number of results of the page
+     * @param version
+     *            The current version of the index
+     * @return <code>Null</code> when the page is not cached, otherwise a copy
+     *         of the cached page
+     */
+    public synchronized SearchPage getPage(String query, int pageSize, long version) {
+        Entry entry = getEntry(pageKey(query, pageSize), version);
+        if (entry == null)
+            return null;
+        return new SearchPage(new ArrayList<CrawledWebsiteResult>(entry.results), entry.totalHits, entry.nextCursor);
+    }
+
+    private Entry getEntry(String key, long version) {
+        checkVersion(version);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            ++misses;
+            return null;
+        }
+        ++hits;
+        return entry;
+    }
+
+    /**
+     * Caches the results of a query. Results heavier than the maximum weight
+     * are not cached.
+     * 
+     * @param query
+     *            The query string
+     * @param limit
+     *            The maximum number of results
+     * @param version
+     *            The version of the index the results were found in
+     * @param results
+     *            The results of the query
+     */
+    public synchronized void put(String query, int limit, long version, List<CrawledWebsiteResult> results) {
+        putEntry(key(query, limit), version, new Entry(new ArrayList<CrawledWebsiteResult>(results), 0, null));
+    }
+
+    /**
+     * Caches the first result page of a query. Pages heavier than the maximum
+     * weight are not cached.
+     * 
+     * @param query
+     *            The query string
+     * @param pageSize
+     *            The maximum number of results of the page
+     * @param version
+     *            The version of the index the page was found in
+     * @param page
+     *            The first result page of the query
+     */
+    public synchronized void putPage(String query, int pageSize, long version, SearchPage page) {
+        putEntry(pageKey(query, pageSize), version, new Entry(new ArrayList<CrawledWebsiteResult>(page.getResults()), page.getTotalHits(), page.getNextCursor()));
+    }
+
+    private void putEntry(String key, long version, Entry entry) {
+        checkVersion(version);
+        // Results of an older index
+        if (version != this.version)
+            return;
+        if (entry.weight > maxWeight)
+            return;
+
+        Entry old = entries.put(key, entry);
+        if (old != null)
+            weight -= old.weight;
+        weight += entry.weight;
+
+        Iterator<Entry> iter = entries.values().iterator();
+        while ((weight > maxWeight || entries.size() > maxEntries) && iter.hasNext()) {
+            weight -= iter.next().weight;
+            iter.remove();
+            ++evictions;
+        }
+    }
+
+    /**
+     * Clears the cache when the version of the index is newer than the version
+     * of the cached results.
+     */
+    private void checkVersion(long version) {
+        if (version <= this.version)
+            return;
+        if (!entries.isEmpty())
+            ++invalidations;
+        entries.clear();
+        weight = 0L;
+        this.version = version;
+    }
+
+    /**
+     * Normalizes the whitespace of the query. The case is not changed, because
+     * the operators of the query parser are case sensitive.
+     */
+    private static String key(String query, int limit) {
+        return limit + ":" + query.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String pageKey(String query, int pageSize) {
+        return "page" + key(query, pageSize);
+    }
+
+    /**
+     * @return The number of queries answered by the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of queries not found in the cache
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of queries removed because a bound was exceeded
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return How often the cache was cleared because the index has changed
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return The number of cached queries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The number of cached characters
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryResultCache [entries=" + entries.size() + ", weight=" + weight + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", invalidations=" + invalidations + "]";
+    }
+
+    /**
+     * The cached results of a query and their weight.
+     */
+    private static class Entry {
+
+        List<CrawledWebsiteResult> results;
+        // Only used by first result pages
+        int totalHits;
+        String nextCursor;
+        long weight;
+
+        public Entry(List<CrawledWebsiteResult> results, int totalHits, String nextCursor) {
+            this.results = results;
+            this.totalHits = totalHits;
+            this.nextCursor = nextCursor;
+            weight += length(nextCursor);
+            for (CrawledWebsiteResult result : results) {
+                CrawledWebsite website = result.getWebsite();
+                weight += RESULT_OVERHEAD + length(website.getBody()) + length(website.getTitle()) + (website.getURL() == null ? 0 : length(website.getURL().toString()));
+            }
+            weight += RESULT_OVERHEAD;
+        }
+
+        private static long length(String s) {
+            return s == null ? 0 : s.length();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+/**
+ * Position after the last hit of a result page. The next page is collected
+ * after this hit using <code>IndexSearcher.searchAfter</code>, so a deep page
+ * costs the same as the first one. The cursor is encoded as an opaque string
+ * for the user. <br>
+ * The cursor belongs to its query and to the version of the index, see
+ * {@link #check(String, long)}.
+ */
+class SearchCursor {
+
+    // Hex digits of the encoded cursor: rank, shard, doc, score, version and
+    // query
+    private static final int LENGTH = 8 + 4 + 8 + 8 + 16 + 8;
+
+    private int rank;
+    private int shard;
+    private int doc;
+    private float score;
+    private long version;
+    private int queryHash;
+
+    /**
+     * @param rank
+     *            The rank of the last hit
+     * @param shard
+     *            The shard of the last hit, <code>0</code> for an index
+     *            without shards
+     * @param doc
+     *            The document id of the last hit
+     * @param score
+     *            The score of the last hit
+     * @param version
+     *            The version of the index the hit was found in
+     * @param queryString
+     *            The query string the hit was found by
+     */
+    public SearchCursor(int rank, int shard, int doc, float score, long version, String queryString) {
+        this(rank, shard, doc, score, version, hashQuery(queryString));
+    }
+
+    private SearchCursor(int rank, int shard, int doc, float score, long version, int queryHash) {
+        this.rank = rank;
+        this.shard = shard;
+        this.doc = doc;
+        this.score = score;
+        this.version = version;
+        this.queryHash = queryHash;
+    }
+
+    /**
+     * Normalizes the whitespace of the query like the {@link QueryResultCache}.
+     */
+    private static int hashQuery(String queryString) {
+        return queryString.trim().replaceAll("\\s+", " ").hashCode();
+    }
+
+    /**
+     * Checks whether the cursor can be used to search the next page. The hits
+     * after the cursor are only well defined for the same query on the same
+     * version of the index.
+     * 
+     * @param queryString
+     *            The query string of the next page
+     * @param version
+     *            The current version of the index
+     * @throws IllegalArgumentException
+     *             The cursor belongs to another query or the index has changed
+     */
+    public void check(String queryString, long version) {
+        if (hashQuery(queryString) != queryHash)
+            throw new IllegalArgumentException("The cursor belongs to another query!");
+        if (version != this.version)
+            throw new IllegalArgumentException("The index has changed since the cursor was created, search the first page again!");
+    }
+
+    /**
+     * @return The cursor as an opaque string
+     */
+    public String encode() {
+        return String.format("%08x%04x%08x%08x%016x%08x", rank, shard, doc, Float.floatToIntBits(score), version, queryHash);
+    }
+
+    /**
+     * Decodes a cursor encoded by {@link #encode()}.
+     * 
+     * @param cursor
+     *            The encoded cursor
+     * @return The decoded cursor
+     * @throws IllegalArgumentException
+     *             The string is no cursor
+     */
+    public static SearchCursor decode(String cursor) {
+        if (cursor.length() != LENGTH)
+            throw new IllegalArgumentException("Invalid cursor " + cursor);
+        try {
+            int rank = (int) Long.parseLong(cursor.substring(0, 8), 16);
+            int shard = Integer.parseInt(cursor.substring(8, 12), 16);
+            int doc = (int) Long.parseLong(cursor.substring(12, 20), 16);
+            float score = Float.intBitsToFloat((int) Long.parseLong(cursor.substring(20, 28), 16));
+            long version = Long.parseLong(cursor.substring(28, 36), 16) << 32 | Long.parseLong(cursor.substring(36, 44), 16);
+            int queryHash = (int) Long.parseLong(cursor.substring(44, 52), 16);
+            if (rank < 1 || doc < 0)
+                throw new IllegalArgumentException("Invalid cursor " + cursor);
+            return new SearchCursor(rank, shard, doc, score, version, queryHash);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor);
+        }
+    }
+
+    /**
+     * @return The rank of the last hit
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * @return The shard of the last hit
+     */
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * @return The document id of the last hit
+     */
+    public int getDoc() {
+        return doc;
+    }
+
+    /**
+     * @return The score of the last hit
+     */
+    public float getScore() {
+        return score;
+    }
+
+    /**
+     * @return The version of the index the hit was found in
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The hash of the normalized query string the hit was found by
+     */
+    public int getQueryHash() {
+        return queryHash;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe metrics of the queries of a search engine. The latency of every
+ * phase of a query is recorded in a {@link LatencyHistogram}, the queries,
+ * the cache hits and the failed queries are counted. <br>
+ * The metrics are printed readable by {@link #dump(PrintStream)} and exported
+ * as JSON by {@link #toJson()}.
+ */
+public class SearchMetrics {
+
+    /**
+     * The phases of a query
+     */
+    public enum Phase {
+        /**
+         * Parsing the query string
+         */
+        PARSE,
+        /**
+         * Searching and scoring the hits in the index
+         */
+        SEARCH,
+        /**
+         * Loading the stored fields of the results
+         */
+        FETCH,
+        /**
+         * Creating the snippets, including loading the bodies, and the
+         * results
+         */
+        ASSEMBLY,
+        /**
+         * The whole query including the cache lookup. Only answered queries
+         * are recorded
+         */
+        TOTAL;
+
+        /**
+         * @return The name of the phase in the dump and the export
+         */
+        public String getName() {
+            return name().toLowerCase();
+        }
+    }
+
+    // Percentiles shown in the dump and the export
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong invalidQueries = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public SearchMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @param phase
+     *            The phase of a query
+     * @param nanos
+     *            The time of the phase in nanoseconds
+     */
+    public void record(Phase phase, long nanos) {
+        histograms.get(phase).record(nanos);
+    }
+
+    /**
+     * @param phase
+     *            The phase of a query
+     * @return The latencies of the phase
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Counts a started query.
+     */
+    public void countQuery() {
+        queries.incrementAndGet();
+    }
+
+    /**
+     * Counts a query answered by the result cache.
+     */
+    public void countCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    /**
+     * Counts a query with a wrong format.
+     */
+    public void countInvalidQuery() {
+        invalidQueries.incrementAndGet();
+    }
+
+    /**
+     * Counts a query failed because of an error while reading the index.
+     */
+    public void countError() {
+        errors.incrementAndGet();
+    }
+
+    /**
+     * @return The number of started queries
+     */
+    public long getQueries() {
+        return queries.get();
+    }
+
+    /**
+     * @return The number of queries answered by the result cache
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return The number of queries with a wrong format
+     */
+    public long getInvalidQueries() {
+        return invalidQueries.get();
+    }
+
+    /**
+     * @return The number of queries failed because of an error while reading
+     *         the index
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Removes all recorded latencies and counts.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        queries.set(0L);
+        cacheHits.set(0L);
+        invalidQueries.set(0L);
+        errors.set(0L);
+    }
+
+    /**
+     * Prints the counters and a table of the latencies of every phase in
+     * milliseconds.
+     * 
+     * @param out
+     *            The stream to print to
+     */
+    public void dump(PrintStream out) {
+        out.println("Queries: " + getQueries());
+        out.println("Cache hits: " + getCacheHits());
+        out.println("Invalid queries: " + getInvalidQueries());
+        out.println("Errors: " + getErrors());
+
+        out.printf("%-10s %8s %10s", "Phase", "Count", "Mean");
+        for (double percentile : PERCENTILES) {
+            out.printf(" %10s", "p" + formatPercentile(percentile));
+        }
+        out.printf(" %10s%n", "Max");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histograms.get(phase);
+            out.printf("%-10s %8d %10.3f", phase.getName(), histogram.getCount(), toMillis(histogram.getMean()));
+            for (double percentile : PERCENTILES) {
+                out.printf(" %10.3f", toMillis(histogram.getPercentile(percentile)));
+            }
+            out.printf(" %10.3f%n", toMillis(histogram.getMax()));
+        }
+    }
+
+    /**
+     * Exports the metrics as a single JSON object. The latencies are in
+     * nanoseconds, the buckets of a histogram are the pairs of the smallest
+     * latency and the count of every not empty bucket.
+     * 
+     * @return The JSON object without a line separator
+     */
+    public String toJson() {
+        StringBuilder sBuilder = new StringBuilder();
+        sBuilder.append("{\"queries\":").append(getQueries());
+        sBuilder.append(",\"cacheHits\":").append(getCacheHits());
+        sBuilder.append(",\"invalidQueries\":").append(getInvalidQueries());
+        sBuilder.append(",\"errors\":").append(getErrors());
+        sBuilder.append(",\"phases\":{");
+        boolean firstPhase = true;
+        for (Phase phase : Phase.values()) {
+            if (!firstPhase)
+                sBuilder.append(',');
+            firstPhase = false;
+            LatencyHistogram histogram = histograms.get(phase);
+            BatchSearcher.appendString(sBuilder, phase.getName());
+            sBuilder.append(":{\"count\":").append(histogram.getCount());
+            sBuilder.append(",\"total\":").append(histogram.getTotal());
+            sBuilder.append(",\"mean\":").append(histogram.getMean());
+            sBuilder.append(",\"max\":").append(histogram.getMax());
+            for (double percentile : PERCENTILES) {
+                sBuilder.append(",\"p").append(formatPercentile(percentile)).append("\":").append(histogram.getPercentile(percentile));
+            }
+            sBuilder.append(",\"buckets\":[");
+            long[] counts = histogram.getBucketCounts();
+            boolean firstBucket = true;
+            for (int i = 0; i < counts.length; ++i) {
+                if (counts[i] == 0L)
+                    continue;
+                if (!firstBucket)
+                    sBuilder.append(',');
+                firstBucket = false;
+                sBuilder.append('[').append(LatencyHistogram.lowerBound(i)).append(',').append(counts[i]).append(']');
+            }
+            sBuilder.append("]}");
+        }
+        sBuilder.append("}}");
+        return sBuilder.toString();
+    }
+
+    /**
+     * @return The percentile without a trailing zero fraction, for example
+     *         <code>99.9</code> or <code>50</code>
+     */
+    private static String formatPercentile(double percentile) {
+        if (percentile == Math.rint(percentile))
+            return Long.toString((long) percentile);
+        return Double.toString(percentile);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,730 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+
+import de.minecrawler.crawl.LinkGraph;
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.data.SearchPage;
+
+/**
+ * Search engine on an index split into shards by the host of the websites.
+ * Every shard is an index of its own in a directory of the cache, so the
+ * shards are written, merged and searched in parallel and can be placed on
+ * different disks. A query is searched on all shards in parallel and the best
+ * hits of the shards are merged. <br>
+ * The scores of a shard are computed with the term statistics of the shard, so
+ * hits of different shards are only approximately comparable. <br>
+ * The shards of a cached index are opened on their first search and can be
+ * evicted independently, the shards of a live index are always open. <br>
+ * The shards record into the metrics of this search engine. The stored fields
+ * and the snippets are recorded once for every shard having hits.
+ */
+public class ShardedSearchEngine extends AbstractSearchEngine implements WritableSearchEngine {
+
+    // Directory of a shard in the cache, followed by the number of the shard
+    private static final String SHARD_PREFIX = "shard";
+
+    private File cacheFile;
+    private DirectoryType directoryType;
+    private AbstractSearchEngine[] shards;
+    // Null when the index is read only
+    private LiveSearchEngine[] liveShards;
+    private ExecutorService shardExecutor;
+    // Searches hold the read lock, evicting a shard the write lock
+    private ReadWriteLock evictionLock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates a search engine writing the websites into shards. When the
+     * shards already contain an index, the websites are added to it.
+     * 
+     * @param cacheFile
+     *            The file to the cache containing the shards
+     * @param shardCount
+     *            The number of shards
+     * @param refreshInterval
+     *            The maximum time in milliseconds until added websites are
+     *            visible to the search. <code>0</code> to refresh the
+     *            searchers before every search instead
+     * @param options
+     *            The options for writing every shard
+     * @throws Exception
+     *             Error while opening a shard
+     */
+    public ShardedSearchEngine(File cacheFile, int shardCount, long refreshInterval, CrawlerOptions options) throws Exception {
+        if (shardCount < 1)
+            throw new IllegalArgumentException("Number of shards must be positive!");
+        this.cacheFile = cacheFile;
+        this.shards = new AbstractSearchEngine[shardCount];
+        this.liveShards = new LiveSearchEngine[shardCount];
+        for (int i = 0; i < shardCount; ++i) {
+            liveShards[i] = new LiveSearchEngine(getShardFile(cacheFile, i), refreshInterval, options);
+            // The merged results are cached
+            liveShards[i].setResultCache(null);
+            liveShards[i].setMetrics(getMetrics());
+            shards[i] = liveShards[i];
+        }
+        this.shardExecutor = createExecutor(shardCount);
+    }
+
+    /**
+     * Creates a read only search engine on the shards of a cache. The shards
+     * are opened on their first search.
+     * 
+     * @param cacheFile
+     *            The file to the cache containing the shards
+     * @param directoryType
+     *            The implementation of the directories to read the shards
+     *            with
+     * @throws Exception
+     *             The cache contains no shards
+     */
+    public ShardedSearchEngine(File cacheFile, DirectoryType directoryType) throws Exception {
+        int shardCount = getShardCount(cacheFile);
+        if (shardCount == 0)
+            throw new IllegalArgumentException("The cache contains no shards!");
+        this.cacheFile = cacheFile;
+        this.directoryType = directoryType;
+        this.shards = new AbstractSearchEngine[shardCount];
+        this.shardExecutor = createExecutor(shardCount);
+    }
+
+    /**
+     * Every shard has its own directory.
+     */
+    @Override
+    protected Directory createDirectory(Object... args) {
+        return null;
+    }
+
+    private static ExecutorService createExecutor(int shardCount) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(shardCount, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SearchEngine-Shard-" + threadCounter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @param cacheFile
+     *            The file to the cache
+     * @return The number of shards in the cache, <code>0</code> when the
+     *         index of the cache is not split into shards
+     */
+    public static int getShardCount(File cacheFile) {
+        int shardCount = 0;
+        while (getShardFile(cacheFile, shardCount).isDirectory()) {
+            ++shardCount;
+        }
+        return shardCount;
+    }
+
+    private static File getShardFile(File cacheFile, int shard) {
+        return new File(cacheFile, SHARD_PREFIX + shard);
+    }
+
+    /**
+     * Selects the shard of a website by the hash of its host, so all websites
+     * of a host are in the same shard.
+     * 
+     * @param url
+     *            The url of the website
+     * @param shardCount
+     *            The number of shards
+     * @return The shard of the website
+     */
+    public static int shardOf(String url, int shardCount) {
+        String host;
+        try {
+            host = new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            host = url;
+        }
+        return shardOfHost(host, shardCount);
+    }
+
+    private static int shardOfHost(String host, int shardCount) {
+        return (host.hashCode() & Integer.MAX_VALUE) % shardCount;
+    }
+
+    /**
+     * @return The number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param shard
+     *            The number of the shard
+     * @return <code>true</code> when the shard is open
+     */
+    public synchronized boolean isShardOpen(int shard) {
+        return shards[shard] != null;
+    }
+
+    /**
+     * Closes a shard of a cached index to free its memory. The shard is
+     * opened again on the next search. Blocks until the running searches are
+     * finished.
+     * 
+     * @param shard
+     *            The number of the shard
+     * @throws IOException
+     *             Error while closing the shard
+     */
+    public void evictShard(int shard) throws IOException {
+        if (liveShards != null)
+            throw new IllegalStateException("The shards of a live index can't be evicted!");
+        Lock lock = evictionLock.writeLock();
+        lock.lock();
+        try {
+            synchronized (this) {
+                if (shards[shard] != null)
+                    shards[shard].close();
+                shards[shard] = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param shard
+     *            The number of the shard
+     * @return The search engine of the shard, opened if necessary
+     * @throws IOException
+     *             Error while opening the shard
+     */
+    private synchronized AbstractSearchEngine openShard(int shard) throws IOException {
+        if (shards[shard] == null) {
+            CachedSearchEngine engine;
+            try {
+                engine = new CachedSearchEngine(getShardFile(cacheFile, shard), directoryType);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+            engine.setResultCache(null);
+            engine.setMetrics(getMetrics());
+            engine.setSearchThreads(getSearchThreads());
+            engine.setPageRankWeight(getPageRankWeight());
+            engine.setEarlyTermination(getEarlyTermination());
+            shards[shard] = engine;
+        }
+        return shards[shard];
+    }
+
+    private AbstractSearchEngine[] openShards() throws IOException {
+        AbstractSearchEngine[] engines = new AbstractSearchEngine[shards.length];
+        for (int i = 0; i < engines.length; ++i) {
+            engines[i] = openShard(i);
+        }
+        return engines;
+    }
+
+    @Override
+    public synchronized void setSearchThreads(int searchThreads) {
+        super.setSearchThreads(searchThreads);
+        for (AbstractSearchEngine shard : shards) {
+            if (shard != null)
+                shard.setSearchThreads(searchThreads);
+        }
+    }
+
+    @Override
+    public synchronized void setPageRankWeight(float pageRankWeight) {
+        super.setPageRankWeight(pageRankWeight);
+        for (AbstractSearchEngine shard : shards) {
+            if (shard != null)
+                shard.setPageRankWeight(pageRankWeight);
+        }
+    }
+
+    @Override
+    public synchronized void setEarlyTermination(int earlyTermination) {
+        super.setEarlyTermination(earlyTermination);
+        for (AbstractSearchEngine shard : shards) {
+            if (shard != null)
+                shard.setEarlyTermination(earlyTermination);
+        }
+    }
+
+    @Override
+    public synchronized void setMetrics(SearchMetrics metrics) {
+        super.setMetrics(metrics);
+        for (AbstractSearchEngine shard : shards) {
+            if (shard != null)
+                shard.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Searches the best hits of every shard in parallel and merges them.
+     */
+    @Override
+    List<CrawledWebsiteResult> findResults(String queryString, final int limit) throws IOException, ParseException {
+        Lock lock = evictionLock.readLock();
+        lock.lock();
+        try {
+            final AbstractSearchEngine[] engines = openShards();
+            final IndexSearcher[] searchers = acquireSearchers(engines);
+            try {
+                long version = getVersion(searchers);
+                QueryResultCache cache = getResultCache();
+                if (cache != null) {
+                    List<CrawledWebsiteResult> cached = cache.get(queryString, limit, version);
+                    if (cached != null) {
+                        countCacheHit();
+                        return cached;
+                    }
+                }
+
+                long time = System.nanoTime();
+                final Query query = parseQuery(queryString);
+                time = recordPhase(SearchMetrics.Phase.PARSE, time);
+                List<Callable<TopDocs>> tasks = new ArrayList<Callable<TopDocs>>(engines.length);
+                for (int i = 0; i < engines.length; ++i) {
+                    final int shard = i;
+                    tasks.add(new Callable<TopDocs>() {
+                        @Override
+                        public TopDocs call() throws IOException {
+                            AbstractSearchEngine engine = engines[shard];
+                            return engine.searchTopDocs(searchers[shard], engine.boostByPageRank(query), limit);
+                        }
+                    });
+                }
+                List<TopDocs> shardHits = invokeAll(tasks);
+                TopDocs topDocs = TopDocs.merge(null, limit, shardHits.toArray(new TopDocs[shardHits.size()]));
+                recordPhase(SearchMetrics.Phase.SEARCH, time);
+                List<CrawledWebsiteResult> result = createResults(engines, searchers, query, topDocs, 0);
+                if (cache != null)
+                    cache.put(queryString, limit, version, result);
+                return result;
+            } finally {
+                releaseSearchers(engines, searchers);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Searches the page on every shard in parallel and merges the pages. Hits
+     * having the same score are ordered by their shard and then by their
+     * document id, so the cursor contains the shard of the last hit.
+     */
+    @Override
+    SearchPage findPage(String queryString, final int pageSize, final SearchCursor after) throws IOException, ParseException {
+        if (after != null && after.getShard() >= shards.length)
+            throw new IllegalArgumentException("Invalid shard " + after.getShard());
+        Lock lock = evictionLock.readLock();
+        lock.lock();
+        try {
+            final AbstractSearchEngine[] engines = openShards();
+            final IndexSearcher[] searchers = acquireSearchers(engines);
+            try {
+                long version = getVersion(searchers);
+                if (after != null)
+                    after.check(queryString, version);
+                QueryResultCache cache = after == null ? getResultCache() : null;
+                if (cache != null) {
+                    SearchPage cached = cache.getPage(queryString, pageSize, version);
+                    if (cached != null) {
+                        countCacheHit();
+                        return cached;
+                    }
+                }
+
+                long time = System.nanoTime();
+                final Query query = parseQuery(queryString);
+                time = recordPhase(SearchMetrics.Phase.PARSE, time);
+                List<Callable<TopDocs>> tasks = new ArrayList<Callable<TopDocs>>(engines.length);
+                for (int i = 0; i < engines.length; ++i) {
+                    final int shard = i;
+                    tasks.add(new Callable<TopDocs>() {
+                        @Override
+                        public TopDocs call() throws IOException {
+                            AbstractSearchEngine engine = engines[shard];
+                            Query boosted = engine.boostByPageRank(query);
+                            IndexSearcher isearcher = searchers[shard];
+                            if (after == null)
+                                return engine.searchTopDocs(isearcher, boosted, pageSize);
+
+                            // Hits with the same score of earlier shards are already shown
+                            int doc;
+                            if (shard < after.getShard())
+                                doc = isearcher.getIndexReader().maxDoc() - 1;
+                            else if (shard > after.getShard())
+                                doc = -1;
+                            else
+                                doc = after.getDoc();
+                            return isearcher.searchAfter(new ScoreDoc(doc, after.getScore()), boosted, pageSize);
+                        }
+                    });
+                }
+                List<TopDocs> shardHits = invokeAll(tasks);
+                TopDocs topDocs = TopDocs.merge(null, pageSize, shardHits.toArray(new TopDocs[shardHits.size()]));
+                recordPhase(SearchMetrics.Phase.SEARCH, time);
+                int rankOffset = after == null ? 0 : after.getRank();
+
+                List<CrawledWebsiteResult> results = createResults(engines, searchers, query, topDocs, rankOffset);
+                ScoreDoc[] hits = topDocs.scoreDocs;
+                String nextCursor = null;
+                if (hits.length == pageSize && hasNextPage(topDocs, rankOffset, after)) {
+                    ScoreDoc last = hits[hits.length - 1];
+                    nextCursor = new SearchCursor(rankOffset + hits.length, last.shardIndex, last.doc, last.score, version, queryString).encode();
+                }
+                SearchPage page = new SearchPage(results, topDocs.totalHits, nextCursor);
+                if (cache != null)
+                    cache.putPage(queryString, pageSize, version, page);
+                return page;
+            } finally {
+                releaseSearchers(engines, searchers);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates the results of the merged hits. Every shard creates the results
+     * of its hits in parallel.
+     * 
+     * @param engines
+     *            The search engines of the shards
+     * @param searchers
+     *            The searchers of the shards
+     * @param query
+     *            The parsed query
+     * @param topDocs
+     *            The merged hits
+     * @param rankOffset
+     *            The rank of the hit before the first hit
+     * @return The results of the hits
+     * @throws IOException
+     *             Error while reading a shard
+     */
+    private List<CrawledWebsiteResult> createResults(final AbstractSearchEngine[] engines, final IndexSearcher[] searchers, final Query query, TopDocs topDocs, int rankOffset) throws IOException {
+        ScoreDoc[] hits = topDocs.scoreDocs;
+        final List<List<ScoreDoc>> shardHits = new ArrayList<List<ScoreDoc>>(engines.length);
+        for (int i = 0; i < engines.length; ++i) {
+            shardHits.add(new ArrayList<ScoreDoc>());
+        }
+        for (ScoreDoc hit : hits) {
+            shardHits.get(hit.shardIndex).add(hit);
+        }
+
+        List<Callable<List<CrawledWebsiteResult>>> tasks = new ArrayList<Callable<List<CrawledWebsiteResult>>>(engines.length);
+        for (int i = 0; i < engines.length; ++i) {
+            final int shard = i;
+            tasks.add(new Callable<List<CrawledWebsiteResult>>() {
+                @Override
+                public List<CrawledWebsiteResult> call() throws IOException {
+                    List<ScoreDoc> docs = shardHits.get(shard);
+                    if (docs.isEmpty())
+                        return Collections.<CrawledWebsiteResult> emptyList();
+                    TopDocs shardTopDocs = new TopDocs(docs.size(), docs.toArray(new ScoreDoc[docs.size()]), docs.get(0).score);
+                    return engines[shard].createResults(searchers[shard], query, shardTopDocs, 0);
+                }
+            });
+        }
+        List<List<CrawledWebsiteResult>> shardResults = invokeAll(tasks);
+
+        // The results of the shards in the merged order
+        int[] positions = new int[engines.length];
+        List<CrawledWebsiteResult> results = new ArrayList<CrawledWebsiteResult>(hits.length);
+        for (int i = 0; i < hits.length; ++i) {
+            int shard = hits[i].shardIndex;
+            CrawledWebsiteResult result = shardResults.get(shard).get(positions[shard]++);
+            results.add(new CrawledWebsiteResult(result.getWebsite(), rankOffset + i + 1, result.getScore(), result.getSnippet()));
+        }
+        return results;
+    }
+
+    private static IndexSearcher[] acquireSearchers(AbstractSearchEngine[] engines) throws IOException {
+        IndexSearcher[] searchers = new IndexSearcher[engines.length];
+        try {
+            for (int i = 0; i < engines.length; ++i) {
+                searchers[i] = engines[i].acquireSearcher();
+            }
+        } catch (IOException e) {
+            releaseSearchers(engines, searchers);
+            throw e;
+        }
+        return searchers;
+    }
+
+    private static void releaseSearchers(AbstractSearchEngine[] engines, IndexSearcher[] searchers) throws IOException {
+        for (int i = 0; i < engines.length; ++i) {
+            if (searchers[i] != null)
+                engines[i].releaseSearcher(searchers[i]);
+        }
+    }
+
+    /**
+     * @param searchers
+     *            The searchers of the shards
+     * @return A version changing with the version of any shard
+     */
+    private static long getVersion(IndexSearcher[] searchers) {
+        long version = 0L;
+        for (IndexSearcher isearcher : searchers) {
+            version = 31L * version + ((DirectoryReader) isearcher.getIndexReader()).getVersion();
+        }
+        return version;
+    }
+
+    /**
+     * Runs the tasks on the shard threads and waits for their results.
+     * 
+     * @param tasks
+     *            A task per shard
+     * @return The results of the tasks in the same order
+     * @throws IOException
+     *             A task failed or the waiting was interrupted
+     */
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+        try {
+            List<T> results = new ArrayList<T>(tasks.size());
+            for (Future<T> future : shardExecutor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the shards");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Loads the body from the shard of the url.
+     */
+    @Override
+    public String loadBody(String url) {
+        Lock lock = evictionLock.readLock();
+        lock.lock();
+        try {
+            return openShard(shardOf(url, shards.length)).loadBody(url);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The search engines of the shards
+     */
+    private LiveSearchEngine[] getLiveShards() {
+        if (liveShards == null)
+            throw new IllegalStateException("The index is read only!");
+        return liveShards;
+    }
+
+    /**
+     * @param websites
+     *            The crawled websites
+     * @return The websites of every shard
+     */
+    private List<List<CrawledWebsite>> partition(List<CrawledWebsite> websites) {
+        List<List<CrawledWebsite>> partitions = new ArrayList<List<CrawledWebsite>>(shards.length);
+        for (int i = 0; i < shards.length; ++i) {
+            partitions.add(new ArrayList<CrawledWebsite>());
+        }
+        for (CrawledWebsite website : websites) {
+            partitions.get(shardOfHost(website.getURL().getHost(), shards.length)).add(website);
+        }
+        return partitions;
+    }
+
+    @Override
+    public void addWebsites(List<CrawledWebsite> websites) {
+        LiveSearchEngine[] engines = getLiveShards();
+        List<List<CrawledWebsite>> partitions = partition(websites);
+        for (int i = 0; i < engines.length; ++i) {
+            if (!partitions.get(i).isEmpty())
+                engines[i].addWebsites(partitions.get(i));
+        }
+    }
+
+    @Override
+    public void updateWebsites(List<CrawledWebsite> websites) {
+        LiveSearchEngine[] engines = getLiveShards();
+        List<List<CrawledWebsite>> partitions = partition(websites);
+        for (int i = 0; i < engines.length; ++i) {
+            if (!partitions.get(i).isEmpty())
+                engines[i].updateWebsites(partitions.get(i));
+        }
+    }
+
+    @Override
+    public void removeWebsite(String url) {
+        getLiveShards()[shardOf(url, shards.length)].removeWebsite(url);
+    }
+
+    @Override
+    public int updatePageRanks(LinkGraph linkGraph, float[] pageRanks) throws IOException {
+        LiveSearchEngine[] engines = getLiveShards();
+        int updated = 0;
+        for (int node = 0; node < pageRanks.length; ++node) {
+            if (!linkGraph.isPage(node))
+                continue;
+            String url = linkGraph.getURL(node);
+            engines[shardOf(url, engines.length)].updatePageRank(url, pageRanks[node]);
+            ++updated;
+        }
+        return updated;
+    }
+
+    /**
+     * Merges every shard in parallel.
+     */
+    @Override
+    public void forceMerge(final int maxSegments) throws IOException {
+        runOnShards(new ShardTask() {
+            @Override
+            public void run(LiveSearchEngine shard) throws IOException {
+                shard.forceMerge(maxSegments);
+            }
+        });
+    }
+
+    /**
+     * Sorts every shard in parallel.
+     */
+    @Override
+    public void sortIndex() throws IOException {
+        runOnShards(new ShardTask() {
+            @Override
+            public void run(LiveSearchEngine shard) throws IOException {
+                shard.sortIndex();
+            }
+        });
+    }
+
+    @Override
+    public boolean isSorted() {
+        return getLiveShards()[0].isSorted();
+    }
+
+    /**
+     * Commits every shard in parallel. After a crash some shards may contain
+     * websites added after the last commit of the other shards.
+     */
+    @Override
+    public void commit() throws IOException {
+        runOnShards(new ShardTask() {
+            @Override
+            public void run(LiveSearchEngine shard) throws IOException {
+                shard.commit();
+            }
+        });
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return getLiveShards()[0].isInMemory();
+    }
+
+    @Override
+    public int getDocumentCount() {
+        int documents = 0;
+        for (LiveSearchEngine shard : getLiveShards()) {
+            documents += shard.getDocumentCount();
+        }
+        return documents;
+    }
+
+    /**
+     * A task writing a single shard.
+     */
+    private interface ShardTask {
+
+        public void run(LiveSearchEngine shard) throws IOException;
+    }
+
+    private void runOnShards(final ShardTask task) throws IOException {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(shards.length);
+        for (final LiveSearchEngine shard : getLiveShards()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    task.run(shard);
+                    return null;
+                }
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    /**
+     * Closes all shards. The shards of a live index are committed before.
+     */
+    @Override
+    public void close() throws IOException {
+        shardExecutor.shutdown();
+        synchronized (this) {
+            for (int i = 0; i < shards.length; ++i) {
+                if (shards[i] != null)
+                    shards[i].close();
+                shards[i] = null;
+            }
+        }
+        super.close();
+    }
+}
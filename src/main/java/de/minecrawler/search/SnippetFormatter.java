@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import org.apache.lucene.search.postingshighlight.Passage;
+import org.apache.lucene.search.postingshighlight.PassageFormatter;
+
+/**
+ * Formats the passages found by the postings highlighter as a snippet. The
+ * query terms are highlighted in bold. Passages are sentences, so long
+ * passages are cut to a window around their first match at word boundaries.
+ */
+public class SnippetFormatter extends PassageFormatter {
+
+    private static final String PRE_TAG = "<b>";
+    private static final String POST_TAG = "</b>";
+    private static final String ELLIPSIS = "... ";
+
+    private int maxPassageLength;
+
+    /**
+     * @param maxPassageLength
+     *            The maximum number of characters of a passage
+     */
+    public SnippetFormatter(int maxPassageLength) {
+        if (maxPassageLength < 1)
+            throw new IllegalArgumentException("Maximum passage length must be positive!");
+        this.maxPassageLength = maxPassageLength;
+    }
+
+    @Override
+    public String format(Passage[] passages, String content) {
+        StringBuilder sBuilder = new StringBuilder();
+        for (Passage passage : passages) {
+            int start = passage.getStartOffset();
+            int end = passage.getEndOffset();
+            if (end - start > maxPassageLength) {
+                // Show some words before the first match
+                if (passage.getNumMatches() > 0)
+                    start = Math.max(start, passage.getMatchStarts()[0] - maxPassageLength / 4);
+                if (start > passage.getStartOffset())
+                    start = nextWord(content, start, passage.getMatchStarts()[0]);
+                end = Math.min(end, start + maxPassageLength);
+                if (end < passage.getEndOffset())
+                    end = previousWordEnd(content, start, end);
+            }
+
+            if (sBuilder.length() > 0 || start > passage.getStartOffset())
+                sBuilder.append(ELLIPSIS);
+            int pos = start;
+            for (int i = 0; i < passage.getNumMatches(); ++i) {
+                int matchStart = passage.getMatchStarts()[i];
+                int matchEnd = passage.getMatchEnds()[i];
+                // Overlapping or outside of the window
+                if (matchStart < pos)
+                    continue;
+                if (matchEnd > end)
+                    break;
+                sBuilder.append(content, pos, matchStart).append(PRE_TAG);
+                sBuilder.append(content, matchStart, matchEnd).append(POST_TAG);
+                pos = matchEnd;
+            }
+            sBuilder.append(content, pos, end);
+            if (end < passage.getEndOffset())
+                sBuilder.append(' ').append(ELLIPSIS.trim());
+            sBuilder.append(' ');
+        }
+        return sBuilder.toString().trim();
+    }
+
+    /**
+     * @return The start of the next word after the position, but not after the
+     *         limit
+     */
+    private static int nextWord(String content, int pos, int limit) {
+        int space = content.indexOf(' ', pos);
+        if (space == -1 || space >= limit)
+            return pos;
+        return space + 1;
+    }
+
+    /**
+     * @return The end of the last whole word before the end, but not before
+     *         the start
+     */
+    private static int previousWordEnd(String content, int start, int end) {
+        int space = content.lastIndexOf(' ', end);
+        return space <= start ? end : space;
+    }
+}
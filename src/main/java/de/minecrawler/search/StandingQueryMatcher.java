@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.Query;
+
+import de.minecrawler.data.CrawledWebsite;
+
+/**
+ * Matches single websites against registered standing queries. Every website
+ * is indexed alone in a {@link MemoryIndex} and all standing queries are run
+ * on it, so matches are known as soon as a website is crawled. The queries are
+ * parsed like the queries of the {@link AbstractSearchEngine}. <br>
+ * The matcher is thread safe. Every thread reuses its own memory index. The
+ * matcher measures the time needed for matching a website.
+ */
+public class StandingQueryMatcher {
+
+    private List<StandingQuery> queries = new CopyOnWriteArrayList<StandingQuery>();
+
+    private ThreadLocal<MemoryIndex> memoryIndex = new ThreadLocal<MemoryIndex>() {
+        @Override
+        protected MemoryIndex initialValue() {
+            return new MemoryIndex();
+        }
+    };
+
+    private AtomicLong matchedWebsites = new AtomicLong();
+    private AtomicLong matches = new AtomicLong();
+    private AtomicLong matchTime = new AtomicLong();
+    private volatile long maxMatchTime = 0L;
+
+    /**
+     * Registers a standing query.
+     * 
+     * @param queryString
+     *            The query string <a href=
+     *            "http://lucene.apache.org/core/4_1_0/queryparser/org/apache/lucene/queryparser/classic/package-summary.html"
+     *            >Query Format</a>
+     * @throws ParseException
+     *             The query string has a wrong format
+     */
+    public void addQuery(String queryString) throws ParseException {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(AbstractSearchEngine.LUCENE_VERSION, new String[]{AbstractSearchEngine.FIELD_BODY, AbstractSearchEngine.FIELD_TITLE}, AbstractSearchEngine.ANALYZER);
+        queries.add(new StandingQuery(queryString, parser.parse(queryString)));
+    }
+
+    /**
+     * @return The number of registered standing queries
+     */
+    public int getQueryCount() {
+        return queries.size();
+    }
+
+    /**
+     * Matches the website against all standing queries.
+     * 
+     * @param website
+     *            The crawled website
+     * @return The query strings of the matching standing queries, empty when
+     *         no query matches
+     */
+    public List<String> match(CrawledWebsite website) {
+        if (queries.isEmpty())
+            return Collections.emptyList();
+
+        long time = System.nanoTime();
+        MemoryIndex index = memoryIndex.get();
+        List<String> result = new ArrayList<String>(1);
+        try {
+            if (website.getBody() != null)
+                index.addField(AbstractSearchEngine.FIELD_BODY, website.getBody(), AbstractSearchEngine.ANALYZER);
+            if (website.getTitle() != null)
+                index.addField(AbstractSearchEngine.FIELD_TITLE, website.getTitle(), AbstractSearchEngine.ANALYZER);
+            for (StandingQuery query : queries) {
+                if (index.search(query.query) > 0.0f)
+                    result.add(query.queryString);
+            }
+        } finally {
+            index.reset();
+        }
+
+        time = System.nanoTime() - time;
+        matchedWebsites.incrementAndGet();
+        matches.addAndGet(result.size());
+        matchTime.addAndGet(time);
+        if (time > maxMatchTime)
+            maxMatchTime = time;
+        return result;
+    }
+
+    /**
+     * @return The number of websites matched against the standing queries
+     */
+    public long getMatchedWebsites() {
+        return matchedWebsites.get();
+    }
+
+    /**
+     * @return The number of matches of a website and a standing query
+     */
+    public long getMatches() {
+        return matches.get();
+    }
+
+    /**
+     * @return The summed up time in nanoseconds for matching the websites
+     */
+    public long getMatchTime() {
+        return matchTime.get();
+    }
+
+    /**
+     * @return The longest time in nanoseconds for matching a single website
+     */
+    public long getMaxMatchTime() {
+        return maxMatchTime;
+    }
+
+    /**
+     * @return The average time in nanoseconds for matching a single website
+     */
+    public double getAverageMatchTime() {
+        long count = matchedWebsites.get();
+        return count == 0 ? 0.0 : (double) matchTime.get() / count;
+    }
+
+    /**
+     * A parsed standing query.
+     */
+    private static class StandingQuery {
+
+        private String queryString;
+        private Query query;
+
+        public StandingQuery(String queryString, Query query) {
+            this.queryString = queryString;
+            this.query = query;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import java.io.IOException;
+import java.util.List;
+
+import de.minecrawler.crawl.LinkGraph;
+import de.minecrawler.data.CrawledWebsite;
+
+/**
+ * Search engine whose index is written while crawling. Implemented by a
+ * single index and by an index split into shards.
+ */
+public interface WritableSearchEngine {
+
+    /**
+     * Adds a collection of websites to the index with a single call.
+     * 
+     * @param websites
+     *            The crawled websites
+     */
+    public void addWebsites(List<CrawledWebsite> websites);
+
+    /**
+     * Replaces a collection of websites in the index or adds them, if the
+     * index does not contain their urls.
+     * 
+     * @param websites
+     *            The crawled websites
+     */
+    public void updateWebsites(List<CrawledWebsite> websites);
+
+    /**
+     * Removes the website having the url from the index.
+     * 
+     * @param url
+     *            The url of the website
+     */
+    public void removeWebsite(String url);
+
+    /**
+     * Updates the PageRank of all crawled websites of the link graph in the
+     * index.
+     * 
+     * @param linkGraph
+     *            The link graph of the crawl
+     * @param pageRanks
+     *            The PageRank of every node of the link graph
+     * @return The number of updated websites
+     * @throws IOException
+     *             Error while writing the index
+     */
+    public int updatePageRanks(LinkGraph linkGraph, float[] pageRanks) throws IOException;
+
+    /**
+     * Merges the segments of the index. Blocks until the merge is finished.
+     * 
+     * @param maxSegments
+     *            The maximum number of segments after the merge
+     * @throws IOException
+     *             Error while merging the index
+     */
+    public void forceMerge(int maxSegments) throws IOException;
+
+    /**
+     * Sorts the index by the PageRank of the websites. Blocks until the index
+     * is sorted.
+     * 
+     * @throws IOException
+     *             Error while merging the index
+     */
+    public void sortIndex() throws IOException;
+
+    /**
+     * @return <code>true</code> when the segments are sorted by the PageRank
+     *         while merging
+     */
+    public boolean isSorted();
+
+    /**
+     * Makes all added, updated and removed websites durable.
+     * 
+     * @throws IOException
+     *             Error while writing the index
+     */
+    public void commit() throws IOException;
+
+    /**
+     * @return <code>true</code> when the index is in the memory and written to
+     *         the disk only on commits
+     */
+    public boolean isInMemory();
+
+    /**
+     * @return The number of websites in the index, including not committed
+     *         ones
+     */
+    public int getDocumentCount();
+}
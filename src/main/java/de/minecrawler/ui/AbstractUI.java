@@ -18,15 +18,24 @@
 
 package de.minecrawler.ui;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import de.minecrawler.IRSystem;
 import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.data.SearchPage;
+import de.minecrawler.search.SearchMetrics;
 
 /**
  * General class to provide several methods for searching, using retrieved
@@ -34,10 +43,30 @@ import de.minecrawler.data.CrawledWebsiteResult;
  */
 public abstract class AbstractUI {
 
+    // Print the query metrics after searching
+    private boolean printMetrics;
+    // Null when the query metrics are not exported
+    private String metricsFile;
+
     protected AbstractUI() {
 
     }
 
+    /**
+     * Sets how the metrics of the queries are shown after searching.
+     * 
+     * @param printMetrics
+     *            Print the latencies of the query phases and the query
+     *            counters on the console
+     * @param metricsFile
+     *            The file to write the metrics as JSON to, <code>null</code>
+     *            to not export the metrics
+     */
+    protected void setMetricsOutput(boolean printMetrics, String metricsFile) {
+        this.printMetrics = printMetrics;
+        this.metricsFile = metricsFile;
+    }
+
     /**
      * Use a {@link IRSystem} to run a search
      * 
@@ -48,20 +77,26 @@ public abstract class AbstractUI {
      * @param printOnConsole
      *            Should the result be printed on the console or to a new created
      *            file
+     * @param printFullText
+     *            Print the full text of the results instead of snippets
      * @param resultLimit
      *            How many results shall printed
+     * @param cursor
+     *            The cursor of the previous result page, <code>null</code> for
+     *            the first page
      * @param forceCrawling
      *            Enforce a crawl(ignoring cache)
+     * @param crawlerOptions
+     *            Options for the crawler, used when no cache is used
      * @param query
      *            * The query itself, see <a href=
      *            "http://lucene.apache.org/core/4_1_0/queryparser/org/apache/lucene/queryparser/classic/package-summary.html"
      *            >Query Format</a>
      */
-    protected void startSearch(URL seed, int maxDepth, boolean printOnConsole, int resultLimit, boolean forceCrawling, String query) {
-        long time = System.nanoTime();
+    protected void startSearch(URL seed, int maxDepth, boolean printOnConsole, boolean printFullText, int resultLimit, String cursor, boolean forceCrawling, CrawlerOptions crawlerOptions, String query) {
         IRSystem irSystem;
         try {
-            irSystem = new IRSystem(seed, maxDepth, forceCrawling);
+            irSystem = new IRSystem(seed, maxDepth, forceCrawling, crawlerOptions);
         } catch (Exception e) {
             System.err.println("Error while executing the search!");
             e.printStackTrace();
@@ -72,10 +107,85 @@ public abstract class AbstractUI {
         System.out.println("Query: " + query);
         System.out.println();
 
-        List<CrawledWebsiteResult> results = irSystem.search(query, resultLimit);
+        // Only the query, the crawling and opening the index are not measured
+        long time = System.nanoTime();
+        SearchPage page = irSystem.search(query, resultLimit, cursor);
         time = System.nanoTime() - time;
 
-        showResults(printOnConsole, results, time);
+        showResults(printOnConsole, printFullText ? irSystem : null, page, time);
+        showMetrics(irSystem);
+        irSystem.close();
+    }
+
+    /**
+     * Use a {@link IRSystem} to run many queries in parallel. The results are
+     * written as JSON lines.
+     * 
+     * @param seed
+     *            The initial url seed
+     * @param maxDepth
+     *            The maximum crawl depth
+     * @param printOnConsole
+     *            Should the results be printed on the console or to a new
+     *            created file
+     * @param resultLimit
+     *            How many results per query shall printed
+     * @param forceCrawling
+     *            Enforce a crawl(ignoring cache)
+     * @param crawlerOptions
+     *            Options for the crawler, used when no cache is used
+     * @param queryFile
+     *            The file containing one query per line, <code>-</code> to
+     *            read the queries from the console
+     * @param threads
+     *            Number of threads running queries in parallel
+     */
+    protected void startBatchSearch(URL seed, int maxDepth, boolean printOnConsole, int resultLimit, boolean forceCrawling, CrawlerOptions crawlerOptions, String queryFile, int threads) {
+        IRSystem irSystem;
+        try {
+            irSystem = new IRSystem(seed, maxDepth, forceCrawling, crawlerOptions);
+        } catch (Exception e) {
+            System.err.println("Error while executing the search!");
+            e.printStackTrace();
+            return;
+        }
+
+        long time = System.nanoTime();
+        File resultFile = null;
+        try {
+            BufferedReader queries;
+            if (queryFile.equals("-"))
+                queries = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+            else
+                queries = new BufferedReader(new FileReader(queryFile));
+
+            Writer out;
+            if (printOnConsole) {
+                out = new BufferedWriter(new OutputStreamWriter(System.out, "UTF-8"));
+            } else {
+                resultFile = createResultFile("jsonl");
+                out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(resultFile), "UTF-8"));
+            }
+
+            int count = irSystem.searchBatch(queries, out, resultLimit, threads);
+            time = System.nanoTime() - time;
+            if (resultFile != null) {
+                out.close();
+                System.out.println("Resuls were written to " + resultFile.getName());
+            }
+            if (!queryFile.equals("-"))
+                queries.close();
+
+            System.out.println("Queries: " + count);
+            System.out.println(printTime(time));
+            if (count > 0)
+                System.out.println("Queries per second: " + (count * TimeUnit.SECONDS.toNanos(1) / time));
+            showMetrics(irSystem);
+        } catch (Exception e) {
+            System.err.println("Error while executing the queries!");
+            e.printStackTrace();
+        }
+        irSystem.close();
     }
 
     /**
@@ -84,13 +194,17 @@ public abstract class AbstractUI {
      * @param showInConsole
      *            Show the output on the console<br>
      *            If <code>false</code> the output will be written into a file
-     * @param result
-     *            The result of the query
+     * @param fullTextSystem
+     *            The system to load the full text of the results from.
+     *            <code>Null</code> to show only the snippets
+     * @param page
+     *            The result page of the query
      * @param time
      *            The time the query needs to be executed
      */
-    private void showResults(boolean showInConsole, List<CrawledWebsiteResult> results, long time) {
-        System.out.println("Results: " + results.size());
+    private void showResults(boolean showInConsole, IRSystem fullTextSystem, SearchPage page, long time) {
+        List<CrawledWebsiteResult> results = page.getResults();
+        System.out.println("Results: " + results.size() + " of " + page.getTotalHits());
         System.out.println(printTime(time));
         System.out.println();
 
@@ -101,10 +215,16 @@ public abstract class AbstractUI {
             sBuilder.append("Score: ").append(result.getScore()).append(lineSeparator);
             sBuilder.append("URL: ").append(result.getWebsite().getURL().toString()).append(lineSeparator);
             sBuilder.append("Title: ").append(result.getWebsite().getTitle()).append(lineSeparator);
-            sBuilder.append("Text: ").append(result.getWebsite().getBody()).append(lineSeparator);
+            if (fullTextSystem != null)
+                sBuilder.append("Text: ").append(fullTextSystem.loadBody(result.getWebsite().getURL().toString())).append(lineSeparator);
+            else
+                sBuilder.append("Snippet: ").append(result.getSnippet() == null ? "" : result.getSnippet()).append(lineSeparator);
             sBuilder.append(lineSeparator);
         }
 
+        if (page.getNextCursor() != null)
+            sBuilder.append("Next page: --cursor ").append(page.getNextCursor()).append(lineSeparator);
+
         if (showInConsole) {
             System.out.print(sBuilder.toString());
         } else {
@@ -113,6 +233,40 @@ public abstract class AbstractUI {
         }
     }
 
+    /**
+     * Prints the metrics of the queries and writes them to the metrics file,
+     * see {@link #setMetricsOutput(boolean, String)}.
+     * 
+     * @param irSystem
+     *            The system having run the queries
+     */
+    private void showMetrics(IRSystem irSystem) {
+        SearchMetrics metrics = irSystem.getSearchMetrics();
+        if (metrics == null)
+            return;
+
+        if (printMetrics) {
+            System.out.println();
+            System.out.println("Query latencies in milliseconds:");
+            metrics.dump(System.out);
+        }
+        if (metricsFile != null) {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(metricsFile), "UTF-8"));
+                try {
+                    writer.write(metrics.toJson());
+                    writer.write(System.getProperty("line.separator"));
+                } finally {
+                    writer.close();
+                }
+                System.out.println("Metrics were written to " + metricsFile);
+            } catch (Exception e) {
+                System.err.println("Error while writing the metrics!");
+                e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * Formats the execution time to a readable format with seconds, milliseconds
      * and microseconds.
@@ -142,7 +296,7 @@ public abstract class AbstractUI {
      */
     private String writeToFile(String text) {
         try {
-            File f = createResultFile();
+            File f = createResultFile("txt");
             BufferedWriter writer = new BufferedWriter(new FileWriter(f));
             writer.write(text);
             writer.close();
@@ -155,11 +309,13 @@ public abstract class AbstractUI {
     }
 
     /**
+     * @param extension
+     *            The extension of the file
      * @return A not used file as output
      */
-    private File createResultFile() {
+    private File createResultFile(String extension) {
         for (int i = 0;; ++i) {
-            File f = new File("result" + i + ".txt");
+            File f = new File("result" + i + "." + extension);
             if (!f.exists())
                 return f;
         }
@@ -18,8 +18,13 @@
 
 package de.minecrawler.ui;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -28,6 +33,9 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
 
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.search.DirectoryType;
+
 /**
  * Handler for using console arguments to start the information retrieval.
  */
@@ -65,10 +73,78 @@ public class ArgumentUI extends AbstractUI {
 
         options.addOption("l", "limit", true, "Number of max results");
 
+        options.addOption("a", "cursor", true, "Show the result page after this cursor of the previous page");
+
+        options.addOption("Q", "queryFile", true, "Run every query of this file, - for the console, and print the results as JSON lines");
+
+        options.addOption("j", "queryThreads", true, "Number of threads running the queries of the query file");
+
+        options.addOption("F", "fullText", false, "Print the full text of the results instead of snippets");
+
         options.addOption("d", "depth", true, "Max recursivce deepth to crawl");
 
         options.addOption("f", "forceCrawling", false, "Enforce website crawling and ignore using cache");
 
+        options.addOption("r", "refresh", false, "Refresh an expired cache incrementally instead of crawling again");
+
+        options.addOption("t", "threads", true, "Number of threads crawling in parallel");
+
+        options.addOption("n", "nearDuplicates", true, "Skip websites whose fingerprints differ in at most this many bits (0-3) from a crawled one");
+
+        options.addOption("x", "streamingExtraction", true, "Extract text and links without a DOM from at most this many bytes of a website");
+
+        options.addOption("P", "maxPages", true, "Maximum number of websites to crawl");
+
+        options.addOption("B", "maxBytes", true, "Maximum number of bytes to download");
+
+        options.addOption("T", "maxTime", true, "Maximum crawl time in seconds");
+
+        options.addOption("p", "maxHostPages", true, "Maximum number of websites to crawl per host");
+
+        options.addOption("H", "hostRequests", true, "Maximum number of parallel requests per host");
+
+        options.addOption("D", "hostDelay", true, "Minimum delay between two requests to a host in milliseconds");
+
+        options.addOption("m", "maxResponseSize", true, "Maximum number of bytes read of a website");
+
+        options.addOption("q", "queueSize", true, "Number of crawled websites waiting for indexing, 0 to index after crawling");
+
+        options.addOption("i", "indexThreads", true, "Number of threads indexing while crawling");
+
+        options.addOption("s", "searchThreads", true, "Number of threads searching the index segments of a query in parallel");
+
+        options.addOption("M", "maxSegmentSize", true, "Maximum size of an index segment in megabytes, smaller segments are searched in parallel");
+
+        options.addOption("R", "ramBuffer", true, "Size of the buffer for indexed websites in megabytes");
+
+        options.addOption("g", "mergeThreads", true, "Number of threads merging index segments in the background");
+
+        options.addOption("k", "indexBatchSize", true, "Maximum number of websites added at once to the index");
+
+        options.addOption("O", "forceMerge", true, "Merge the index to at most this many segments after crawling");
+
+        options.addOption("y", "directory", true, "Directory implementation of the index: auto, mmap, ram or nio");
+
+        options.addOption("A", "alerts", true, "File with standing queries, one per line, matched against every crawled website");
+
+        options.addOption("E", "externalBodies", false, "Store the website bodies compressed beside the index instead of in it");
+
+        options.addOption("G", "pageRank", true, "Boost the hits by their PageRank with this weight, 0 to disable the PageRank");
+
+        options.addOption("S", "sortedIndex", false, "Sort the index by the PageRank after crawling");
+
+        options.addOption("e", "earlyTermination", true, "Collect only this many hits per index segment sorted by the PageRank, 0 to collect all hits");
+
+        options.addOption("N", "shards", true, "Split a new index into this many shards by host, searched in parallel");
+
+        options.addOption("v", "metrics", false, "Print the latencies of the query phases and the query counters after searching");
+
+        options.addOption("w", "metricsFile", true, "Write the query metrics as JSON to this file after searching");
+
+        options.addOption("C", "checkpointInterval", true, "Seconds between two checkpoints of a crawl, 0 to disable resuming crashed crawls");
+
+        options.addOption("b", "bloomFilter", true, "Remember visited urls in a Bloom filter sized for this number of urls");
+
         return options;
     }
 
@@ -92,6 +168,10 @@ public class ArgumentUI extends AbstractUI {
 
         int depth = 5;
 
+        int queryThreads = Runtime.getRuntime().availableProcessors();
+
+        CrawlerOptions crawlerOptions = new CrawlerOptions();
+
         try {
             CommandLine line = parser.parse(options, args);
             if (!line.hasOption("url")) {
@@ -111,6 +191,18 @@ public class ArgumentUI extends AbstractUI {
                 }
             }
 
+            if (line.hasOption("queryThreads")) {
+                String tmp = line.getOptionValue("queryThreads");
+                try {
+                    queryThreads = Integer.parseInt(tmp);
+                    if (queryThreads < 1)
+                        throw new IllegalArgumentException();
+                } catch (Exception e) {
+                    queryThreads = Runtime.getRuntime().availableProcessors();
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
             if (line.hasOption("depth")) {
                 String tmp = line.getOptionValue("depth");
                 try {
@@ -120,16 +212,254 @@ public class ArgumentUI extends AbstractUI {
                 }
             }
 
+            if (line.hasOption("threads")) {
+                String tmp = line.getOptionValue("threads");
+                try {
+                    crawlerOptions.setThreads(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("bloomFilter")) {
+                String tmp = line.getOptionValue("bloomFilter");
+                try {
+                    crawlerOptions.setBloomFilterSize(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("nearDuplicates")) {
+                String tmp = line.getOptionValue("nearDuplicates");
+                try {
+                    crawlerOptions.setNearDuplicateDistance(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a number between 0 and 3!");
+                }
+            }
+
+            if (line.hasOption("streamingExtraction")) {
+                String tmp = line.getOptionValue("streamingExtraction");
+                try {
+                    crawlerOptions.setStreamingExtractionLimit(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("checkpointInterval")) {
+                String tmp = line.getOptionValue("checkpointInterval");
+                try {
+                    crawlerOptions.setCheckpointInterval(Long.parseLong(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("maxPages")) {
+                String tmp = line.getOptionValue("maxPages");
+                try {
+                    crawlerOptions.setMaxPages(Long.parseLong(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("maxBytes")) {
+                String tmp = line.getOptionValue("maxBytes");
+                try {
+                    crawlerOptions.setMaxBytes(Long.parseLong(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("maxTime")) {
+                String tmp = line.getOptionValue("maxTime");
+                try {
+                    crawlerOptions.setMaxTime(Long.parseLong(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("maxHostPages")) {
+                String tmp = line.getOptionValue("maxHostPages");
+                try {
+                    crawlerOptions.setMaxPagesPerHost(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("hostRequests")) {
+                String tmp = line.getOptionValue("hostRequests");
+                try {
+                    crawlerOptions.setMaxHostRequests(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("hostDelay")) {
+                String tmp = line.getOptionValue("hostDelay");
+                try {
+                    crawlerOptions.setHostDelay(Long.parseLong(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("maxResponseSize")) {
+                String tmp = line.getOptionValue("maxResponseSize");
+                try {
+                    crawlerOptions.setMaxResponseSize(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("queueSize")) {
+                String tmp = line.getOptionValue("queueSize");
+                try {
+                    crawlerOptions.setQueueSize(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("searchThreads")) {
+                String tmp = line.getOptionValue("searchThreads");
+                try {
+                    crawlerOptions.setSearchThreads(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("maxSegmentSize")) {
+                String tmp = line.getOptionValue("maxSegmentSize");
+                try {
+                    crawlerOptions.setMaxSegmentSize(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("ramBuffer")) {
+                String tmp = line.getOptionValue("ramBuffer");
+                try {
+                    crawlerOptions.setRamBufferSize(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("mergeThreads")) {
+                String tmp = line.getOptionValue("mergeThreads");
+                try {
+                    crawlerOptions.setMergeThreads(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("indexBatchSize")) {
+                String tmp = line.getOptionValue("indexBatchSize");
+                try {
+                    crawlerOptions.setIndexBatchSize(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("forceMerge")) {
+                String tmp = line.getOptionValue("forceMerge");
+                try {
+                    crawlerOptions.setForceMerge(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("directory")) {
+                String tmp = line.getOptionValue("directory");
+                try {
+                    crawlerOptions.setDirectoryType(DirectoryType.valueOf(tmp.toUpperCase()));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a directory type (auto, mmap, ram or nio)!");
+                }
+            }
+
+            if (line.hasOption("alerts")) {
+                String tmp = line.getOptionValue("alerts");
+                try {
+                    crawlerOptions.setStandingQueries(readLines(tmp));
+                } catch (IOException e) {
+                    System.out.println("Can't read the standing queries from " + tmp + "!");
+                }
+            }
+
+            if (line.hasOption("pageRank")) {
+                String tmp = line.getOptionValue("pageRank");
+                try {
+                    crawlerOptions.setPageRankWeight(Float.parseFloat(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("earlyTermination")) {
+                String tmp = line.getOptionValue("earlyTermination");
+                try {
+                    crawlerOptions.setEarlyTermination(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("shards")) {
+                String tmp = line.getOptionValue("shards");
+                try {
+                    crawlerOptions.setShards(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
+            if (line.hasOption("indexThreads")) {
+                String tmp = line.getOptionValue("indexThreads");
+                try {
+                    crawlerOptions.setIndexThreads(Integer.parseInt(tmp));
+                } catch (Exception e) {
+                    System.out.println(tmp + " is not a positive number!");
+                }
+            }
+
             // Shows the query output on the console
             showInConsole = line.hasOption("console");
 
             forceCrawling = line.hasOption("forceCrawling");
 
+            crawlerOptions.setIncrementalRefresh(line.hasOption("refresh"));
+
+            crawlerOptions.setExternalBodies(line.hasOption("externalBodies"));
+
+            crawlerOptions.setSortedIndex(line.hasOption("sortedIndex"));
+
+            setMetricsOutput(line.hasOption("metrics"), line.getOptionValue("metricsFile"));
+
+            if (line.hasOption("queryFile")) {
+                startBatchSearch(seed, depth, showInConsole, resultLimit, forceCrawling, crawlerOptions, line.getOptionValue("queryFile"), queryThreads);
+                return;
+            }
+
             // Non parsed arguments are the query
             args = line.getArgs();
             String query = buildQuery(args);
 
-            startSearch(seed, depth, showInConsole, resultLimit, forceCrawling, query);
+            startSearch(seed, depth, showInConsole, line.hasOption("fullText"), resultLimit, line.getOptionValue("cursor"), forceCrawling, crawlerOptions, query);
         } catch (ParseException e) {
             HelpFormatter formatter = new HelpFormatter();
             formatter.printHelp("", options);
@@ -141,6 +471,31 @@ public class ArgumentUI extends AbstractUI {
 
     }
 
+    /**
+     * Reads the non empty lines of a file.
+     * 
+     * @param fileName
+     *            The name of the file
+     * @return The trimmed lines
+     * @throws IOException
+     *             Error while reading the file
+     */
+    private List<String> readLines(String fileName) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(fileName));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty())
+                    lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
     /**
      * Connects all non parsed arguments from the console to one single string,
      * the query.
@@ -22,6 +22,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Scanner;
 
+import de.minecrawler.data.CrawlerOptions;
+
 /**
  * Class to provide a user friendly, console based interface.
  */
@@ -40,10 +42,16 @@ public class WizardUI extends AbstractUI {
         boolean printOnConsole = askConsole();
         int resultLimit = askResultLimit();
         boolean forceCrawling = askEnforceCrawling();
+        CrawlerOptions crawlerOptions = new CrawlerOptions();
+        crawlerOptions.setThreads(askThreads());
+        crawlerOptions.setMaxPages(askLimit("Max number of websites to crawl", Integer.MAX_VALUE));
+        crawlerOptions.setMaxBytes(askLimit("Max number of bytes to download", Long.MAX_VALUE));
+        crawlerOptions.setMaxTime(askLimit("Max crawl time in seconds", Long.MAX_VALUE));
+        crawlerOptions.setMaxPagesPerHost(askIntLimit("Max number of websites to crawl per host"));
         String query = askQuery();
 
         scanner.close();
-        startSearch(seed, depth, printOnConsole, resultLimit, forceCrawling, query);
+        startSearch(seed, depth, printOnConsole, false, resultLimit, null, forceCrawling, crawlerOptions, query);
     }
 
     /**
@@ -114,6 +122,63 @@ public class WizardUI extends AbstractUI {
         }
     }
 
+    /**
+     * Asks the user about the number of threads crawling the websites in
+     * parallel.
+     * 
+     * @return Number of crawling threads, {@link CrawlerOptions#DEFAULT_THREADS}
+     *         by default
+     */
+    private int askThreads() {
+        System.out.println("Number of threads crawling in parallel(Enter nothing for default " + CrawlerOptions.DEFAULT_THREADS + ")");
+        String threadString = scanner.nextLine();
+        if (threadString == null || threadString.isEmpty())
+            return CrawlerOptions.DEFAULT_THREADS;
+        try {
+            int threads = Integer.parseInt(threadString);
+            if (threads > 0)
+                return threads;
+        } catch (Exception e) {
+        }
+        System.out.println("Not a positive number - use " + CrawlerOptions.DEFAULT_THREADS + " threads");
+        return CrawlerOptions.DEFAULT_THREADS;
+    }
+
+    /**
+     * Asks the user about a limit of the crawl budget.
+     * 
+     * @param question
+     *            The limit to ask for
+     * @param max
+     *            The largest accepted limit
+     * @return The limit, <code>0</code> by default for no limit
+     */
+    private long askLimit(String question, long max) {
+        System.out.println(question + "(Enter nothing for no limit)");
+        String limitString = scanner.nextLine();
+        if (limitString == null || limitString.isEmpty())
+            return 0L;
+        try {
+            long limit = Long.parseLong(limitString);
+            if (limit >= 0 && limit <= max)
+                return limit;
+        } catch (Exception e) {
+        }
+        System.out.println("Not a positive number up to " + max + " - use no limit");
+        return 0L;
+    }
+
+    /**
+     * Asks the user about a limit of the crawl budget fitting into an int.
+     * 
+     * @param question
+     *            The limit to ask for
+     * @return The limit, <code>0</code> by default for no limit
+     */
+    private int askIntLimit(String question) {
+        return (int) askLimit(question, Integer.MAX_VALUE);
+    }
+
     /**
      * @return The query to be executed
      */
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import de.minecrawler.cache.PageMetadataStore;
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawlerOptions;
+
+public class CrawlerTest {
+
+    // The links of every website, the start page is on depth 0
+    private static final Map<String, String[]> SITE = new HashMap<String, String[]>();
+    static {
+        SITE.put("/", new String[]{"/a", "/b"});
+        SITE.put("/a", new String[]{"/", "/c"});
+        SITE.put("/b", new String[]{"/a", "/c"});
+        SITE.put("/c", new String[]{"/d"});
+        SITE.put("/d", new String[0]);
+    }
+
+    private static final File DIR = new File("target/crawlerTest");
+
+    private static HttpServer server;
+    private static String base;
+    // Number of requests of every path
+    private static ConcurrentHashMap<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+    private static AtomicInteger notModified = new AtomicInteger();
+    // Changed websites, replacing the generated page
+    private static ConcurrentHashMap<String, String> changed = new ConcurrentHashMap<String, String>();
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                String[] links = SITE.get(path);
+                if (links == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    exchange.close();
+                    return;
+                }
+                AtomicInteger count = new AtomicInteger();
+                AtomicInteger old = requests.putIfAbsent(path, count);
+                (old == null ? count : old).incrementAndGet();
+
+                String page = changed.containsKey(path) ? changed.get(path) : page(path);
+                String eTag = "\"" + Integer.toHexString(page.hashCode()) + "\"";
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+                exchange.getResponseHeaders().add("ETag", eTag);
+                if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] body = page.getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static String page(String path) {
+        StringBuilder page = new StringBuilder("<html><head><title>Seite ").append(path).append("</title></head><body><p>Inhalt von ").append(path).append("</p>");
+        for (String link : SITE.get(path)) {
+            page.append("<a href=\"").append(base).append(link).append("\">").append(link).append("</a>");
+        }
+        return page.append("</body></html>").toString();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+        server.stop(0);
+    }
+
+    @Before
+    public void setUp() {
+        requests.clear();
+        notModified.set(0);
+        changed.clear();
+        deleteDir(DIR);
+        DIR.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(DIR);
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static CrawlerOptions options() {
+        CrawlerOptions options = new CrawlerOptions();
+        options.setThreads(4);
+        return options;
+    }
+
+    @Test
+    public void breadthFirstTest() throws Exception {
+        Crawler crawler = new Crawler(3, new URL(base + "/"), options());
+        Set<String> urls = new HashSet<String>();
+        for (CrawledWebsite website : crawler.run()) {
+            assertTrue(urls.add(website.getURL().getPath()));
+        }
+        assertEquals(new HashSet<String>(Arrays.asList("/", "/a", "/b", "/c")), urls);
+        // Every website is fetched once, the website on depth 3 is never fetched
+        assertEquals(urls, requests.keySet());
+        for (AtomicInteger count : requests.values()) {
+            assertEquals(1, count.get());
+        }
+
+        requests.clear();
+        crawler = new Crawler(1, new URL(base + "/"), options());
+        assertEquals(1, crawler.run().size());
+        assertEquals(Collections.singleton("/"), requests.keySet());
+    }
+
+    @Test
+    public void conditionalRefreshTest() throws Exception {
+        PageMetadataStore store = new PageMetadataStore();
+        Crawler crawler = new Crawler(3, new URL(base + "/"), options());
+        crawler.setMetadataStore(store);
+        assertEquals(4, crawler.run().size());
+        assertEquals(4, store.size());
+        assertEquals(0, notModified.get());
+        store.save(DIR);
+
+        // Refresh with the saved metadata, every website is unchanged
+        requests.clear();
+        store = PageMetadataStore.load(DIR);
+        crawler = new Crawler(3, new URL(base + "/"), options());
+        crawler.setMetadataStore(store);
+        List<CrawledWebsite> websites = crawler.run();
+        assertTrue(websites.isEmpty());
+        assertEquals(4, crawler.getUnchangedWebsites());
+        assertEquals(4, notModified.get());
+        // The known links of the unchanged websites are followed
+        assertEquals(4, requests.size());
+        assertEquals(4, store.getSeenCount());
+        assertTrue(store.removeUnseen().isEmpty());
+    }
+
+    @Test
+    public void changedToDuplicateTest() throws Exception {
+        CrawlerOptions options = options();
+        options.setNearDuplicateDistance(0);
+        PageMetadataStore store = new PageMetadataStore();
+        Crawler crawler = new Crawler(3, new URL(base + "/"), options);
+        crawler.setMetadataStore(store);
+        assertEquals(4, crawler.run().size());
+        store.save(DIR);
+
+        // The website becomes a copy of the unchanged start page
+        changed.put("/b", page("/"));
+        store = PageMetadataStore.load(DIR);
+        crawler = new Crawler(3, new URL(base + "/"), options);
+        crawler.setMetadataStore(store);
+        assertTrue(crawler.run().isEmpty());
+        assertEquals(1, crawler.getDuplicateWebsites());
+        assertEquals(3, crawler.getUnchangedWebsites());
+        // The outdated version is removed from the cache
+        assertEquals(Collections.singletonList(base + "/b"), store.removeUnseen());
+        store.save(DIR);
+
+        // The next refresh requests the duplicate unconditionally
+        notModified.set(0);
+        store = PageMetadataStore.load(DIR);
+        crawler = new Crawler(3, new URL(base + "/"), options);
+        crawler.setMetadataStore(store);
+        assertTrue(crawler.run().isEmpty());
+        assertEquals(1, crawler.getDuplicateWebsites());
+        assertEquals(3, notModified.get());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.benchmark;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.search.CachedSearchEngine;
+import de.minecrawler.search.LiveSearchEngine;
+
+/**
+ * Compares an index storing the bodies with an index using a body store. It
+ * measures the indexing time, the size of the index and the store, the time
+ * for merging the index into one segment and the time for fetching the hits
+ * including their snippets and bodies.
+ */
+public class BodyStoreBenchmark {
+
+    private static final int SYNTHETIC_PAGES = 20000;
+    private static final int QUERIES = 500;
+
+    private static final String[] WORDS = { "spiele", "hardware", "test", "news", "video", "forum", "preis", "grafik", "wertung", "redaktion" };
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(42L);
+        CrawledWebsite[] websites = new CrawledWebsite[SYNTHETIC_PAGES];
+        for (int i = 0; i < SYNTHETIC_PAGES; ++i) {
+            StringBuilder sBuilder = new StringBuilder();
+            for (int w = 0; w < 400; ++w) {
+                sBuilder.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(1000)).append(w % 12 == 11 ? ". " : " ");
+            }
+            websites[i] = new CrawledWebsite(sBuilder.toString(), "Page " + i, "http://www.example.com/page" + i + ".html");
+        }
+
+        run("Stored", websites, false);
+        run("External", websites, true);
+    }
+
+    private static void run(String name, CrawledWebsite[] websites, boolean externalBodies) throws Exception {
+        File index = new File("target/bodyStoreBenchmark" + name);
+        deleteDir(index);
+        CrawlerOptions options = new CrawlerOptions();
+        options.setExternalBodies(externalBodies);
+        // Multiple segments to merge
+        options.setRamBufferSize(16);
+
+        long start = System.nanoTime();
+        LiveSearchEngine engine = new LiveSearchEngine(index, 0L, options);
+        for (CrawledWebsite website : websites) {
+            engine.addWebsite(website);
+        }
+        engine.commit();
+        long indexTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        engine.forceMerge(1);
+        engine.commit();
+        long mergeTime = System.nanoTime() - start;
+        engine.close();
+
+        long storeSize = 0L;
+        long indexSize = 0L;
+        for (File file : index.listFiles()) {
+            if (file.getName().startsWith("bodies."))
+                storeSize += file.length();
+            else
+                indexSize += file.length();
+        }
+
+        CachedSearchEngine cached = new CachedSearchEngine(index);
+        cached.setResultCache(null);
+        long fetchTime = 0L;
+        long bodyTime = 0L;
+        for (int round = 0; round < 2; ++round) {
+            fetchTime = 0L;
+            bodyTime = 0L;
+            for (int i = 0; i < QUERIES; ++i) {
+                start = System.nanoTime();
+                List<CrawledWebsiteResult> results = cached.search(WORDS[i % WORDS.length] + i % 1000, 10);
+                fetchTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (CrawledWebsiteResult result : results) {
+                    cached.loadBody(result.getWebsite().getURL().toString());
+                }
+                bodyTime += System.nanoTime() - start;
+            }
+        }
+        cached.close();
+        deleteDir(index);
+
+        System.out.printf("%-8s: index %6.1f MB, store %6.1f MB, indexing %6d ms, merge %6d ms, search+snippets %6.3f ms/query, bodies %6.3f ms/query%n", name, indexSize / 1048576.0, storeSize / 1048576.0, indexTime / 1000000, mergeTime / 1000000, fetchTime / 1000000.0 / QUERIES, bodyTime / 1000000.0 / QUERIES);
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
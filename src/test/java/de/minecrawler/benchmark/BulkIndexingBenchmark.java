@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.minecrawler.crawl.CrawlPipeline;
+import de.minecrawler.crawl.CrawledWebsiteBatchHandler;
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.search.LiveSearchEngine;
+
+/**
+ * Measures the indexed websites per second of the bulk indexing with an
+ * increasing number of index threads. The synthetic websites are created
+ * before, so only the indexing is measured. The maximum number of threads is
+ * the first argument, the default is the number of processors.
+ */
+public class BulkIndexingBenchmark {
+
+    private static final int SYNTHETIC_PAGES = 20000;
+
+    private static final String[] WORDS = { "spiele", "hardware", "test", "news", "video", "forum", "preis", "grafik", "wertung", "redaktion" };
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<CrawledWebsite> websites = createWebsites();
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            CrawlerOptions options = new CrawlerOptions();
+            options.setIndexThreads(threads);
+            File index = new File("target/bulkIndexingBenchmark" + threads);
+            deleteDir(index);
+
+            final LiveSearchEngine engine = new LiveSearchEngine(index, 0L, options);
+            long start = System.nanoTime();
+            CrawlPipeline pipeline = new CrawlPipeline(threads * options.getIndexBatchSize() * 2, threads, options.getIndexBatchSize(), new CrawledWebsiteBatchHandler() {
+                @Override
+                public void handle(List<CrawledWebsite> batch) {
+                    engine.addWebsites(batch);
+                }
+            });
+            for (CrawledWebsite website : websites) {
+                pipeline.handle(website);
+            }
+            pipeline.finish();
+            engine.commit();
+            long time = System.nanoTime() - start;
+            engine.close();
+            deleteDir(index);
+
+            System.out.printf("%2d threads: %10.1f websites/s%n", threads, websites.size() * 1E9 / time);
+        }
+    }
+
+    private static List<CrawledWebsite> createWebsites() {
+        Random random = new Random(42L);
+        List<CrawledWebsite> websites = new ArrayList<CrawledWebsite>(SYNTHETIC_PAGES);
+        for (int i = 0; i < SYNTHETIC_PAGES; ++i) {
+            StringBuilder sBuilder = new StringBuilder();
+            for (int w = 0; w < 300; ++w) {
+                sBuilder.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(100)).append(' ');
+            }
+            websites.add(new CrawledWebsite(sBuilder.toString(), "Page " + i, "http://www.example.com/page" + i + ".html"));
+        }
+        return websites;
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.benchmark;
+
+import java.io.File;
+import java.util.Random;
+
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.search.CachedSearchEngine;
+import de.minecrawler.search.DirectoryType;
+import de.minecrawler.search.LiveSearchEngine;
+
+/**
+ * Compares the query latency of the directory implementations. Run it with
+ * the directory of an index as argument or without arguments for a synthetic
+ * index. The result cache is disabled, so every query reads the index.
+ */
+public class DirectoryBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int QUERIES = 1000;
+    private static final int SYNTHETIC_PAGES = 20000;
+
+    private static final String[] WORDS = { "spiele", "hardware", "test", "news", "video", "forum", "preis", "grafik", "wertung", "redaktion" };
+
+    public static void main(String[] args) throws Exception {
+        File index = args.length > 0 ? new File(args[0]) : new File("target/directoryBenchmark");
+        if (!index.exists())
+            createIndex(index);
+        System.out.println("AUTO chooses " + DirectoryType.AUTO.resolve(index, true));
+
+        DirectoryType[] types = { DirectoryType.NIO, DirectoryType.MMAP, DirectoryType.RAM };
+        for (int round = 1; round <= ROUNDS; ++round) {
+            for (DirectoryType type : types) {
+                long start = System.nanoTime();
+                CachedSearchEngine engine = new CachedSearchEngine(index, type);
+                engine.setResultCache(null);
+                long openTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < QUERIES; ++i) {
+                    engine.search(WORDS[i % WORDS.length] + i % 100 + " " + WORDS[(i * 3 + 1) % WORDS.length] + i % 50, 10);
+                }
+                long time = System.nanoTime() - start;
+                engine.close();
+                System.out.printf("%-5s round %d: open %8.3f ms, %8.3f ms/query%n", type, round, openTime / 1000000.0, time / 1000000.0 / QUERIES);
+            }
+        }
+    }
+
+    private static void createIndex(File index) throws Exception {
+        Random random = new Random(42L);
+        LiveSearchEngine engine = new LiveSearchEngine(index);
+        for (int i = 0; i < SYNTHETIC_PAGES; ++i) {
+            StringBuilder sBuilder = new StringBuilder();
+            for (int w = 0; w < 300; ++w) {
+                sBuilder.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(100)).append(' ');
+            }
+            engine.addWebsite(new CrawledWebsite(sBuilder.toString(), "Page " + i, "http://www.example.com/page" + i + ".html"));
+        }
+        engine.close();
+    }
+}
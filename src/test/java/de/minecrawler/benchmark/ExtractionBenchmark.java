@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import de.minecrawler.crawl.ExtractedContent;
+import de.minecrawler.crawl.StreamingHtmlExtractor;
+
+/**
+ * Compares the time and the allocated memory of the Jsoup DOM extraction and
+ * the {@link StreamingHtmlExtractor}. Run it with a directory of HTML files as
+ * argument or without arguments for a synthetic corpus.
+ */
+public class ExtractionBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int SYNTHETIC_PAGES = 500;
+
+    public static void main(String[] args) throws Exception {
+        List<byte[]> corpus = args.length > 0 ? loadCorpus(new File(args[0])) : createCorpus();
+        URL url = new URL("http://www.example.com/index.html");
+        long corpusBytes = 0L;
+        for (byte[] page : corpus) {
+            corpusBytes += page.length;
+        }
+        System.out.println("Corpus: " + corpus.size() + " websites, " + corpusBytes + " bytes");
+
+        for (int round = 1; round <= ROUNDS; ++round) {
+            long start = System.nanoTime();
+            long allocated = allocatedBytes();
+            long checksum = 0L;
+            for (byte[] page : corpus) {
+                Document document = Jsoup.parse(new String(page, "UTF-8"), url.toString());
+                checksum += document.title().length() + document.text().length();
+                for (Element link : document.getElementsByAttribute("href")) {
+                    checksum += link.absUrl("href").length();
+                }
+            }
+            print("Jsoup", round, corpus.size(), System.nanoTime() - start, allocatedBytes() - allocated, checksum);
+
+            start = System.nanoTime();
+            allocated = allocatedBytes();
+            checksum = 0L;
+            for (byte[] page : corpus) {
+                ExtractedContent content = StreamingHtmlExtractor.extract(page, "UTF-8", url, Integer.MAX_VALUE);
+                checksum += content.getTitle().length() + content.getText().length();
+                for (String link : content.getLinks()) {
+                    checksum += link.length();
+                }
+            }
+            print("Streaming", round, corpus.size(), System.nanoTime() - start, allocatedBytes() - allocated, checksum);
+        }
+    }
+
+    private static void print(String name, int round, int pages, long time, long allocated, long checksum) {
+        System.out.printf("%-10s round %d: %8.3f ms/website, %10d bytes allocated/website (checksum %d)%n", name, round, time / 1000000.0 / pages, allocated / pages, checksum);
+    }
+
+    /**
+     * @return The bytes allocated by the current thread or <code>0</code> when
+     *         the JVM doesn't support it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0L;
+    }
+
+    private static List<byte[]> loadCorpus(File directory) throws IOException {
+        List<byte[]> corpus = new ArrayList<byte[]>();
+        File[] files = directory.listFiles();
+        if (files == null)
+            throw new IOException(directory + " is no directory!");
+        for (File file : files) {
+            if (!file.isFile())
+                continue;
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                byte[] page = new byte[(int) raf.length()];
+                raf.readFully(page);
+                corpus.add(page);
+            } finally {
+                raf.close();
+            }
+        }
+        return corpus;
+    }
+
+    private static List<byte[]> createCorpus() throws IOException {
+        Random random = new Random(42L);
+        String[] words = { "spiele", "hardware", "test", "news", "video", "forum", "preis", "grafik", "wertung", "redaktion" };
+        List<byte[]> corpus = new ArrayList<byte[]>(SYNTHETIC_PAGES);
+        for (int i = 0; i < SYNTHETIC_PAGES; ++i) {
+            StringBuilder sBuilder = new StringBuilder();
+            sBuilder.append("<!DOCTYPE html><html><head><title>Page ").append(i).append("</title>");
+            sBuilder.append("<script>var page = ").append(i).append(";</script></head><body>");
+            for (int p = 0; p < 200; ++p) {
+                sBuilder.append("<div class=\"entry\"><p>");
+                for (int w = 0; w < 30; ++w) {
+                    sBuilder.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                sBuilder.append("<a href=\"/page").append(random.nextInt(10000)).append(".html\">mehr &amp; weiter</a></p></div>\n");
+            }
+            sBuilder.append("</body></html>");
+            corpus.add(sBuilder.toString().getBytes("UTF-8"));
+        }
+        return corpus;
+    }
+}
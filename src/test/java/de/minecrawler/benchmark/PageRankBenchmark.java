@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.benchmark;
+
+import java.util.Random;
+
+import de.minecrawler.crawl.LinkGraph;
+import de.minecrawler.crawl.PageRank;
+
+/**
+ * Measures recording a synthetic link graph while crawling, compacting it and
+ * computing its PageRank with one thread and with multiple threads. The
+ * number of websites is the first argument, the number of threads the second
+ * argument. Every website has 10 links on average, popular websites get more
+ * links than others.
+ */
+public class PageRankBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final int DEFAULT_PAGES = 1000000;
+    private static final int AVERAGE_LINKS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PAGES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        String[] urls = new String[pages];
+        for (int i = 0; i < pages; ++i) {
+            urls[i] = "http://www.example" + (i % 1000) + ".com/page" + i + ".html";
+        }
+        Random random = new Random(42L);
+        LinkGraph graph = new LinkGraph();
+        long start = System.nanoTime();
+        for (int i = 0; i < pages; ++i) {
+            String[] links = new String[random.nextInt(AVERAGE_LINKS * 2 + 1)];
+            for (int j = 0; j < links.length; ++j) {
+                // Skewed to the first websites
+                double r = random.nextDouble();
+                links[j] = urls[(int) (r * r * r * pages)];
+            }
+            graph.addPage(urls[i], links);
+        }
+        print("record", System.nanoTime() - start);
+        start = System.nanoTime();
+        graph.compact();
+        print("compact", System.nanoTime() - start);
+        System.out.printf("%d websites, %d links%n", graph.getNodeCount(), graph.getLinkCount());
+
+        for (int round = 1; round <= ROUNDS; ++round) {
+            run(graph, 1, round);
+            run(graph, threads, round);
+        }
+    }
+
+    private static void run(LinkGraph graph, int threads, int round) throws InterruptedException {
+        PageRank pageRank = new PageRank(threads);
+        long start = System.nanoTime();
+        pageRank.compute(graph);
+        long time = System.nanoTime() - start;
+        System.out.printf("%2d threads round %d: %8.1f ms, %d iterations, %6.1f ms/iteration%n", threads, round, time / 1000000.0, pageRank.getIterations(), time / 1000000.0 / pageRank.getIterations());
+    }
+
+    private static void print(String name, long time) {
+        System.out.printf("%-8s %8.1f ms%n", name, time / 1000000.0);
+    }
+}
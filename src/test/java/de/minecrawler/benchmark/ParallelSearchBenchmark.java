@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.benchmark;
+
+import java.io.File;
+import java.util.Random;
+
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.search.CachedSearchEngine;
+import de.minecrawler.search.LiveSearchEngine;
+
+/**
+ * Compares the latency of single queries searched by one thread and by
+ * multiple threads searching the segments in parallel. Run it with the
+ * directory of an index as argument or without arguments for a synthetic
+ * index. The number of search threads is the second argument, the default is
+ * the number of processors.
+ */
+public class ParallelSearchBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int QUERIES = 200;
+    private static final int SYNTHETIC_PAGES = 50000;
+    // Small segments for a synthetic index to get multiple segments
+    private static final int SYNTHETIC_SEGMENT_SIZE = 8;
+
+    private static final String[] WORDS = { "spiele", "hardware", "test", "news", "video", "forum", "preis", "grafik", "wertung", "redaktion" };
+
+    public static void main(String[] args) throws Exception {
+        File index = args.length > 0 ? new File(args[0]) : new File("target/parallelSearchBenchmark");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        if (!index.exists())
+            createIndex(index);
+
+        CachedSearchEngine serial = new CachedSearchEngine(index);
+        serial.setResultCache(null);
+        CachedSearchEngine parallel = new CachedSearchEngine(index);
+        parallel.setResultCache(null);
+        parallel.setSearchThreads(threads);
+
+        for (int round = 1; round <= ROUNDS; ++round) {
+            print("1 thread", round, run(serial));
+            print(threads + " threads", round, run(parallel));
+        }
+        serial.close();
+        parallel.close();
+    }
+
+    private static long run(CachedSearchEngine engine) {
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; ++i) {
+            engine.search(WORDS[i % WORDS.length] + " OR " + WORDS[(i * 3 + 1) % WORDS.length], 10);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String name, int round, long time) {
+        System.out.printf("%-10s round %d: %8.3f ms/query%n", name, round, time / 1000000.0 / QUERIES);
+    }
+
+    private static void createIndex(File index) throws Exception {
+        Random random = new Random(42L);
+        CrawlerOptions options = new CrawlerOptions();
+        options.setMaxSegmentSize(SYNTHETIC_SEGMENT_SIZE);
+        LiveSearchEngine engine = new LiveSearchEngine(index, 0L, options);
+        for (int i = 0; i < SYNTHETIC_PAGES; ++i) {
+            StringBuilder sBuilder = new StringBuilder();
+            for (int w = 0; w < 200; ++w) {
+                sBuilder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            engine.addWebsite(new CrawledWebsite(sBuilder.toString(), "Page " + i, "http://www.example.com/page" + i + ".html"));
+        }
+        engine.close();
+    }
+}
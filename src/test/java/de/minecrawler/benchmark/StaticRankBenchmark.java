@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.benchmark;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import de.minecrawler.crawl.LinkGraph;
+import de.minecrawler.crawl.PageRank;
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.search.CachedSearchEngine;
+import de.minecrawler.search.LiveSearchEngine;
+
+/**
+ * Compares the latency and the recall of the top 10 hits of an index sorted
+ * by the PageRank searched with early termination against the full scoring
+ * of the same index. The recall is the part of the top hits of the full
+ * scoring found with early termination. The number of websites of the
+ * synthetic index is the first argument, its directory the second argument.
+ */
+public class StaticRankBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final int QUERIES = 500;
+    private static final int LIMIT = 10;
+    private static final int DEFAULT_PAGES = 100000;
+    private static final int VOCABULARY = 5000;
+    private static final int WORDS_PER_PAGE = 100;
+    private static final int AVERAGE_LINKS = 10;
+    private static final float PAGE_RANK_WEIGHT = 1F;
+    private static final int[] HITS_PER_SEGMENT = { 10, 100, 1000 };
+
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PAGES;
+        File index = args.length > 1 ? new File(args[1]) : new File("target/staticRankBenchmark");
+        if (!index.exists())
+            createIndex(index, pages);
+
+        Random random = new Random(42L);
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; ++i) {
+            queries[i] = i % 2 == 0 ? word(random) : word(random) + " OR " + word(random);
+        }
+
+        CachedSearchEngine full = open(index, 0);
+        for (int round = 1; round <= ROUNDS; ++round) {
+            long time = System.nanoTime();
+            for (String query : queries) {
+                full.search(query, LIMIT);
+            }
+            print("full", round, System.nanoTime() - time, 1.0);
+        }
+        for (int hitsPerSegment : HITS_PER_SEGMENT) {
+            CachedSearchEngine early = open(index, hitsPerSegment);
+            for (int round = 1; round <= ROUNDS; ++round) {
+                long time = 0L;
+                double recall = 0.0;
+                for (String query : queries) {
+                    long start = System.nanoTime();
+                    List<CrawledWebsiteResult> results = early.search(query, LIMIT);
+                    time += System.nanoTime() - start;
+                    recall += recall(full.search(query, LIMIT), results);
+                }
+                print("early " + hitsPerSegment, round, time, recall / QUERIES);
+            }
+            early.close();
+        }
+        full.close();
+    }
+
+    private static CachedSearchEngine open(File index, int hitsPerSegment) throws Exception {
+        CachedSearchEngine engine = new CachedSearchEngine(index);
+        engine.setResultCache(null);
+        engine.setPageRankWeight(PAGE_RANK_WEIGHT);
+        engine.setEarlyTermination(hitsPerSegment);
+        return engine;
+    }
+
+    private static double recall(List<CrawledWebsiteResult> expected, List<CrawledWebsiteResult> results) {
+        if (expected.isEmpty())
+            return 1.0;
+        Set<String> urls = new HashSet<String>();
+        for (CrawledWebsiteResult result : expected) {
+            urls.add(result.getWebsite().getURL().toString());
+        }
+        int found = 0;
+        for (CrawledWebsiteResult result : results) {
+            if (urls.contains(result.getWebsite().getURL().toString()))
+                ++found;
+        }
+        return (double) found / urls.size();
+    }
+
+    private static void print(String name, int round, long time, double recall) {
+        System.out.printf("%-10s round %d: %8.3f ms/query, recall %5.3f%n", name, round, time / 1000000.0 / QUERIES, recall);
+    }
+
+    // Zipf like distribution of the words
+    private static String word(Random random) {
+        double r = random.nextDouble();
+        return "w" + (int) (r * r * r * VOCABULARY);
+    }
+
+    private static String url(int page) {
+        return "http://www.example" + (page % 100) + ".com/page" + page + ".html";
+    }
+
+    private static void createIndex(File index, int pages) throws Exception {
+        Random random = new Random(42L);
+        CrawlerOptions options = new CrawlerOptions();
+        options.setSortedIndex(true);
+        LiveSearchEngine engine = new LiveSearchEngine(index, 0L, options);
+        LinkGraph graph = new LinkGraph();
+        for (int i = 0; i < pages; ++i) {
+            StringBuilder sBuilder = new StringBuilder();
+            for (int w = 0; w < WORDS_PER_PAGE; ++w) {
+                sBuilder.append(word(random)).append(' ');
+            }
+            engine.addWebsite(new CrawledWebsite(sBuilder.toString(), "Page " + i, url(i)));
+
+            String[] links = new String[random.nextInt(AVERAGE_LINKS * 2 + 1)];
+            for (int j = 0; j < links.length; ++j) {
+                // Skewed to random popular websites
+                double r = random.nextDouble();
+                links[j] = url((int) (r * r * r * pages * 7919L % pages));
+            }
+            graph.addPage(url(i), links);
+        }
+        long time = System.nanoTime();
+        engine.updatePageRanks(graph, new PageRank(Runtime.getRuntime().availableProcessors()).compute(graph));
+        engine.sortIndex();
+        engine.close();
+        System.out.printf("Created and sorted index in %.1f s (PageRank and sorting)%n", (System.nanoTime() - time) / 1E9);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BodyStoreTest {
+
+    private static final File DIR = new File("target/bodyStoreTest");
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Before
+    public void setUp() {
+        deleteDir(DIR);
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(DIR);
+    }
+
+    @Test
+    public void appendAndReadTest() throws Exception {
+        assertFalse(BodyStore.exists(DIR));
+        BodyStore store = BodyStore.open(DIR);
+        assertTrue(BodyStore.exists(DIR));
+
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 10000; ++i) {
+            large.append("Spiele und Hardware ").append(i).append(' ');
+        }
+        long first = store.append("http://www.gamestar.de/", "Gamestar ist ein Computerspielemagazin für Spiele");
+        long second = store.append("http://www.gamestar.de/news/", large.toString());
+        assertEquals(large.toString(), store.read(second));
+        assertEquals("Gamestar ist ein Computerspielemagazin für Spiele", store.read(first));
+        assertTrue(store.getBlobSize() < large.length() / 2);
+
+        // A replaced body is not found by the url anymore
+        long replaced = store.append("http://www.gamestar.de/", "Neue Spiele");
+        assertEquals("Neue Spiele", store.read("http://www.gamestar.de/"));
+        assertEquals("Gamestar ist ein Computerspielemagazin für Spiele", store.read(first));
+        assertNull(store.read("http://www.gamestar.de/tests/"));
+        store.flush();
+        store.close();
+
+        store = BodyStore.open(DIR);
+        assertEquals(2, store.size());
+        assertEquals("Neue Spiele", store.read(replaced));
+        assertEquals(large.toString(), store.read("http://www.gamestar.de/news/"));
+        store.close();
+    }
+
+    @Test
+    public void recoverTest() throws Exception {
+        BodyStore store = BodyStore.open(DIR);
+        store.append("http://www.gamestar.de/", "Spiele");
+        store.flush();
+        // Appended after saving the table
+        store.append("http://www.gamestar.de/news/", "News");
+        long size = store.getBlobSize();
+        store.append("http://www.gamestar.de/tests/", "Tests");
+        store.close();
+
+        // Incomplete last record
+        RandomAccessFile blob = new RandomAccessFile(new File(DIR, "bodies.blob"), "rw");
+        blob.setLength(blob.length() - 2);
+        blob.close();
+
+        store = BodyStore.open(DIR);
+        assertEquals(2, store.size());
+        assertEquals("News", store.read("http://www.gamestar.de/news/"));
+        assertNull(store.read("http://www.gamestar.de/tests/"));
+        assertEquals(size, store.getBlobSize());
+        store.append("http://www.gamestar.de/tests/", "Tests");
+        assertEquals("Tests", store.read("http://www.gamestar.de/tests/"));
+        store.close();
+    }
+}
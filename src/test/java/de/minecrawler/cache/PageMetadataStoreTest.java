@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PageMetadataStoreTest {
+
+    private static final File DIR = new File("target/pageMetadataStoreTest");
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Before
+    public void setUp() {
+        deleteDir(DIR);
+        DIR.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(DIR);
+    }
+
+    @Test
+    public void saveAndLoadTest() throws Exception {
+        assertFalse(PageMetadataStore.exists(DIR));
+        PageMetadataStore store = new PageMetadataStore();
+        store.put(new PageMetadata("http://www.gamestar.de/", "\"v1\"", "Mon, 06 Jan 2014 10:00:00 GMT", 42L, new String[]{"http://www.gamestar.de/news/", "http://www.gamestar.de/tests/"}));
+        store.put(new PageMetadata("http://www.gamestar.de/news/", null, null, -1L, new String[0]));
+        store.save(DIR);
+        assertTrue(PageMetadataStore.exists(DIR));
+        // Only the saved store remains
+        assertEquals(1, DIR.listFiles().length);
+
+        PageMetadataStore loaded = PageMetadataStore.load(DIR);
+        assertEquals(2, loaded.size());
+        assertEquals(0, loaded.getSeenCount());
+        PageMetadata page = loaded.get("http://www.gamestar.de/");
+        assertEquals("\"v1\"", page.getETag());
+        assertEquals("Mon, 06 Jan 2014 10:00:00 GMT", page.getLastModified());
+        assertEquals(42L, page.getContentHash());
+        assertArrayEquals(new String[]{"http://www.gamestar.de/news/", "http://www.gamestar.de/tests/"}, page.getLinks());
+        page = loaded.get("http://www.gamestar.de/news/");
+        assertNull(page.getETag());
+        assertNull(page.getLastModified());
+        assertEquals(0, page.getLinks().length);
+        assertNull(loaded.get("http://www.gamestar.de/tests/"));
+    }
+
+    @Test
+    public void interruptedSaveTest() throws Exception {
+        PageMetadataStore store = new PageMetadataStore();
+        store.put(new PageMetadata("http://www.gamestar.de/", "\"v1\"", null, 42L, new String[0]));
+        store.save(DIR);
+
+        // A crash while saving leaves a partial temporary file
+        FileOutputStream out = new FileOutputStream(new File(DIR, "pages.meta.tmp"));
+        out.write(new byte[]{0, 0, 0, 1, 0, 0});
+        out.close();
+        assertEquals("\"v1\"", PageMetadataStore.load(DIR).get("http://www.gamestar.de/").getETag());
+
+        // The next save replaces the partial file
+        store.put(new PageMetadata("http://www.gamestar.de/", "\"v2\"", null, 43L, new String[0]));
+        store.save(DIR);
+        assertEquals("\"v2\"", PageMetadataStore.load(DIR).get("http://www.gamestar.de/").getETag());
+        assertEquals(1, DIR.listFiles().length);
+    }
+
+    @Test
+    public void removeUnseenTest() throws Exception {
+        PageMetadataStore store = new PageMetadataStore();
+        store.put(new PageMetadata("http://www.gamestar.de/", null, null, 1L, new String[0]));
+        store.put(new PageMetadata("http://www.gamestar.de/news/", null, null, 2L, new String[0]));
+        store.put(new PageMetadata("http://www.gamestar.de/tests/", null, null, 3L, new String[0]));
+        store.save(DIR);
+
+        // A refresh sees one website unchanged and one changed
+        PageMetadataStore refreshed = PageMetadataStore.load(DIR);
+        refreshed.markSeen("http://www.gamestar.de/");
+        refreshed.put(new PageMetadata("http://www.gamestar.de/news/", null, null, 4L, new String[0]));
+        assertEquals(2, refreshed.getSeenCount());
+        assertEquals(Collections.singletonList("http://www.gamestar.de/tests/"), refreshed.removeUnseen());
+        assertEquals(2, refreshed.size());
+        assertEquals(4L, refreshed.get("http://www.gamestar.de/news/").getContentHash());
+        assertTrue(refreshed.removeUnseen().isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+
+import org.junit.Test;
+
+public class BloomFilterVisitedSetTest {
+
+    @Test
+    public void sizingTest() throws IOException {
+        // m = -n * ln(p) / ln(2)^2 = 9586 bits, rounded to 150 longs
+        BloomFilterVisitedSet set = new BloomFilterVisitedSet(1000, 0.01);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        set.save(new DataOutputStream(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(150, in.readInt());
+        // k = m / n * ln(2)
+        assertEquals(7, in.readInt());
+        assertEquals(7, set.getNumHashes());
+    }
+
+    @Test
+    public void falsePositiveRateTest() throws IOException {
+        BloomFilterVisitedSet set = new BloomFilterVisitedSet(10000, 0.01);
+        // Even while filling, a new url may be reported as visited
+        int added = 0;
+        for (int i = 0; i < 10000; ++i) {
+            if (set.add(new URL("http://www.gamestar.de/" + i)))
+                ++added;
+        }
+        assertTrue("Added: " + added, added >= 9950);
+        assertEquals(added, set.size());
+        for (int i = 0; i < 10000; ++i) {
+            assertFalse(set.add(new URL("http://www.gamestar.de/" + i)));
+        }
+        assertEquals(added, set.size());
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; ++i) {
+            if (!set.add(new URL("http://www.gamestar.de/news/" + i)))
+                ++falsePositives;
+        }
+        // About 10 expected
+        assertTrue("False positives: " + falsePositives, falsePositives <= 25);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSizeTest() {
+        new BloomFilterVisitedSet(0, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRateTest() {
+        new BloomFilterVisitedSet(1000, 1.0);
+    }
+}
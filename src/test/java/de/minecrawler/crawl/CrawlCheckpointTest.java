@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CrawlCheckpointTest {
+
+    private static final File DIR = new File("target/checkpointTest");
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        DIR.mkdirs();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+        CrawlCheckpoint.delete(DIR);
+        DIR.delete();
+    }
+
+    @Test
+    public void saveLoadTest() throws Exception {
+        URL seed = new URL("http://www.gamestar.de/");
+        URL news = new URL("http://www.gamestar.de/news/");
+        URL tests = new URL("http://www.gamestar.de/tests/");
+
+        Frontier frontier = new Frontier(seed);
+        frontier.poll();
+        frontier.defer(news);
+        frontier.addNext(tests);
+        AbstractVisitedSet visitedSet = new LongHashVisitedSet();
+        visitedSet.add(seed);
+        visitedSet.add(news);
+        visitedSet.add(tests);
+
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(frontier, visitedSet, 1, 2L, 1000L);
+        checkpoint.setIndexedDocuments(1);
+        checkpoint.save(DIR);
+        assertTrue(CrawlCheckpoint.exists(DIR));
+
+        CrawlCheckpoint loaded = CrawlCheckpoint.load(DIR);
+        assertEquals(1, loaded.getCrawledWebsites());
+        assertEquals(2L, loaded.getPages());
+        assertEquals(1000L, loaded.getBytes());
+        assertEquals(1, loaded.getIndexedDocuments());
+        assertFalse(loaded.getVisitedSet().add(news));
+        assertTrue(loaded.getVisitedSet().add(new URL("http://www.gamestar.de/videos/")));
+
+        Frontier loadedFrontier = loaded.getFrontier();
+        assertEquals(0, loadedFrontier.getDepth());
+        assertEquals(news, loadedFrontier.poll());
+        assertNull(loadedFrontier.poll());
+        assertTrue(loadedFrontier.advance());
+        assertEquals(tests, loadedFrontier.poll());
+
+        assertNull(loaded.getDuplicateDetector());
+
+        assertTrue(CrawlCheckpoint.delete(DIR));
+        assertFalse(CrawlCheckpoint.exists(DIR));
+    }
+
+    @Test
+    public void duplicateDetectorTest() throws Exception {
+        String text = "Gamestar ist ein Computerspielemagazin. Die Redaktion testet neue Spiele ausführlich.";
+        DuplicateDetector detector = new DuplicateDetector(3);
+        assertFalse(detector.isDuplicate(1L, text));
+        assertFalse(detector.isDuplicate(2L, "Spiele"));
+        assertFalse(detector.isDuplicate(3L, SimHash.fingerprint(text) ^ 0xFFFFL));
+
+        URL seed = new URL("http://www.gamestar.de/");
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(new Frontier(seed), new LongHashVisitedSet(), 3, 3L, 1000L);
+        checkpoint.setDuplicateDetector(detector);
+        checkpoint.save(DIR);
+
+        DuplicateDetector loaded = CrawlCheckpoint.load(DIR).getDuplicateDetector();
+        assertEquals(3, loaded.getMaxDistance());
+        assertEquals(2, loaded.size());
+        // Exact and near duplicates of websites crawled before the checkpoint
+        assertTrue(loaded.isDuplicate(2L, "Spiele"));
+        assertTrue(loaded.isDuplicate(4L, text.replace(" ", "  ")));
+        assertTrue(loaded.isDuplicate(5L, SimHash.fingerprint(text) ^ 0xFFFEL));
+        assertFalse(loaded.isDuplicate(6L, "Neue Spiele und Hardware im Test der Redaktion von Gamestar"));
+        assertTrue(CrawlCheckpoint.delete(DIR));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.minecrawler.data.CrawledWebsite;
+
+public class CrawlPipelineTest {
+
+    private static CrawledWebsite createWebsite(int i) {
+        return new CrawledWebsite("Body " + i, "Title " + i, "http://www.gamestar.de/" + i);
+    }
+
+    @Test
+    public void backpressureTest() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CrawlPipeline pipeline = new CrawlPipeline(2, 1, new CrawledWebsiteHandler() {
+            @Override
+            public void handle(CrawledWebsite website) throws InterruptedException {
+                started.countDown();
+                release.await();
+            }
+        });
+        pipeline.handle(createWebsite(0));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        // The consumer is blocked, the queue takes two websites
+        pipeline.handle(createWebsite(1));
+        pipeline.handle(createWebsite(2));
+        assertEquals(0, pipeline.getStalls());
+
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    pipeline.handle(createWebsite(3));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        producer.start();
+        producer.join(200L);
+        assertTrue(producer.isAlive());
+        assertEquals(3, pipeline.getProduced());
+
+        release.countDown();
+        producer.join(10000L);
+        assertFalse(producer.isAlive());
+        assertEquals(1, pipeline.getStalls());
+        assertTrue(pipeline.getStallTime() > 0);
+        assertEquals(2, pipeline.getMaxQueueDepth());
+        pipeline.finish();
+        assertEquals(4, pipeline.getConsumed());
+    }
+
+    @Test
+    public void finishTest() throws Exception {
+        final List<Integer> handled = Collections.synchronizedList(new ArrayList<Integer>());
+        CrawlPipeline pipeline = new CrawlPipeline(8, 1, new CrawledWebsiteHandler() {
+            @Override
+            public void handle(CrawledWebsite website) throws InterruptedException {
+                Thread.sleep(1L);
+                handled.add(Integer.valueOf(website.getTitle().substring(6)));
+            }
+        });
+        for (int i = 0; i < 50; ++i) {
+            pipeline.handle(createWebsite(i));
+        }
+        // The websites before the end of the stream are handled in order
+        pipeline.finish();
+        assertEquals(50, handled.size());
+        for (int i = 0; i < 50; ++i) {
+            assertEquals(i, handled.get(i).intValue());
+        }
+        assertEquals(50, pipeline.getConsumed());
+    }
+
+    @Test
+    public void failingConsumerTest() throws Exception {
+        final AtomicInteger handled = new AtomicInteger();
+        CrawlPipeline pipeline = new CrawlPipeline(4, 2, 3, new CrawledWebsiteBatchHandler() {
+            @Override
+            public void handle(List<CrawledWebsite> websites) {
+                handled.addAndGet(websites.size());
+                throw new IllegalStateException("Index is broken");
+            }
+        });
+        for (int i = 0; i < 20; ++i) {
+            pipeline.handle(createWebsite(i));
+        }
+        // The failed websites count as consumed and the consumers keep running
+        pipeline.drain();
+        assertEquals(20, pipeline.getConsumed());
+        pipeline.handle(createWebsite(20));
+        pipeline.finish();
+        assertEquals(21, handled.get());
+        assertEquals(21, pipeline.getConsumed());
+    }
+
+    @Test
+    public void batchTest() throws Exception {
+        final AtomicInteger handled = new AtomicInteger();
+        final AtomicInteger maxBatch = new AtomicInteger();
+        CrawlPipeline pipeline = new CrawlPipeline(64, 4, 8, new CrawledWebsiteBatchHandler() {
+            @Override
+            public void handle(List<CrawledWebsite> websites) {
+                assertTrue(!websites.isEmpty());
+                handled.addAndGet(websites.size());
+                synchronized (maxBatch) {
+                    maxBatch.set(Math.max(maxBatch.get(), websites.size()));
+                }
+            }
+        });
+        for (int i = 0; i < 1000; ++i) {
+            pipeline.handle(new CrawledWebsite("Body " + i, "Title " + i, "http://www.gamestar.de/" + i));
+        }
+        pipeline.drain();
+        assertEquals(1000, handled.get());
+
+        pipeline.handle(new CrawledWebsite("Body", "Title", "http://www.gamestar.de/"));
+        // Every consumer thread stops at the end of the stream
+        pipeline.finish();
+        assertEquals(1001, handled.get());
+        assertEquals(1001, pipeline.getConsumed());
+        assertTrue(maxBatch.get() <= 8);
+    }
+}
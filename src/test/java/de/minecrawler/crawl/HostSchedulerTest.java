@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HostSchedulerTest {
+
+    private static final String HOST = "www.gamestar.de";
+
+    private long now;
+
+    private HostScheduler createScheduler(int maxRequestsPerHost) {
+        return new HostScheduler(maxRequestsPerHost, 0L) {
+            @Override
+            long nanoTime() {
+                return now;
+            }
+        };
+    }
+
+    private void advance(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Runs a request after the cooldown of the scheduler.
+     */
+    private void request(HostScheduler scheduler, int status, long latencyMillis) {
+        advance(TimeUnit.SECONDS.toMillis(10));
+        assertTrue(scheduler.tryAcquire(HOST));
+        scheduler.release(HOST, status, TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+
+    private static HostScheduler.HostState getState(HostScheduler scheduler) {
+        return scheduler.getHostStates().get(0);
+    }
+
+    @Before
+    public void setUp() {
+        now = 1000L;
+    }
+
+    @Test
+    public void throttleTest() {
+        HostScheduler scheduler = createScheduler(4);
+        assertTrue(scheduler.tryAcquire(HOST));
+        assertTrue(scheduler.tryAcquire(HOST));
+        // The initial limit
+        assertFalse(scheduler.tryAcquire(HOST));
+
+        scheduler.release(HOST, 429, 0L);
+        assertEquals(1, getState(scheduler).getLimit());
+        assertEquals(250L, getState(scheduler).getDelay());
+        // The limit is decreased at most once per cooldown, the delay doubles
+        scheduler.release(HOST, 503, 0L);
+        assertEquals(1, getState(scheduler).getLimit());
+        assertEquals(500L, getState(scheduler).getDelay());
+        assertEquals(2L, getState(scheduler).getThrottled());
+
+        advance(400L);
+        assertFalse(scheduler.tryAcquire(HOST));
+        advance(100L);
+        assertTrue(scheduler.tryAcquire(HOST));
+    }
+
+    @Test
+    public void rampUpTest() {
+        HostScheduler scheduler = createScheduler(8);
+        assertTrue(scheduler.tryAcquire(HOST));
+        scheduler.release(HOST, 200, TimeUnit.MILLISECONDS.toNanos(10L));
+        assertEquals(2, getState(scheduler).getLimit());
+        request(scheduler, 200, 10L);
+        assertEquals(3, getState(scheduler).getLimit());
+
+        // A window of successes per step: 3 + 4 + 5 + 6 + 7
+        for (int i = 0; i < 25; ++i) {
+            request(scheduler, 200, 10L);
+        }
+        assertEquals(8, getState(scheduler).getLimit());
+        request(scheduler, 200, 10L);
+        assertEquals(8, getState(scheduler).getLimit());
+    }
+
+    @Test
+    public void latencyBackoffTest() {
+        HostScheduler scheduler = createScheduler(8);
+        for (int i = 0; i < 27; ++i) {
+            request(scheduler, 200, 10L);
+        }
+        assertEquals(8, getState(scheduler).getLimit());
+
+        request(scheduler, 200, 100L);
+        assertEquals(4, getState(scheduler).getLimit());
+        request(scheduler, 200, 100L);
+        assertEquals(2, getState(scheduler).getLimit());
+    }
+
+    @Test
+    public void fastResponseTest() {
+        HostScheduler scheduler = createScheduler(4);
+        // A single fast response, for example a not modified website
+        request(scheduler, 200, 1L);
+        for (int i = 0; i < 5; ++i) {
+            request(scheduler, 200, 50L);
+        }
+        assertEquals(1, getState(scheduler).getLimit());
+
+        // The slower latency becomes the normal latency of the host
+        for (int i = 0; i < 100; ++i) {
+            request(scheduler, 200, 50L);
+        }
+        assertEquals(4, getState(scheduler).getLimit());
+    }
+}
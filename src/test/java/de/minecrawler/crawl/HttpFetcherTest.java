@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpFetcherTest {
+
+    private static final String PAGE = "<html><head><title>Gamestar</title></head><body><p>Spiele Tests und News</p></body></html>";
+    private static final String ETAG = "\"v1\"";
+    // Large enough to be smaller compressed
+    private static final String NEWS;
+    static {
+        StringBuilder news = new StringBuilder("<html><head><title>News</title></head><body>");
+        for (int i = 0; i < 100; ++i) {
+            news.append("<p>Neue Spiele im Test ").append(i).append("</p>");
+        }
+        NEWS = news.append("</body></html>").toString();
+    }
+
+    private static HttpServer server;
+    private static String base;
+    // Accept-Encoding of the last request of the news
+    private static volatile String acceptEncoding;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] body = PAGE.getBytes("UTF-8");
+                String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (encoding != null && encoding.contains("gzip")) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+                    gzip.write(body);
+                    gzip.close();
+                    body = bytes.toByteArray();
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                }
+                send(exchange, body);
+            }
+        });
+        server.createContext("/news", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+                acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                byte[] body = NEWS.getBytes("UTF-8");
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+                    gzip.write(body);
+                    gzip.close();
+                    body = bytes.toByteArray();
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                }
+                send(exchange, body);
+            }
+        });
+        server.createContext("/redirect", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Location", "/page");
+                exchange.sendResponseHeaders(302, -1);
+                exchange.close();
+            }
+        });
+        server.createContext("/image", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Content-Type", "image/png");
+                send(exchange, new byte[1000]);
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void send(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetchTest() throws IOException {
+        HttpFetcher fetcher = new HttpFetcher(2000, 1024 * 1024);
+        FetchResult result = fetcher.fetch(new URL(base + "/page"), null, null);
+        assertEquals(200, result.getStatusCode());
+        assertEquals("text/html", result.getContentType());
+        assertEquals(ETAG, result.getETag());
+        assertFalse(result.isTruncated());
+        assertEquals("Gamestar", result.parse().title());
+        assertEquals(PAGE.length(), fetcher.getBytesDecoded());
+        assertTrue(fetcher.getBytesTransferred() > 0);
+    }
+
+    @Test
+    public void compressionTest() throws IOException {
+        HttpFetcher fetcher = new HttpFetcher(2000, 1024 * 1024);
+        FetchResult result = fetcher.fetch(new URL(base + "/news"), null, null);
+        assertTrue(acceptEncoding.contains("gzip"));
+        assertEquals(NEWS, new String(result.getBody(), "UTF-8"));
+        // Transferred compressed
+        assertEquals(NEWS.length(), fetcher.getBytesDecoded());
+        assertTrue(fetcher.getBytesTransferred() < fetcher.getBytesDecoded());
+    }
+
+    @Test
+    public void conditionalTest() throws IOException {
+        HttpFetcher fetcher = new HttpFetcher(2000, 1024 * 1024);
+        FetchResult result = fetcher.fetch(new URL(base + "/page"), ETAG, null);
+        assertEquals(304, result.getStatusCode());
+        assertNull(result.getBody());
+    }
+
+    @Test
+    public void limitTest() throws IOException {
+        HttpFetcher fetcher = new HttpFetcher(2000, 20);
+        FetchResult result = fetcher.fetch(new URL(base + "/page"), null, null);
+        assertTrue(result.isTruncated());
+        assertEquals(20, result.getBody().length);
+
+        result = fetcher.fetch(new URL(base + "/image"), null, null);
+        assertFalse(result.isSupportedContentType());
+        assertNull(result.getBody());
+    }
+
+    @Test
+    public void redirectTest() throws IOException {
+        HttpFetcher fetcher = new HttpFetcher(2000, 1024 * 1024);
+        FetchResult result = fetcher.fetch(new URL(base + "/redirect"), null, null);
+        assertEquals(200, result.getStatusCode());
+        assertEquals(base + "/page", result.getURL().toString());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LongHashVisitedSetTest {
+
+    @Test
+    public void resizeTest() {
+        LongHashVisitedSet set = new LongHashVisitedSet();
+        // Grows the initial table several times
+        for (long i = 1; i <= 10000; ++i) {
+            assertTrue(set.addHash(i * 1024));
+        }
+        assertEquals(10000, set.size());
+        for (long i = 1; i <= 10000; ++i) {
+            assertFalse(set.addHash(i * 1024));
+        }
+        assertEquals(10000, set.size());
+    }
+
+    @Test
+    public void wrapAroundTest() {
+        LongHashVisitedSet set = new LongHashVisitedSet();
+        // All hashes start at the last slot of the initial table
+        long[] hashes = {1023L, 1023L + 1024L, 1023L + 2048L, -1L};
+        for (long hash : hashes) {
+            assertTrue(set.addHash(hash));
+        }
+        // The first slot is taken by a wrapped hash
+        assertTrue(set.addHash(1024L));
+        for (long hash : hashes) {
+            assertFalse(set.addHash(hash));
+        }
+        assertFalse(set.addHash(1024L));
+        assertEquals(5, set.size());
+    }
+
+    @Test
+    public void zeroHashTest() {
+        LongHashVisitedSet set = new LongHashVisitedSet();
+        assertTrue(set.addHash(0L));
+        assertFalse(set.addHash(0L));
+        assertEquals(1, set.size());
+    }
+}
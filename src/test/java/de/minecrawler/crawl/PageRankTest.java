@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PageRankTest {
+
+    private static final String A = "http://www.gamestar.de/";
+    private static final String B = "http://www.gamestar.de/news/";
+    private static final String C = "http://www.gamestar.de/tests/";
+    private static final String D = "http://www.gamestar.de/videos/";
+
+    @Test
+    public void linkGraphTest() {
+        LinkGraph graph = new LinkGraph();
+        graph.addPage(A, new String[]{B, C, B, A});
+        graph.addPage(B, new String[]{A});
+        assertEquals(3, graph.getNodeCount());
+        assertEquals(5, graph.getLinkCount());
+        assertTrue(graph.isPage(graph.getNode(B)));
+        // Only a link target
+        assertFalse(graph.isPage(graph.getNode(C)));
+        assertEquals(-1, graph.getNode(D));
+
+        // Duplicate links and self links are removed
+        graph.compact();
+        assertEquals(3, graph.getLinkCount());
+        assertArrayEquals(new int[]{0, 2, 3, 3}, graph.getOffsets());
+        assertArrayEquals(new int[]{1, 2, 0}, graph.getTargets());
+    }
+
+    @Test
+    public void cycleTest() throws Exception {
+        LinkGraph graph = new LinkGraph();
+        graph.addPage(A, new String[]{B});
+        graph.addPage(B, new String[]{C});
+        graph.addPage(C, new String[]{A});
+        float[] ranks = new PageRank(1).compute(graph);
+        for (float rank : ranks) {
+            assertEquals(1F, rank, 1E-4F);
+        }
+    }
+
+    @Test
+    public void rankTest() throws Exception {
+        LinkGraph graph = new LinkGraph();
+        graph.addPage(A, new String[]{B, C, D});
+        graph.addPage(B, new String[]{A});
+        graph.addPage(C, new String[]{A});
+        // D is dangling, its rank is distributed over all websites
+        float[] ranks = new PageRank(1).compute(graph);
+
+        float sum = 0F;
+        for (float rank : ranks) {
+            sum += rank;
+        }
+        assertEquals(4F, sum, 1E-3F);
+        int a = graph.getNode(A);
+        for (int node = 0; node < ranks.length; ++node) {
+            if (node != a)
+                assertTrue(ranks[a] > ranks[node]);
+        }
+        assertEquals(ranks[graph.getNode(B)], ranks[graph.getNode(D)], 1E-4F);
+    }
+
+    @Test
+    public void parallelTest() throws Exception {
+        LinkGraph graph = new LinkGraph();
+        Random random = new Random(42L);
+        for (int i = 0; i < 1000; ++i) {
+            String[] links = new String[random.nextInt(10)];
+            for (int j = 0; j < links.length; ++j) {
+                links[j] = "http://www.gamestar.de/" + random.nextInt(1200);
+            }
+            graph.addPage("http://www.gamestar.de/" + i, links);
+        }
+
+        float[] expected = new PageRank(1).compute(graph);
+        PageRank pageRank = new PageRank(4);
+        float[] ranks = pageRank.compute(graph);
+        assertTrue(pageRank.getIterations() > 1);
+        assertTrue(pageRank.getChange() < PageRank.DEFAULT_TOLERANCE);
+        assertArrayEquals(expected, ranks, 1E-4F);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SimHashTest {
+
+    private static final String TEXT = "Gamestar ist ein deutsches Computerspielemagazin. Es erscheint monatlich und berichtet über Spiele, Hardware und die Branche. "
+            + "Die Redaktion testet neue Spiele ausführlich und bewertet sie mit einer Wertung zwischen null und hundert Punkten. "
+            + "Neben dem Heft gibt es eine Webseite mit aktuellen News, Videos, Tests und einem großen Forum für die Leser.";
+
+    @Test
+    public void fingerprintTest() {
+        long original = SimHash.fingerprint(TEXT);
+        long nearDuplicate = SimHash.fingerprint(TEXT + " Seite 2");
+        long different = SimHash.fingerprint("Information Retrieval beschäftigt sich mit dem Finden von Dokumenten in großen Sammlungen");
+
+        assertTrue(SimHash.distance(original, SimHash.fingerprint(TEXT.replace(" ", " \n "))) == 0);
+        assertTrue(SimHash.distance(original, nearDuplicate) < SimHash.distance(original, different));
+        assertTrue(SimHash.distance(original, different) > DuplicateDetector.MAX_DISTANCE);
+    }
+
+    @Test
+    public void detectorTest() {
+        DuplicateDetector detector = new DuplicateDetector(DuplicateDetector.MAX_DISTANCE);
+        long fingerprint = SimHash.fingerprint(TEXT);
+        assertFalse(detector.isDuplicate(1L, fingerprint));
+        // Exact duplicate
+        assertTrue(detector.isDuplicate(1L, fingerprint));
+        // Near duplicate
+        assertTrue(detector.isDuplicate(2L, fingerprint ^ 0x8001L));
+        assertFalse(detector.isDuplicate(3L, ~fingerprint));
+    }
+
+    @Test
+    public void shortTextTest() {
+        assertFalse(SimHash.hasShingle(""));
+        assertFalse(SimHash.hasShingle(" Weiterleitung zu "));
+        assertTrue(SimHash.hasShingle("Weiterleitung zu Gamestar"));
+
+        // Texts without a shingle are not compared by their fingerprints
+        DuplicateDetector detector = new DuplicateDetector(DuplicateDetector.MAX_DISTANCE);
+        assertFalse(detector.isDuplicate(1L, ""));
+        assertFalse(detector.isDuplicate(2L, ""));
+        assertFalse(detector.isDuplicate(3L, "Weiterleitung"));
+        assertTrue(detector.isDuplicate(3L, "Weiterleitung"));
+        assertFalse(detector.isDuplicate(4L, TEXT));
+        assertTrue(detector.isDuplicate(5L, TEXT.replace(" ", "  ")));
+        assertEquals(1, detector.size());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+public class StreamingHtmlExtractorTest {
+
+    private static final String HTML = "<!DOCTYPE html>\n<html><head><title> Gamestar &amp; News </title>"
+            + "<link rel=\"stylesheet\" href=\"/style.css\"><style>body { color: red; }</style>"
+            + "<script type=\"text/javascript\">if (a < b) document.write('<a href=\"x\">');</script></head>\n"
+            + "<body><!-- <a href=\"comment\"> -->\n<h1>Neue   Spiele</h1><p>Tests &#252;ber <a href='test.html?id=1&amp;page=2'>Spiele</a>"
+            + " und <b>Hardware</b>.</p><div>Preis &lt; 50&euro;<br>Ende</div>"
+            + "<a href=\"http://www.example.com/other#top\">Andere</a><a href=?sort=name>Sortiert</a></body></html>";
+
+    @Test
+    public void extractTest() throws Exception {
+        URL url = new URL("http://www.gamestar.de/news/index.html");
+        ExtractedContent content = StreamingHtmlExtractor.extract(HTML.getBytes("UTF-8"), null, url, Integer.MAX_VALUE);
+
+        Document document = Jsoup.parse(HTML, url.toString());
+        List<String> links = new ArrayList<String>();
+        for (Element element : document.getElementsByAttribute("href")) {
+            links.add(element.absUrl("href"));
+        }
+
+        assertEquals(document.title(), content.getTitle());
+        assertEquals(document.text(), content.getText());
+        assertEquals(links, content.getLinks());
+    }
+
+    @Test
+    public void limitTest() throws Exception {
+        URL url = new URL("http://www.gamestar.de/");
+        byte[] body = "<title>Gamestar</title><p>Spiele</p><a href=\"/tests\">Tests</a>".getBytes("UTF-8");
+        ExtractedContent content = StreamingHtmlExtractor.extract(body, "UTF-8", url, 34);
+
+        assertEquals("Gamestar", content.getTitle());
+        assertEquals("Gamestar Spiele", content.getText());
+        assertEquals(0, content.getLinks().size());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import org.junit.Test;
+
+public class URLCanonicalizerTest {
+
+    private static String canonicalize(String url) throws MalformedURLException {
+        return URLCanonicalizer.canonicalize(new URL(url)).toString();
+    }
+
+    @Test
+    public void canonicalizeTest() throws MalformedURLException {
+        assertEquals("http://www.gamestar.de/", canonicalize("HTTP://WWW.GameStar.de"));
+        assertEquals("http://www.gamestar.de/news", canonicalize("http://www.gamestar.de:80/news#top"));
+        assertEquals("https://www.gamestar.de/news", canonicalize("https://www.gamestar.de:443/news"));
+        assertEquals("http://www.gamestar.de:8080/news", canonicalize("http://www.gamestar.de:8080/news"));
+        assertEquals("http://www.gamestar.de/b/c", canonicalize("http://www.gamestar.de/a/../b/./c"));
+        assertEquals("http://www.gamestar.de/a?b=2&c=1", canonicalize("http://www.gamestar.de/a?c=1&b=2"));
+        assertEquals("http://www.gamestar.de/a", canonicalize("http://www.gamestar.de/a?"));
+        assertEquals("http://www.gamestar.de/%2F", canonicalize("http://www.gamestar.de/%2f"));
+    }
+
+    @Test
+    public void visitedSetTest() throws MalformedURLException {
+        AbstractVisitedSet[] sets = {new LongHashVisitedSet(), new BloomFilterVisitedSet(10000, 0.0001)};
+        for (AbstractVisitedSet set : sets) {
+            for (int i = 0; i < 5000; ++i) {
+                assertTrue(set.add(new URL("http://www.gamestar.de/" + i)));
+            }
+            for (int i = 0; i < 5000; ++i) {
+                assertFalse(set.add(new URL("http://www.gamestar.de/" + i)));
+            }
+            assertEquals(5000, set.size());
+        }
+    }
+}
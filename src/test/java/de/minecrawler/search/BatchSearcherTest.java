@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.minecrawler.data.CrawledWebsite;
+
+public class BatchSearcherTest {
+
+    private static final File DIR = new File("target/batchSearcherTest");
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Before
+    public void setUp() {
+        deleteDir(DIR);
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(DIR);
+    }
+
+    @Test
+    public void searchTest() throws Exception {
+        LiveSearchEngine engine = new LiveSearchEngine(DIR);
+        for (int i = 0; i < 20; ++i) {
+            engine.addWebsite(new CrawledWebsite("Spiele Test " + i, "Test \"" + i + "\"", "http://www.gamestar.de/tests/" + i));
+        }
+
+        StringBuilder queries = new StringBuilder();
+        for (int i = 0; i < 50; ++i) {
+            queries.append(i % 2 == 0 ? "spiele" : "test AND " + i).append('\n');
+        }
+        queries.append('\n').append("spiele AND (").append('\n');
+
+        StringWriter out = new StringWriter();
+        int count = new BatchSearcher(engine, 4, 3).search(new BufferedReader(new StringReader(queries.toString())), out);
+        engine.close();
+        assertEquals(51, count);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(51, lines.length);
+        // The results are written in the order of the queries
+        for (int i = 0; i < 50; ++i) {
+            assertTrue(lines[i].startsWith("{\"id\":" + (i + 1) + ","));
+        }
+        assertTrue(lines[0].contains("\"totalHits\":20"));
+        assertTrue(lines[0].contains("\"title\":\"Test \\\""));
+        assertTrue(lines[1].contains("\"totalHits\":1,"));
+        assertTrue(lines[50].startsWith("{\"id\":52,"));
+        assertTrue(lines[50].contains("\"error\":"));
+    }
+}
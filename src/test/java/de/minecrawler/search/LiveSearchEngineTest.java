@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.minecrawler.cache.PageMetadataStore;
+import de.minecrawler.crawl.LinkGraph;
+import de.minecrawler.crawl.PageRank;
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.data.SearchPage;
+
+public class LiveSearchEngineTest {
+
+    private static final File DIR = new File("target/liveSearchEngineTest");
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Before
+    public void setUp() {
+        deleteDir(DIR);
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(DIR);
+    }
+
+    @Test
+    public void searchWhileIndexingTest() throws Exception {
+        LiveSearchEngine engine = new LiveSearchEngine(DIR);
+        engine.addWebsite(new CrawledWebsite("Neue Spiele im Test", "Tests", "http://www.gamestar.de/tests/"));
+        assertEquals(1, engine.search("spiele").size());
+
+        // The writer is still open
+        engine.addWebsite(new CrawledWebsite("Spiele und Hardware", "News", "http://www.gamestar.de/news/"));
+        assertEquals(2, engine.search("spiele").size());
+        engine.close();
+
+        CachedSearchEngine cached = new CachedSearchEngine(DIR);
+        assertEquals(2, cached.search("spiele").size());
+        cached.close();
+    }
+
+    @Test
+    public void periodicRefreshTest() throws Exception {
+        LiveSearchEngine engine = new LiveSearchEngine(DIR, 60000L);
+        assertEquals(0, engine.search("hardware").size());
+        engine.addWebsite(new CrawledWebsite("Spiele und Hardware", "News", "http://www.gamestar.de/news/"));
+        // Not visible until the next refresh
+        assertEquals(0, engine.search("hardware").size());
+        engine.refresh();
+        assertEquals(1, engine.search("hardware").size());
+        engine.close();
+    }
+
+    @Test
+    public void snippetTest() throws Exception {
+        String body = "Gamestar ist ein Computerspielemagazin. Die Redaktion testet neue Spiele ausführlich. Neben dem Heft gibt es eine Webseite.";
+        LiveSearchEngine engine = new LiveSearchEngine(DIR);
+        engine.addWebsite(new CrawledWebsite(body, "Gamestar", "http://www.gamestar.de/"));
+
+        List<CrawledWebsiteResult> results = engine.search("spiele");
+        assertEquals(1, results.size());
+        // Only the snippet is loaded
+        assertNull(results.get(0).getWebsite().getBody());
+        assertTrue(results.get(0).getSnippet().contains("<b>Spiele</b>"));
+        assertFalse(results.get(0).getSnippet().contains("Heft"));
+
+        assertEquals(body, engine.loadBody("http://www.gamestar.de/"));
+        assertNull(engine.loadBody("http://www.gamestar.de/news/"));
+        engine.close();
+    }
+
+    @Test
+    public void cursorTest() throws Exception {
+        LiveSearchEngine engine = new LiveSearchEngine(DIR);
+        for (int i = 0; i < 25; ++i) {
+            engine.addWebsite(new CrawledWebsite("Spiele Test " + i, "Test " + i, "http://www.gamestar.de/tests/" + i));
+        }
+
+        Set<URL> urls = new HashSet<URL>();
+        String cursor = null;
+        int pages = 0;
+        int rank = 0;
+        do {
+            SearchPage page = engine.search("spiele", 10, cursor);
+            assertEquals(25, page.getTotalHits());
+            for (CrawledWebsiteResult result : page.getResults()) {
+                assertEquals(++rank, result.getRank());
+                assertTrue(urls.add(result.getWebsite().getURL()));
+            }
+            cursor = page.getNextCursor();
+            ++pages;
+        } while (cursor != null);
+        assertEquals(3, pages);
+        assertEquals(25, urls.size());
+
+        // Invalid cursors return an empty page
+        assertTrue(engine.search("spiele", 10, "xyz").getResults().isEmpty());
+
+        // A cursor belongs to its query and the version of the index
+        cursor = engine.search("spiele", 10, null).getNextCursor();
+        assertEquals(10, engine.search(" spiele ", 10, cursor).getResults().size());
+        assertTrue(engine.search("test", 10, cursor).getResults().isEmpty());
+        engine.addWebsite(new CrawledWebsite("Spiele News", "News", "http://www.gamestar.de/news/"));
+        assertTrue(engine.search("spiele", 10, cursor).getResults().isEmpty());
+        engine.close();
+    }
+
+    @Test
+    public void pageCacheTest() throws Exception {
+        LiveSearchEngine engine = new LiveSearchEngine(DIR);
+        for (int i = 0; i < 15; ++i) {
+            engine.addWebsite(new CrawledWebsite("Spiele Test " + i, "Test " + i, "http://www.gamestar.de/tests/" + i));
+        }
+        QueryResultCache cache = engine.getResultCache();
+        SearchPage first = engine.search("spiele", 10, null);
+        SearchPage cached = engine.search("spiele", 10, null);
+        assertEquals(1, cache.getHits());
+        assertEquals(first.getNextCursor(), cached.getNextCursor());
+        assertEquals(15, cached.getTotalHits());
+
+        // Following pages are not cached
+        engine.search("spiele", 10, cached.getNextCursor());
+        engine.search("spiele", 10, cached.getNextCursor());
+        assertEquals(1, cache.getHits());
+        engine.close();
+    }
+
+    @Test
+    public void parallelSearchTest() throws Exception {
+        CrawlerOptions options = new CrawlerOptions();
+        options.setMaxSegmentSize(1);
+        LiveSearchEngine engine = new LiveSearchEngine(DIR, 0L, options);
+        for (int i = 0; i < 30; ++i) {
+            engine.addWebsite(new CrawledWebsite("Spiele Test " + i, "Test " + i, "http://www.gamestar.de/tests/" + i));
+            // One segment per commit
+            if (i % 10 == 9)
+                engine.commit();
+        }
+        List<CrawledWebsiteResult> expected = engine.search("spiele", 20);
+        engine.close();
+
+        CachedSearchEngine cached = new CachedSearchEngine(DIR);
+        cached.setSearchThreads(3);
+        List<CrawledWebsiteResult> results = cached.search("spiele", 20);
+        assertEquals(expected.size(), results.size());
+        for (int i = 0; i < results.size(); ++i) {
+            assertEquals(expected.get(i).getWebsite().getURL(), results.get(i).getWebsite().getURL());
+        }
+
+        SearchPage page = cached.search("spiele", 20, null);
+        assertEquals(30, page.getTotalHits());
+        assertEquals(10, cached.search("spiele", 20, page.getNextCursor()).getResults().size());
+        cached.close();
+    }
+
+    @Test
+    public void directoryTypeTest() throws Exception {
+        CrawlerOptions options = new CrawlerOptions();
+        options.setDirectoryType(DirectoryType.RAM);
+        LiveSearchEngine engine = new LiveSearchEngine(DIR, 0L, options);
+        assertTrue(engine.isInMemory());
+        engine.addWebsite(new CrawledWebsite("Neue Spiele im Test", "Tests", "http://www.gamestar.de/tests/"));
+        engine.addWebsite(new CrawledWebsite("Spiele und Hardware", "News", "http://www.gamestar.de/news/"));
+        engine.commit();
+
+        // Committed websites are on disk
+        CachedSearchEngine cached = new CachedSearchEngine(DIR, DirectoryType.NIO);
+        assertEquals(2, cached.search("spiele").size());
+        cached.close();
+
+        engine.addWebsite(new CrawledWebsite("Spiele Vorschau", "Vorschau", "http://www.gamestar.de/vorschau/"));
+        engine.close();
+
+        for (DirectoryType type : DirectoryType.values()) {
+            cached = new CachedSearchEngine(DIR, type);
+            assertEquals(type.name(), 3, cached.search("spiele").size());
+            cached.close();
+        }
+    }
+
+    @Test
+    public void externalBodiesTest() throws Exception {
+        String body = "Gamestar ist ein Computerspielemagazin. Die Redaktion testet neue Spiele ausführlich. Neben dem Heft gibt es eine Webseite.";
+        CrawlerOptions options = new CrawlerOptions();
+        options.setExternalBodies(true);
+        LiveSearchEngine engine = new LiveSearchEngine(DIR, 0L, options);
+        engine.addWebsite(new CrawledWebsite(body, "Gamestar", "http://www.gamestar.de/"));
+        engine.addWebsite(new CrawledWebsite("Spiele und Hardware", "News", "http://www.gamestar.de/news/"));
+        assertEquals(body, engine.loadBody("http://www.gamestar.de/"));
+        engine.close();
+
+        // The cache keeps its body store
+        engine = new LiveSearchEngine(DIR);
+        engine.updateWebsite(new CrawledWebsite("Neue Spiele und Hardware", "News", "http://www.gamestar.de/news/"));
+        engine.close();
+
+        CachedSearchEngine cached = new CachedSearchEngine(DIR);
+        List<CrawledWebsiteResult> results = cached.search("spiele");
+        assertEquals(2, results.size());
+        for (CrawledWebsiteResult result : results) {
+            assertTrue(result.getSnippet().contains("<b>Spiele</b>"));
+        }
+        assertEquals(body, cached.loadBody("http://www.gamestar.de/"));
+        assertEquals("Neue Spiele und Hardware", cached.loadBody("http://www.gamestar.de/news/"));
+        cached.close();
+    }
+
+    @Test
+    public void loadBodyTest() throws Exception {
+        LiveSearchEngine engine = new LiveSearchEngine(DIR, 0L);
+        engine.addWebsite(new CrawledWebsite("Neue Spiele im Test", "Tests", "http://www.gamestar.de/tests/"));
+        assertEquals(1, engine.search("spiele").size());
+        // Added after the last search
+        engine.addWebsite(new CrawledWebsite("Spiele und Hardware", "News", "http://www.gamestar.de/news/"));
+        assertEquals("Spiele und Hardware", engine.loadBody("http://www.gamestar.de/news/"));
+        assertNull(engine.loadBody("http://www.gamestar.de/"));
+        engine.close();
+    }
+
+    @Test
+    public void loadBodyOfOldCacheTest() throws Exception {
+        // Older caches stored the url without indexing it
+        IndexWriter writer = new IndexWriter(FSDirectory.open(DIR), new IndexWriterConfig(Version.LUCENE_46, new StandardAnalyzer(Version.LUCENE_46)));
+        String[][] websites = {{"Neue Spiele im Test", "Tests", "http://www.gamestar.de/tests/"}, {"Spiele und Hardware", "News", "http://www.gamestar.de/news/"}};
+        for (String[] website : websites) {
+            Document document = new Document();
+            document.add(new TextField("body", website[0], Field.Store.YES));
+            document.add(new TextField("title", website[1], Field.Store.YES));
+            document.add(new StoredField("url", website[2]));
+            writer.addDocument(document);
+        }
+        writer.close();
+
+        CachedSearchEngine cached = new CachedSearchEngine(DIR);
+        assertEquals("Spiele und Hardware", cached.loadBody("http://www.gamestar.de/news/"));
+        assertEquals("Neue Spiele im Test", cached.loadBody("http://www.gamestar.de/tests/"));
+        assertNull(cached.loadBody("http://www.gamestar.de/"));
+        cached.close();
+    }
+
+    @Test
+    public void ramDirectoryTest() throws Exception {
+        CrawlerOptions options = new CrawlerOptions();
+        options.setExternalBodies(true);
+        LiveSearchEngine engine = new LiveSearchEngine(DIR, 0L, options);
+        engine.addWebsite(new CrawledWebsite("Neue Spiele im Test", "Tests", "http://www.gamestar.de/tests/"));
+        engine.addWebsite(new CrawledWebsite("Spiele und Hardware", "News", "http://www.gamestar.de/news/"));
+        engine.close();
+        new PageMetadataStore().save(DIR);
+
+        // Only the index is loaded into the heap
+        Directory ram = DirectoryType.RAM.open(DIR, true);
+        for (String file : ram.listAll()) {
+            assertFalse(file, file.startsWith("bodies.") || file.startsWith("pages."));
+        }
+        assertTrue(DirectoryReader.indexExists(ram));
+        ram.close();
+
+        CachedSearchEngine cached = new CachedSearchEngine(DIR, DirectoryType.RAM);
+        assertEquals(2, cached.search("spiele").size());
+        assertEquals("Spiele und Hardware", cached.loadBody("http://www.gamestar.de/news/"));
+        cached.close();
+    }
+
+    @Test
+    public void pageRankTest() throws Exception {
+        LiveSearchEngine engine = new LiveSearchEngine(DIR);
+        // The same query is scored with different weights
+        engine.setResultCache(null);
+        engine.addWebsite(new CrawledWebsite("Spiele im Test", "Tests", "http://www.gamestar.de/tests/"));
+        engine.addWebsite(new CrawledWebsite("Spiele im Test und Hardware", "News", "http://www.gamestar.de/news/"));
+        assertEquals("http://www.gamestar.de/tests/", engine.search("spiele").get(0).getWebsite().getURL().toString());
+
+        LinkGraph graph = new LinkGraph();
+        graph.addPage("http://www.gamestar.de/tests/", new String[]{"http://www.gamestar.de/news/"});
+        graph.addPage("http://www.gamestar.de/news/", new String[0]);
+        assertEquals(2, engine.updatePageRanks(graph, new PageRank(1).compute(graph)));
+        engine.commit();
+
+        // The index is ordered by the score of the text without a weight
+        assertEquals("http://www.gamestar.de/tests/", engine.search("spiele", 1, null).getResults().get(0).getWebsite().getURL().toString());
+        engine.setPageRankWeight(1F);
+        assertEquals("http://www.gamestar.de/news/", engine.search("spiele", 1, null).getResults().get(0).getWebsite().getURL().toString());
+        engine.close();
+
+        CachedSearchEngine cached = new CachedSearchEngine(DIR);
+        cached.setPageRankWeight(1F);
+        List<CrawledWebsiteResult> results = cached.search("spiele");
+        assertEquals(2, results.size());
+        assertEquals("http://www.gamestar.de/news/", results.get(0).getWebsite().getURL().toString());
+        assertTrue(results.get(0).getSnippet().contains("<b>Spiele</b>"));
+        cached.close();
+    }
+
+    @Test
+    public void sortedIndexTest() throws Exception {
+        CrawlerOptions options = new CrawlerOptions();
+        options.setSortedIndex(true);
+        LiveSearchEngine engine = new LiveSearchEngine(DIR, 0L, options);
+        engine.addWebsite(new CrawledWebsite("Spiele", "Tests", "http://www.gamestar.de/tests/"));
+        engine.commit();
+        engine.addWebsite(new CrawledWebsite("Spiele und Hardware im Test", "News", "http://www.gamestar.de/news/"));
+        engine.addWebsite(new CrawledWebsite("Videos", "Videos", "http://www.gamestar.de/videos/"));
+
+        LinkGraph graph = new LinkGraph();
+        graph.addPage("http://www.gamestar.de/tests/", new String[]{"http://www.gamestar.de/news/"});
+        graph.addPage("http://www.gamestar.de/videos/", new String[]{"http://www.gamestar.de/news/"});
+        graph.addPage("http://www.gamestar.de/news/", new String[0]);
+        engine.updatePageRanks(graph, new PageRank(1).compute(graph));
+        engine.sortIndex();
+        engine.close();
+
+        CachedSearchEngine cached = new CachedSearchEngine(DIR);
+        cached.setResultCache(null);
+        assertEquals("http://www.gamestar.de/tests/", cached.search("spiele", 1).get(0).getWebsite().getURL().toString());
+        // Only the hit with the highest PageRank is collected
+        cached.setEarlyTermination(1);
+        assertEquals("http://www.gamestar.de/news/", cached.search("spiele", 1).get(0).getWebsite().getURL().toString());
+        assertEquals(2, cached.search("spiele", 10).size());
+
+        // The first result page is searched with early termination as well
+        SearchPage page = cached.search("spiele", 1, null);
+        assertEquals("http://www.gamestar.de/news/", page.getResults().get(0).getWebsite().getURL().toString());
+        assertNotNull(page.getNextCursor());
+        // The missed hit has a higher score than the last hit of the first page
+        assertTrue(cached.search("spiele", 1, page.getNextCursor()).getResults().isEmpty());
+        cached.close();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.Test;
+
+public class PageRankQueryTest {
+
+    @Test
+    public void scoreTest() throws Exception {
+        RAMDirectory dir = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Version.LUCENE_46, new StandardAnalyzer(Version.LUCENE_46)));
+        String[] bodies = {"Neue Spiele im Test", "Spiele und Hardware", "Spiele Spiele Vorschau"};
+        float[] pageRanks = {0.5F, 2F, 0F};
+        for (int i = 0; i < bodies.length; ++i) {
+            Document document = new Document();
+            document.add(new StringField("id", String.valueOf(i), Field.Store.YES));
+            document.add(new TextField("body", bodies[i], Field.Store.NO));
+            document.add(new NumericDocValuesField("pageRank", Float.floatToIntBits(pageRanks[i])));
+            writer.addDocument(document);
+        }
+        writer.close();
+
+        DirectoryReader reader = DirectoryReader.open(dir);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        BooleanQuery text = new BooleanQuery();
+        text.add(new TermQuery(new Term("body", "spiele")), Occur.SHOULD);
+        text.add(new TermQuery(new Term("body", "hardware")), Occur.SHOULD);
+
+        Map<Integer, Float> textScores = new HashMap<Integer, Float>();
+        for (ScoreDoc hit : searcher.search(text, 10).scoreDocs) {
+            textScores.put(hit.doc, hit.score);
+        }
+        float weight = 0.5F;
+        Query query = new PageRankQuery(text, "pageRank", weight);
+        ScoreDoc[] hits = searcher.search(query, 10).scoreDocs;
+        assertEquals(3, hits.length);
+        for (ScoreDoc hit : hits) {
+            int id = Integer.parseInt(searcher.doc(hit.doc).get("id"));
+            // A document without a PageRank has the average PageRank
+            float pageRank = pageRanks[id] > 0F ? pageRanks[id] : 1F;
+            float expected = textScores.get(hit.doc) * (float) Math.pow(pageRank, weight);
+            assertEquals(expected, hit.score, expected * 1E-5F);
+        }
+        reader.close();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.SearchPage;
+
+public class QueryResultCacheTest {
+
+    private static List<CrawledWebsiteResult> results(String body) {
+        CrawledWebsite website = new CrawledWebsite(body, "Gamestar", "http://www.gamestar.de/");
+        return Collections.singletonList(new CrawledWebsiteResult(website, 1, 1.0F));
+    }
+
+    @Test
+    public void cacheTest() {
+        QueryResultCache cache = new QueryResultCache(2, 100000L);
+        assertNull(cache.get("spiele", 10, 1L));
+        cache.put("spiele", 10, 1L, results("Spiele"));
+
+        assertNotNull(cache.get("  spiele ", 10, 1L));
+        assertNull(cache.get("spiele", 20, 1L));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        // Least recently used query is evicted
+        cache.put("hardware", 10, 1L, results("Hardware"));
+        cache.get("spiele", 10, 1L);
+        cache.put("news", 10, 1L, results("News"));
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("hardware", 10, 1L));
+        assertNotNull(cache.get("spiele", 10, 1L));
+
+        // A new index version clears the cache
+        assertNull(cache.get("spiele", 10, 2L));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getInvalidations());
+        // Results of the old version are not cached
+        cache.put("spiele", 10, 1L, results("Spiele"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void weightTest() {
+        QueryResultCache cache = new QueryResultCache(100, 1000L);
+        cache.put("spiele", 10, 1L, results(new String(new char[2000])));
+        assertEquals(0, cache.size());
+        cache.put("spiele", 10, 1L, results(new String(new char[400])));
+        cache.put("hardware", 10, 1L, results(new String(new char[400])));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void pageTest() {
+        QueryResultCache cache = new QueryResultCache();
+        cache.put("spiele", 10, 1L, results("Spiele"));
+        // Pages and result lists are cached separately
+        assertNull(cache.getPage("spiele", 10, 1L));
+        cache.putPage("spiele", 10, 1L, new SearchPage(results("Spiele"), 25, "cursor"));
+        SearchPage page = cache.getPage("spiele ", 10, 1L);
+        assertEquals(1, page.getResults().size());
+        assertEquals(25, page.getTotalHits());
+        assertEquals("cursor", page.getNextCursor());
+        assertNull(cache.getPage("spiele", 10, 2L));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.minecrawler.data.CrawledWebsite;
+
+public class SearchMetricsTest {
+
+    private static final File DIR = new File("target/searchMetricsTest");
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Before
+    public void setUp() {
+        deleteDir(DIR);
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(DIR);
+    }
+
+    @Test
+    public void bucketTest() {
+        for (long nanos : new long[]{0L, 1L, 15L, 16L, 17L, 31L, 32L, 1000L, 123456789L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(nanos);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= nanos);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= nanos);
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.lowerBound(bucket)));
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.upperBound(bucket)));
+        }
+    }
+
+    @Test
+    public void percentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getPercentile(99.0));
+        for (long i = 1; i <= 1000; ++i) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000L, histogram.getCount());
+        assertEquals(500500L, histogram.getMean());
+        assertEquals(1000000L, histogram.getMax());
+
+        // At most one sub bucket too high
+        double error = 1.0 / LatencyHistogram.SUB_BUCKETS;
+        long median = histogram.getPercentile(50.0);
+        assertTrue(median >= 500000L && median <= 500000L * (1.0 + error));
+        long p99 = histogram.getPercentile(99.0);
+        assertTrue(p99 >= 990000L && p99 <= 990000L * (1.0 + error));
+        assertEquals(1000000L, histogram.getPercentile(100.0));
+
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMax());
+    }
+
+    @Test
+    public void searchTest() throws Exception {
+        LiveSearchEngine engine = new LiveSearchEngine(DIR);
+        engine.addWebsite(new CrawledWebsite("Neue Spiele im Test", "Tests", "http://www.gamestar.de/tests/"));
+        SearchMetrics metrics = engine.getMetrics();
+
+        assertEquals(1, engine.search("spiele").size());
+        // Answered by the cache
+        assertEquals(1, engine.search("spiele").size());
+        assertEquals(1, engine.search("spiele", 10, null).getResults().size());
+        engine.search("spiele AND (");
+
+        assertEquals(4L, metrics.getQueries());
+        assertEquals(1L, metrics.getCacheHits());
+        assertEquals(1L, metrics.getInvalidQueries());
+        assertEquals(0L, metrics.getErrors());
+        assertEquals(3L, metrics.getHistogram(SearchMetrics.Phase.TOTAL).getCount());
+        assertEquals(2L, metrics.getHistogram(SearchMetrics.Phase.PARSE).getCount());
+        assertEquals(2L, metrics.getHistogram(SearchMetrics.Phase.SEARCH).getCount());
+        assertEquals(2L, metrics.getHistogram(SearchMetrics.Phase.FETCH).getCount());
+        assertEquals(2L, metrics.getHistogram(SearchMetrics.Phase.ASSEMBLY).getCount());
+
+        String json = metrics.toJson();
+        assertTrue(json.startsWith("{\"queries\":4,\"cacheHits\":1,\"invalidQueries\":1,\"errors\":0,\"phases\":{\"parse\":{\"count\":2,"));
+        assertTrue(json.contains("\"total\":{\"count\":3,"));
+
+        // Not recorded
+        engine.setMetrics(null);
+        engine.search("test");
+        assertEquals(4L, metrics.getQueries());
+        engine.close();
+    }
+}
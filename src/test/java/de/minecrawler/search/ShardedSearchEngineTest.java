@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.minecrawler.data.CrawledWebsite;
+import de.minecrawler.data.CrawledWebsiteResult;
+import de.minecrawler.data.CrawlerOptions;
+import de.minecrawler.data.SearchPage;
+
+public class ShardedSearchEngineTest {
+
+    private static final File DIR = new File("target/shardedSearchEngineTest");
+
+    private static final String[] HOSTS = { "www.gamestar.de", "www.heise.de", "www.golem.de", "www.spiegel.de", "www.zeit.de" };
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory())
+                    deleteDir(file);
+                else
+                    file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Before
+    public void setUp() {
+        deleteDir(DIR);
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir(DIR);
+    }
+
+    private static List<CrawledWebsite> createWebsites() {
+        List<CrawledWebsite> websites = new ArrayList<CrawledWebsite>();
+        for (int i = 0; i < 25; ++i) {
+            websites.add(new CrawledWebsite("Spiele Test " + i + (i % 3 == 0 ? " spiele" : ""), "Test " + i, "http://" + HOSTS[i % HOSTS.length] + "/tests/" + i));
+        }
+        return websites;
+    }
+
+    @Test
+    public void searchTest() throws Exception {
+        ShardedSearchEngine engine = new ShardedSearchEngine(DIR, 3, 0L, new CrawlerOptions());
+        engine.addWebsites(createWebsites());
+        assertEquals(25, engine.getDocumentCount());
+        assertEquals(3, ShardedSearchEngine.getShardCount(DIR));
+
+        // The merged hits are ordered by their score
+        List<CrawledWebsiteResult> results = engine.search("spiele", 25);
+        assertEquals(25, results.size());
+        for (int i = 0; i < results.size(); ++i) {
+            assertEquals(i + 1, results.get(i).getRank());
+            if (i > 0)
+                assertTrue(results.get(i - 1).getScore() >= results.get(i).getScore());
+            assertNotNull(results.get(i).getSnippet());
+        }
+
+        // All websites of a host are in the same shard
+        String url = "http://www.heise.de/tests/6";
+        engine.removeWebsite(url);
+        assertEquals(24, engine.search("spiele", 25).size());
+        assertEquals("Spiele Test 1", engine.loadBody("http://www.heise.de/tests/1"));
+        engine.close();
+    }
+
+    @Test
+    public void cursorTest() throws Exception {
+        ShardedSearchEngine engine = new ShardedSearchEngine(DIR, 4, 0L, new CrawlerOptions());
+        engine.addWebsites(createWebsites());
+        engine.commit();
+
+        Set<URL> urls = new HashSet<URL>();
+        String cursor = null;
+        int rank = 0;
+        do {
+            SearchPage page = engine.search("spiele", 3, cursor);
+            assertEquals(25, page.getTotalHits());
+            for (CrawledWebsiteResult result : page.getResults()) {
+                assertEquals(++rank, result.getRank());
+                assertTrue(urls.add(result.getWebsite().getURL()));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(25, urls.size());
+
+        // A change of any shard outdates the cursor
+        cursor = engine.search("spiele", 3, null).getNextCursor();
+        engine.addWebsites(Collections.singletonList(new CrawledWebsite("Spiele News", "News", "http://www.pcgames.de/news/")));
+        assertTrue(engine.search("spiele", 3, cursor).getResults().isEmpty());
+        engine.close();
+    }
+
+    @Test
+    public void cachedTest() throws Exception {
+        ShardedSearchEngine live = new ShardedSearchEngine(DIR, 2, 0L, new CrawlerOptions());
+        live.addWebsites(createWebsites());
+        List<CrawledWebsiteResult> expected = live.search("spiele", 10);
+        live.close();
+
+        ShardedSearchEngine cached = new ShardedSearchEngine(DIR, DirectoryType.AUTO);
+        assertEquals(2, cached.getShardCount());
+        // The shards are opened on the first search
+        assertFalse(cached.isShardOpen(0));
+        List<CrawledWebsiteResult> results = cached.search("spiele", 10);
+        assertTrue(cached.isShardOpen(0));
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i).getWebsite().getURL(), results.get(i).getWebsite().getURL());
+        }
+
+        cached.evictShard(1);
+        assertFalse(cached.isShardOpen(1));
+        cached.setResultCache(null);
+        assertEquals(10, cached.search("spiele", 10).size());
+        assertTrue(cached.isShardOpen(1));
+        cached.close();
+    }
+}
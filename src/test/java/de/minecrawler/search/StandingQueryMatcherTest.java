@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014
+ * 
+ * This file is part of InformationRetrieval.
+ * 
+ * InformationRetrieval is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ * 
+ * InformationRetrieval is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with InformationRetrieval.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.minecrawler.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.junit.Test;
+
+import de.minecrawler.data.CrawledWebsite;
+
+public class StandingQueryMatcherTest {
+
+    @Test
+    public void matchTest() throws Exception {
+        StandingQueryMatcher matcher = new StandingQueryMatcher();
+        matcher.addQuery("spiele AND hardware");
+        matcher.addQuery("\"neue spiele\"");
+        matcher.addQuery("title:vorschau");
+        assertEquals(3, matcher.getQueryCount());
+
+        List<String> matches = matcher.match(new CrawledWebsite("Neue Spiele und Hardware im Test", "Tests", "http://www.gamestar.de/tests/"));
+        assertEquals(Arrays.asList("spiele AND hardware", "\"neue spiele\""), matches);
+
+        // The memory index is reused for the next website
+        matches = matcher.match(new CrawledWebsite("Hardware und neue Grafikkarten", "Vorschau", "http://www.gamestar.de/vorschau/"));
+        assertEquals(Arrays.asList("title:vorschau"), matches);
+
+        assertTrue(matcher.match(new CrawledWebsite("Forum", "Forum", "http://www.gamestar.de/forum/")).isEmpty());
+
+        assertEquals(3, matcher.getMatchedWebsites());
+        assertEquals(3, matcher.getMatches());
+        assertTrue(matcher.getMatchTime() >= matcher.getMaxMatchTime());
+    }
+
+    @Test(expected = ParseException.class)
+    public void wrongQueryTest() throws Exception {
+        new StandingQueryMatcher().addQuery("spiele AND (");
+    }
+}